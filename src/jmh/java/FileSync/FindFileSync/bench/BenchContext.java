@@ -0,0 +1,31 @@
+package FileSync.FindFileSync.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.Map;
+
+/**
+ * 벤치마크 대상 컴포넌트만 올린 작은 스프링 컨텍스트.
+ * <p>
+ * 애플리케이션 전체를 띄우면 FileSyncController가 최초 동기화와 감시를 시작하므로, 필요한 빈과 설정만 등록한다.
+ * 설정하지 않은 값은 각 컴포넌트의 {@code @Value} 기본값을 쓴다.
+ */
+final class BenchContext {
+
+    private BenchContext() {
+    }
+
+    static AnnotationConfigApplicationContext start(Map<String, Object> properties, Class<?>... components) {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark", properties));
+        context.registerBean(ObjectMapper.class);
+        context.registerBean(MeterRegistry.class, SimpleMeterRegistry::new);
+        context.register(components);
+        context.refresh();
+        return context;
+    }
+}
@@ -0,0 +1,80 @@
+package FileSync.FindFileSync.bench;
+
+import FileSync.FindFileSync.metrics.SyncMetrics;
+import FileSync.FindFileSync.watch.ChangeType;
+import FileSync.FindFileSync.watch.EventCoalescer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 감시 이벤트를 병합 단계({@link EventCoalescer})에 넣는 처리량.
+ * <p>
+ * 경로 수가 적으면 대부분 기존 항목에 합쳐지고(저장 중인 파일에 MODIFY가 몰리는 경우), 많으면 경로마다 새 항목과
+ * 타이머가 생긴다(대량 복사). 창이 끝난 경로는 백그라운드에서 확인 후 내보내지며 다음 단계는 개수만 센다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EventCoalescerBenchmark {
+
+    @Param({"64", "65536"})
+    public int distinctPaths;
+
+    private AnnotationConfigApplicationContext context;
+    private EventCoalescer coalescer;
+    private Path[] paths;
+    private final LongAdder emitted = new LongAdder();
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchContext.start(Map.of(
+                "config.watch.coalesceWindowMillis", 100,
+                "config.watch.maxHoldMillis", 1000), SyncMetrics.class, EventCoalescer.class);
+        coalescer = context.getBean(EventCoalescer.class);
+        coalescer.setListener(change -> emitted.increment());
+
+        // 없는 경로이므로 창이 끝나면 삭제로 내보내진다 (파일 상태 확인 비용은 포함)
+        Path root = Paths.get("/bench/coalesce").toAbsolutePath();
+        paths = new Path[distinctPaths];
+        for (int i = 0; i < distinctPaths; i++) {
+            paths[i] = root.resolve("d" + (i % 256)).resolve(SyntheticTree.fileName(i));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void onEvent(Cursor cursor) {
+        coalescer.onEvent(paths[cursor.next++ % distinctPaths], ChangeType.UPSERT);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void onEventContended(Cursor cursor) {
+        coalescer.onEvent(paths[cursor.next++ % distinctPaths], ChangeType.UPSERT);
+    }
+}
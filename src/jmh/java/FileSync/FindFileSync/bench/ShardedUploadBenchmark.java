@@ -0,0 +1,139 @@
+package FileSync.FindFileSync.bench;
+
+import FileSync.FindFileSync.compress.AdaptiveCompressor;
+import FileSync.FindFileSync.dedup.ContentHasher;
+import FileSync.FindFileSync.delta.SignatureStore;
+import FileSync.FindFileSync.metrics.SyncMetrics;
+import FileSync.FindFileSync.scheduler.UploadPriority;
+import FileSync.FindFileSync.scheduler.UploadScheduler;
+import FileSync.FindFileSync.service.ChunkedUploader;
+import FileSync.FindFileSync.service.DedupUploader;
+import FileSync.FindFileSync.service.DeltaUploader;
+import FileSync.FindFileSync.service.RemoteFileService;
+import FileSync.FindFileSync.source.SourceRoots;
+import FileSync.FindFileSync.target.SyncTargets;
+import FileSync.FindFileSync.transport.BandwidthLimiter;
+import FileSync.FindFileSync.transport.SyncTransportFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 여러 서버({@link StubSyncServer} 여러 개)로 나눠 올릴 때의 처리량.
+ * <p>
+ * 파일마다 {@link SyncTargets#targetsFor}로 고른 서버에 서버별 대기열을 거쳐 올리고 모두 끝날 때까지 기다린다.
+ * {@code targets=1}이 기존 단일 서버 기준선이고, {@code replicas}가 늘면 파일당 요청 수도 늘어난다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ShardedUploadBenchmark {
+
+    private static final int FILES = 64;
+
+    @Param({"1", "3"})
+    public int targets;
+
+    @Param({"1", "2"})
+    public int replicas;
+
+    @Param({"262144"})
+    public int fileSize;
+
+    private StubSyncServer[] servers;
+    private AnnotationConfigApplicationContext context;
+    private RemoteFileService remote;
+    private SyncTargets syncTargets;
+    private Path sourceDir;
+    private Path stateDir;
+    private Path[] files;
+    private String[] relativePaths;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        servers = new StubSyncServer[targets];
+        StringJoiner addresses = new StringJoiner(",");
+        for (int i = 0; i < targets; i++) {
+            servers[i] = new StubSyncServer(16);
+            addresses.add(servers[i].address());
+        }
+        sourceDir = Files.createTempDirectory("filesync-sharded-");
+        stateDir = Files.createTempDirectory("filesync-state-");
+
+        Random random = new Random(7);
+        files = new Path[FILES];
+        relativePaths = new String[FILES];
+        for (int i = 0; i < FILES; i++) {
+            byte[] content = new byte[fileSize];
+            random.nextBytes(content);
+            files[i] = Files.write(sourceDir.resolve("upload" + i + ".bin"), content);
+        }
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("config.targets.servers", addresses.toString());
+        properties.put("config.targets.replicas", replicas);
+        properties.put("config.sourceDir", sourceDir.toString());
+        properties.put("config.chunk.enabled", false);
+        properties.put("config.delta.enabled", false);
+        properties.put("config.delta.signatureDir", stateDir.resolve("signatures").toString());
+        properties.put("config.delta.tempDir", stateDir.resolve("tmp").toString());
+        properties.put("config.dedup.enabled", false);
+        properties.put("config.compression.enabled", false);
+        context = BenchContext.start(properties,
+                SyncMetrics.class, SourceRoots.class, UploadScheduler.class, BandwidthLimiter.class,
+                SyncTransportFactory.class, SyncTargets.class, AdaptiveCompressor.class,
+                SignatureStore.class, DeltaUploader.class, ContentHasher.class, DedupUploader.class,
+                ChunkedUploader.class, RemoteFileService.class);
+        remote = context.getBean(RemoteFileService.class);
+        syncTargets = context.getBean(SyncTargets.class);
+        SourceRoots sourceRoots = context.getBean(SourceRoots.class);
+        for (int i = 0; i < FILES; i++) {
+            relativePaths[i] = sourceRoots.relativePath(files[i]);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        for (StubSyncServer server : servers) {
+            server.close();
+        }
+        SyntheticTree.delete(sourceDir);
+        SyntheticTree.delete(stateDir);
+    }
+
+    // 업로드 스케줄러 기본 동시 실행 수
+    @Benchmark
+    @Threads(8)
+    public boolean uploadFile(Cursor cursor) throws Exception {
+        int i = cursor.next++ % FILES;
+        Path file = files[i];
+        return syncTargets.fanOut(syncTargets.targetsFor(relativePaths[i]), UploadPriority.NORMAL,
+                target -> CompletableFuture.completedFuture(remote.uploadFile(target, file, file.getFileName().toString())))
+                .get();
+    }
+}
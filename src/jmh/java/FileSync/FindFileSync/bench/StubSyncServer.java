@@ -0,0 +1,117 @@
+package FileSync.FindFileSync.bench;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 업로드 벤치마크용 로컬 서버 (JDK 내장 HTTP 서버).
+ * <p>
+ * {@code /file/upload}, {@code /file/upload/verified}(체크섬은 확인하지 않음), {@code /file/exists}, {@code /file/delete},
+ * {@code /file/update/dir}, {@code /file/deleteDirectory}만 구현하고 나머지는 404로 응답하므로, 클라이언트는 델타/내용 연결/압축/묶음
+ * 같은 확장 API를 처음 한 번 확인한 뒤 기본 경로만 쓴다. 요청 본문은 끝까지 읽기만 하고 저장하지 않아서
+ * 디스크 쓰기 대신 클라이언트와 전송 계층의 비용이 측정된다. ({@code stub} 프로필 서버는 전체 애플리케이션과
+ * 함께 떠서 최초 동기화와 감시까지 시작하므로 벤치마크에는 쓰지 않는다.)
+ */
+final class StubSyncServer implements AutoCloseable {
+
+    private static final byte[] OK = "OK".getBytes(StandardCharsets.UTF_8);
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    // exists가 true로 답할 경로 (동기화 루트 기준 상대 경로)
+    private final Set<String> existing = ConcurrentHashMap.newKeySet();
+    private final LongAdder receivedBytes = new LongAdder();
+
+    StubSyncServer(int threads) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 256);
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "stub-server-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/file/", this::handle);
+        server.start();
+    }
+
+    // config.serverUrl 형식 (host:port)
+    String address() {
+        return "localhost:" + server.getAddress().getPort();
+    }
+
+    void addExisting(String relativePath) {
+        existing.add(relativePath);
+    }
+
+    long receivedBytes() {
+        return receivedBytes.sum();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String method = exchange.getRequestMethod();
+            // 컨텍스트는 접두사로 일치하므로 (/file/upload/compressed 등) 경로 전체를 비교한다
+            String route = method + " " + exchange.getRequestURI().getPath();
+            drain(exchange.getRequestBody());
+            switch (route) {
+                case "POST /file/upload", "POST /file/upload/verified", "POST /file/update/dir", "DELETE /file/deleteDirectory" -> respond(exchange, 200, OK);
+                case "GET /file/exists" -> {
+                    boolean exists = existing.contains(queryPath(exchange));
+                    respond(exchange, 200, String.valueOf(exists).getBytes(StandardCharsets.UTF_8));
+                }
+                case "GET /file/delete" -> {
+                    existing.remove(queryPath(exchange));
+                    respond(exchange, 200, OK);
+                }
+                default -> respond(exchange, 404, new byte[0]);
+            }
+        }
+    }
+
+    private void drain(InputStream body) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        int n;
+        while ((n = body.read(buffer)) > 0) {
+            receivedBytes.add(n);
+        }
+    }
+
+    private static String queryPath(HttpExchange exchange) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null || !query.startsWith("path=")) {
+            return "";
+        }
+        return URLDecoder.decode(query.substring("path=".length()), StandardCharsets.UTF_8);
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        if (body.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package FileSync.FindFileSync.bench;
+
+import FileSync.FindFileSync.filter.SyncFilter;
+import FileSync.FindFileSync.source.SourceRoots;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 파일 하나를 동기화할지 판단하는 비용 ({@link SyncFilter#acceptsFile}). 감시 이벤트와 탐색의 모든 파일이 거친다.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SyncFilterBenchmark {
+
+    private static final int PATHS = 4096;
+
+    // none: 확장자만, globs: application.yml의 기본 제외 규칙까지
+    @Param({"none", "globs"})
+    public String rules;
+
+    private AnnotationConfigApplicationContext context;
+    private SyncFilter filter;
+    private Path[] paths;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Path root = Paths.get("/bench/source").toAbsolutePath();
+        context = BenchContext.start(Map.of(
+                "config.sourceDir", root.toString(),
+                "config.allowedExtensions", "txt,jpg,pdf,jpeg,exe,lnk,zip,avi,mp4,mkv,mov,ini,png",
+                "config.filter.exclude", rules.equals("globs")
+                        ? "node_modules/,.git/,$RECYCLE.BIN/,System Volume Information/,~$*,*.tmp" : ""),
+                SourceRoots.class, SyncFilter.class);
+        filter = context.getBean(SyncFilter.class);
+
+        Random random = new Random(42);
+        String[] dirs = {"docs", "photos/2024/05", "src/main/java", "node_modules/lib", "a/b/c/d/e/f"};
+        paths = new Path[PATHS];
+        for (int i = 0; i < PATHS; i++) {
+            String name = SyntheticTree.fileName(random.nextInt(1000));
+            if (random.nextInt(16) == 0) {
+                name = "~$" + name;
+            }
+            paths[i] = root.resolve(dirs[random.nextInt(dirs.length)]).resolve(name);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public boolean acceptsFile() {
+        return filter.acceptsFile(paths[next++ & (PATHS - 1)]);
+    }
+}
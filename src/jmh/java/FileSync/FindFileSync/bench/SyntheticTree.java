@@ -0,0 +1,90 @@
+package FileSync.FindFileSync.bench;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Random;
+
+/**
+ * 벤치마크용 디렉토리 트리. 같은 모양이면 항상 같은 이름과 크기로 만든다 (고정 시드).
+ * <ul>
+ *     <li>{@code deep}: 깊이 64의 사슬 16개, 디렉토리마다 파일 8개 (디렉토리 1024개, 파일 8192개)</li>
+ *     <li>{@code wide}: 루트 아래 디렉토리 2048개, 각각 파일 4개</li>
+ *     <li>{@code small}: 디렉토리 32개, 각각 0~512바이트 파일 512개</li>
+ * </ul>
+ */
+final class SyntheticTree {
+
+    // 허용 확장자와 그렇지 않은 확장자를 섞는다 (application.yml의 allowedExtensions 기준)
+    static final String[] EXTENSIONS = {"txt", "jpg", "pdf", "ini", "png", "mp4", "log", "class", "tmp", ""};
+
+    private static final long SEED = 20250301L;
+
+    private SyntheticTree() {
+    }
+
+    static Path create(Path root, String shape) throws IOException {
+        Random random = new Random(SEED);
+        switch (shape) {
+            case "deep" -> {
+                for (int chain = 0; chain < 16; chain++) {
+                    Path dir = root.resolve("chain" + chain);
+                    for (int depth = 0; depth < 64; depth++) {
+                        dir = dir.resolve("d" + depth);
+                        Files.createDirectories(dir);
+                        writeFiles(dir, 8, 1024, random);
+                    }
+                }
+            }
+            case "wide" -> {
+                for (int i = 0; i < 2048; i++) {
+                    Path dir = Files.createDirectories(root.resolve("w" + i));
+                    writeFiles(dir, 4, 1024, random);
+                }
+            }
+            case "small" -> {
+                for (int i = 0; i < 32; i++) {
+                    Path dir = Files.createDirectories(root.resolve("s" + i));
+                    writeFiles(dir, 512, 512, random);
+                }
+            }
+            default -> throw new IllegalArgumentException("알 수 없는 트리 모양: " + shape);
+        }
+        return root;
+    }
+
+    static String fileName(int index) {
+        String extension = EXTENSIONS[index % EXTENSIONS.length];
+        return extension.isEmpty() ? "f" + index : "f" + index + "." + extension;
+    }
+
+    static void delete(Path root) throws IOException {
+        if (root == null || !Files.exists(root)) {
+            return;
+        }
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private static void writeFiles(Path dir, int count, int maxSize, Random random) throws IOException {
+        for (int i = 0; i < count; i++) {
+            byte[] content = new byte[random.nextInt(maxSize + 1)];
+            random.nextBytes(content);
+            Files.write(dir.resolve(fileName(i)), content);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package FileSync.FindFileSync.bench;
+
+import FileSync.FindFileSync.scan.ParallelTreeScanner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 최초 동기화 탐색({@link ParallelTreeScanner})이 합성 트리 전체를 도는 시간. 방문 처리는 개수만 센다.
+ * 트리는 한 번 만들어 두므로 두 번째 반복부터는 OS 디렉토리 캐시가 찬 상태의 비용이다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TreeScanBenchmark {
+
+    @Param({"deep", "wide", "small"})
+    public String shape;
+
+    // 0이면 CPU 코어 수
+    @Param({"1", "0"})
+    public int parallelism;
+
+    private Path root;
+    private AnnotationConfigApplicationContext context;
+    private ParallelTreeScanner scanner;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        root = SyntheticTree.create(Files.createTempDirectory("filesync-scan-"), shape);
+        context = BenchContext.start(Map.of("config.scan.parallelism", parallelism), ParallelTreeScanner.class);
+        scanner = context.getBean(ParallelTreeScanner.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        SyntheticTree.delete(root);
+    }
+
+    @Benchmark
+    public long scan() throws IOException {
+        LongAdder files = new LongAdder();
+        scanner.scan(root, new ParallelTreeScanner.Visitor() {
+            @Override
+            public boolean directory(Path dir, BasicFileAttributes attrs) {
+                return true;
+            }
+
+            @Override
+            public void file(Path file, BasicFileAttributes attrs) {
+                files.increment();
+            }
+        });
+        return files.sum();
+    }
+}
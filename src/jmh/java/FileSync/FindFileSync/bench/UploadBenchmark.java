@@ -0,0 +1,149 @@
+package FileSync.FindFileSync.bench;
+
+import FileSync.FindFileSync.compress.AdaptiveCompressor;
+import FileSync.FindFileSync.dedup.ContentHasher;
+import FileSync.FindFileSync.delta.SignatureStore;
+import FileSync.FindFileSync.metrics.SyncMetrics;
+import FileSync.FindFileSync.scheduler.UploadScheduler;
+import FileSync.FindFileSync.service.ChunkedUploader;
+import FileSync.FindFileSync.service.DedupUploader;
+import FileSync.FindFileSync.service.DeltaUploader;
+import FileSync.FindFileSync.service.RemoteFileService;
+import FileSync.FindFileSync.source.SourceRoots;
+import FileSync.FindFileSync.target.SyncTarget;
+import FileSync.FindFileSync.target.SyncTargets;
+import FileSync.FindFileSync.transport.BandwidthLimiter;
+import FileSync.FindFileSync.transport.SyncTransportFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RemoteFileService}로 로컬 스텁 서버({@link StubSyncServer})에 보내는 요청의 처리량.
+ * <p>
+ * 업로드 처리량(바이트/초)은 ops/s에 {@code fileSize}를 곱한 값이다. 청크/델타/내용 연결/압축은 꺼서
+ * 기본 multipart 업로드 경로만 측정하고, 전송 계층({@code config.transport.type})별로 비교한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class UploadBenchmark {
+
+    // 같은 파일을 계속 올리지 않도록 돌려 가며 쓰는 파일 수
+    private static final int FILES = 16;
+
+    @Param({"4096", "262144", "4194304"})
+    public int fileSize;
+
+    @Param({"okhttp", "resttemplate"})
+    public String transport;
+
+    private StubSyncServer server;
+    private AnnotationConfigApplicationContext context;
+    private RemoteFileService remote;
+    private SyncTarget target;
+    private Path sourceDir;
+    private Path stateDir;
+    private Path[] files;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        server = new StubSyncServer(16);
+        sourceDir = Files.createTempDirectory("filesync-upload-");
+        stateDir = Files.createTempDirectory("filesync-state-");
+
+        Random random = new Random(7);
+        files = new Path[FILES];
+        for (int i = 0; i < FILES; i++) {
+            byte[] content = new byte[fileSize];
+            random.nextBytes(content);
+            files[i] = Files.write(sourceDir.resolve("upload" + i + ".bin"), content);
+            // exists 요청은 절반만 true
+            if (i % 2 == 0) {
+                server.addExisting("/upload" + i + ".bin");
+            }
+        }
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("config.serverUrl", server.address());
+        properties.put("config.sourceDir", sourceDir.toString());
+        properties.put("config.transport.type", transport);
+        properties.put("config.chunk.enabled", false);
+        properties.put("config.delta.enabled", false);
+        properties.put("config.delta.signatureDir", stateDir.resolve("signatures").toString());
+        properties.put("config.delta.tempDir", stateDir.resolve("tmp").toString());
+        properties.put("config.dedup.enabled", false);
+        properties.put("config.compression.enabled", false);
+        context = BenchContext.start(properties,
+                SyncMetrics.class, SourceRoots.class, UploadScheduler.class, BandwidthLimiter.class,
+                SyncTransportFactory.class, SyncTargets.class, AdaptiveCompressor.class,
+                SignatureStore.class, DeltaUploader.class, ContentHasher.class, DedupUploader.class,
+                ChunkedUploader.class, RemoteFileService.class);
+        remote = context.getBean(RemoteFileService.class);
+        target = context.getBean(SyncTargets.class).all().get(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        server.close();
+        SyntheticTree.delete(sourceDir);
+        SyntheticTree.delete(stateDir);
+    }
+
+    @Benchmark
+    public boolean uploadFile(Cursor cursor) {
+        Path file = files[cursor.next++ % FILES];
+        return remote.uploadFile(target, file, file.getFileName().toString());
+    }
+
+    // 업로드 스케줄러 기본 동시 실행 수
+    @Benchmark
+    @Threads(8)
+    public boolean uploadFileConcurrent(Cursor cursor) {
+        Path file = files[cursor.next++ % FILES];
+        return remote.uploadFile(target, file, file.getFileName().toString());
+    }
+
+    @Benchmark
+    public boolean exists(Cursor cursor) {
+        return remote.fileExistsOnServer(target, files[cursor.next++ % FILES].toString());
+    }
+
+    @Benchmark
+    public boolean deleteFile(Cursor cursor) {
+        return remote.deleteFile(target, files[cursor.next++ % FILES].toString());
+    }
+
+    @Benchmark
+    public boolean uploadDir() {
+        return remote.uploadDir(target, sourceDir.resolve("dir"));
+    }
+
+    @Benchmark
+    public boolean deleteDir() {
+        return remote.deleteDir(target, sourceDir.resolve("dir").toString());
+    }
+}
@@ -1,21 +1,16 @@
 package FileSync.FindFileSync;
 
+import FileSync.FindFileSync.transport.SyncTransport;
+import FileSync.FindFileSync.transport.SyncTransportFactory;
 import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.FileSystemResource;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.util.LinkedMultiValueMap;
-import org.springframework.util.MultiValueMap;
-import org.springframework.web.client.RestOperations;
-import org.springframework.web.multipart.MultipartFile;
-import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
 import java.nio.file.Path;
+import java.util.Map;
 
 @Slf4j
 @Service
@@ -24,6 +19,9 @@ public class TestRemoteService {
     @Value("${config.serverUrl}")
     private String serverUrl;
 
+    @Autowired
+    private SyncTransportFactory transportFactory;
+
     private static String UPLOAD_URL;
     private static String DELETE_URL;
     private static String FILE_EXISTS_URL;
@@ -38,24 +36,14 @@ public class TestRemoteService {
         log.info(FILE_EXISTS_URL);
     }
 
-    public void test(Path localFilePath, String fileName) {
-
-        FileSystemResource fileResource = new FileSystemResource(localFilePath.toFile());
+    public void test(Path localFilePath, String fileName) throws IOException {
 
         // 요청 body 생성
-        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
-        body.add("file", fileResource);
-        body.add("relativePath", fileName);
-
-        // 요청 헤더 생성
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
-
-        HttpEntity<MultiValueMap<String, Object>> requestEntity = new HttpEntity<>(body, headers);
+        Map<String, String> fields = Map.of("relativePath", fileName);
 
-        // POST 요청 전송
-        RestTemplate restTemplate = new RestTemplate();
-        ResponseEntity<String> response = restTemplate.postForEntity(UPLOAD_URL, requestEntity, String.class);
+        // POST 요청 전송 (공유 커넥션 풀 사용)
+        SyncTransport transport = transportFactory.shared();
+        transport.uploadFile(UPLOAD_URL, fields, localFilePath);
 
     }
 }
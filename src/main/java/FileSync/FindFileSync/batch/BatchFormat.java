@@ -0,0 +1,22 @@
+package FileSync.FindFileSync.batch;
+
+/**
+ * 작은 파일 묶음 전송 형식.
+ * <pre>
+ * 헤더:  int MAGIC, int VERSION, int entryCount
+ * 항목:  UTF path, long lastModified, int length, int crc32c, byte[length]
+ * </pre>
+ * 모든 정수는 big-endian ({@link java.io.DataOutputStream} 형식). 서버는 CRC32C가 맞는 항목만 저장하고
+ * 저장한 경로 목록을 {@code {"stored": [...]}}로 돌려준다. 항목이 없는 묶음은 지원 여부 확인에 쓴다.
+ */
+public final class BatchFormat {
+
+    public static final int MAGIC = 0x46534254; // "FSBT"
+    public static final int VERSION = 1;
+
+    // 항목 하나의 헤더 크기 (경로 제외): lastModified + length + crc32c
+    public static final int ENTRY_OVERHEAD = 8 + 4 + 4;
+
+    private BatchFormat() {
+    }
+}
@@ -0,0 +1,235 @@
+package FileSync.FindFileSync.compress;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * 업로드할 파일을 압축할지 정하고, 압축하면 gzip 형식으로 스트리밍한다.
+ * <p>
+ * 이미 압축된 형식(zip, mp4, jpg 등)은 확장자만 보고 건너뛰고, 잘 알려진 텍스트 형식은 바로 압축한다.
+ * 그 밖의 파일은 첫 블록의 바이트 엔트로피를 재서 {@code config.compression.maxEntropyBits} 이하일 때만 압축하므로
+ * 미디어 파일에 CPU를 쓰지 않는다. Deflater(네이티브 zlib 메모리)와 입출력 버퍼는 파일마다 만들지 않고 재사용한다.
+ */
+@Slf4j
+@Component
+public class AdaptiveCompressor {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // gzip 헤더: 매직, deflate, 플래그 없음, 수정 시각 없음, 추가 플래그 없음, OS 알 수 없음
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    @Value("${config.compression.enabled:true}")
+    private boolean enabled;
+
+    @Value("${config.compression.minSizeBytes:1024}")
+    private long minSize;
+
+    @Value("${config.compression.level:6}")
+    private int level;
+
+    @Value("${config.compression.sampleBytes:4096}")
+    private int sampleBytes;
+
+    @Value("${config.compression.maxEntropyBits:7.0}")
+    private double maxEntropyBits;
+
+    @Value("${config.compression.skipExtensions:zip,gz,tgz,bz2,xz,7z,rar,zst,jar,mp4,mkv,avi,mov,webm,mp3,aac,flac,ogg,jpg,jpeg,png,gif,webp,heic,docx,xlsx,pptx,pdf}")
+    private String skipExtensions;
+
+    @Value("${config.compression.textExtensions:txt,ini,csv,log,xml,json,html,htm,md,yml,yaml,properties}")
+    private String textExtensions;
+
+    // 재사용할 Deflater 수 (동시 업로드 수 정도)
+    @Value("${config.compression.poolSize:16}")
+    private int poolSize;
+
+    private Set<String> skip;
+    private Set<String> text;
+
+    private ArrayBlockingQueue<Deflater> deflaters;
+    private ArrayBlockingQueue<byte[]> buffers;
+
+    @PostConstruct
+    public void init() {
+        skip = parseExtensions(skipExtensions);
+        text = parseExtensions(textExtensions);
+        deflaters = new ArrayBlockingQueue<>(poolSize);
+        buffers = new ArrayBlockingQueue<>(poolSize * 2);
+    }
+
+    @PreDestroy
+    public void close() {
+        Deflater deflater;
+        while ((deflater = deflaters.poll()) != null) {
+            deflater.end();
+        }
+    }
+
+    /**
+     * 압축해서 보내는 편이 나으면 true.
+     */
+    public boolean shouldCompress(Path file, long size) {
+        if (!enabled || size < minSize) {
+            return false;
+        }
+        String extension = extension(file);
+        if (skip.contains(extension)) {
+            return false;
+        }
+        if (text.contains(extension)) {
+            return true;
+        }
+        double entropy = sampleEntropy(file);
+        log.debug("압축 판단: {} (엔트로피 {})", file, entropy);
+        return entropy <= maxEntropyBits;
+    }
+
+    /**
+     * 파일을 gzip 형식으로 out에 쓴다 (out은 닫지 않음).
+     *
+     * @return 원본 바이트 수
+     */
+    public long gzip(Path file, OutputStream out) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return gzip(in, out);
+        }
+    }
+
+    /**
+     * in을 끝까지 읽어 gzip 형식으로 out에 쓴다 (둘 다 닫지 않음).
+     *
+     * @return 원본 바이트 수
+     */
+    public long gzip(InputStream in, OutputStream out) throws IOException {
+        Deflater deflater = borrowDeflater();
+        byte[] input = borrowBuffer();
+        byte[] output = borrowBuffer();
+        try {
+            CRC32 crc = new CRC32();
+            long total = 0;
+            out.write(GZIP_HEADER);
+
+            int n;
+            while ((n = in.read(input)) > 0) {
+                crc.update(input, 0, n);
+                total += n;
+                deflater.setInput(input, 0, n);
+                while (!deflater.needsInput()) {
+                    int compressed = deflater.deflate(output);
+                    if (compressed > 0) {
+                        out.write(output, 0, compressed);
+                    }
+                }
+            }
+            deflater.finish();
+            while (!deflater.finished()) {
+                int compressed = deflater.deflate(output);
+                out.write(output, 0, compressed);
+            }
+
+            // gzip 꼬리: CRC32, 원본 크기 (little-endian)
+            writeIntLE(out, (int) crc.getValue());
+            writeIntLE(out, (int) total);
+            out.flush();
+            return total;
+        } finally {
+            releaseBuffer(output);
+            releaseBuffer(input);
+            releaseDeflater(deflater);
+        }
+    }
+
+    // 첫 블록의 바이트 엔트로피, 읽을 수 없으면 압축하지 않도록 최댓값
+    private double sampleEntropy(Path file) {
+        byte[] buffer = borrowBuffer();
+        try (InputStream in = Files.newInputStream(file)) {
+            int n = in.readNBytes(buffer, 0, Math.min(sampleBytes, buffer.length));
+            return entropy(buffer, n);
+        } catch (IOException e) {
+            return Double.MAX_VALUE;
+        } finally {
+            releaseBuffer(buffer);
+        }
+    }
+
+    // 바이트 분포의 섀넌 엔트로피 (바이트당 비트, 0~8). 이미 압축된 데이터는 8에 가깝다
+    static double entropy(byte[] data, int length) {
+        if (length == 0) {
+            return 0;
+        }
+        int[] counts = new int[256];
+        for (int i = 0; i < length; i++) {
+            counts[data[i] & 0xff]++;
+        }
+        double bits = 0;
+        for (int count : counts) {
+            if (count > 0) {
+                double p = (double) count / length;
+                bits -= p * Math.log(p);
+            }
+        }
+        return bits / Math.log(2);
+    }
+
+    private Deflater borrowDeflater() {
+        Deflater deflater = deflaters.poll();
+        // gzip은 헤더/꼬리를 직접 쓰므로 zlib 헤더 없는(nowrap) deflate
+        return deflater != null ? deflater : new Deflater(level, true);
+    }
+
+    private void releaseDeflater(Deflater deflater) {
+        deflater.reset();
+        if (!deflaters.offer(deflater)) {
+            deflater.end();
+        }
+    }
+
+    private byte[] borrowBuffer() {
+        byte[] buffer = buffers.poll();
+        return buffer != null ? buffer : new byte[BUFFER_SIZE];
+    }
+
+    private void releaseBuffer(byte[] buffer) {
+        buffers.offer(buffer);
+    }
+
+    private static void writeIntLE(OutputStream out, int value) throws IOException {
+        out.write(value);
+        out.write(value >>> 8);
+        out.write(value >>> 16);
+        out.write(value >>> 24);
+    }
+
+    private static String extension(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? "" : name.substring(dot + 1).toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<String> parseExtensions(String list) {
+        Set<String> extensions = new HashSet<>();
+        for (String extension : list.split(",")) {
+            String trimmed = extension.trim().toLowerCase(Locale.ROOT);
+            if (!trimmed.isEmpty()) {
+                extensions.add(trimmed.startsWith(".") ? trimmed.substring(1) : trimmed);
+            }
+        }
+        return extensions;
+    }
+}
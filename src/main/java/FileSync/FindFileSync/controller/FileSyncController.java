@@ -1,115 +1,269 @@
 package FileSync.FindFileSync.controller;
 
+import FileSync.FindFileSync.dto.ManifestEntry;
+import FileSync.FindFileSync.filter.SyncFilter;
+import FileSync.FindFileSync.index.SyncStateIndex;
+import FileSync.FindFileSync.journal.JournalOperation;
+import FileSync.FindFileSync.journal.OperationDispatcher;
+import FileSync.FindFileSync.journal.OperationJournal;
+import FileSync.FindFileSync.journal.OperationType;
+import FileSync.FindFileSync.metrics.SyncMetrics;
+import FileSync.FindFileSync.scan.ParallelTreeScanner;
+import FileSync.FindFileSync.scan.ScanCheckpoint;
+import FileSync.FindFileSync.scheduler.UploadPriority;
+import FileSync.FindFileSync.scheduler.UploadScheduler;
+import FileSync.FindFileSync.service.DedupUploader;
+import FileSync.FindFileSync.service.ManifestReconciler;
 import FileSync.FindFileSync.service.RemoteFileService;
-import jakarta.annotation.PostConstruct;
+import FileSync.FindFileSync.service.SmallFileBatcher;
+import FileSync.FindFileSync.source.SourceRoot;
+import FileSync.FindFileSync.source.SourceRoots;
+import FileSync.FindFileSync.target.SyncTarget;
+import FileSync.FindFileSync.target.SyncTargets;
+import FileSync.FindFileSync.watch.ChangeType;
+import FileSync.FindFileSync.watch.EventCoalescer;
+import FileSync.FindFileSync.watch.FileChange;
+import FileSync.FindFileSync.watch.MoveDetector;
+import FileSync.FindFileSync.watch.SubtreeRescanner;
+import FileSync.FindFileSync.watch.WatchRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
 import org.springframework.stereotype.Service;
 
-import java.io.File;
 import java.io.IOException;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.List;
+import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
-
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * 동기화 엔진. 최초 동기화(탐색과 업로드) 후 파일 변화를 감시해서 서버에 반영한다.
+ * <p>
+ * 애플리케이션 컨텍스트가 모두 올라온 뒤 {@link SmartLifecycle}로 시작하고, 모든 작업은 백그라운드 스레드에서
+ * 하므로 기동 시간은 트리 크기나 서버 연결과 관계없다. 진행 상태는 {@link #state()}와
+ * {@link InitialSyncHealthIndicator}(/actuator/health)로 알 수 있다. 탐색이 중간에 멈추면
+ * {@link ScanCheckpoint}에 남긴 지점부터 이어 간다.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
-public class FileSyncController {
+public class FileSyncController implements SmartLifecycle {
+
+    public enum State {
+        // 시작 전 또는 저널 재전송 중
+        STARTING,
+        // 최초 동기화 탐색/업로드 중
+        SCANNING,
+        // 최초 동기화 완료, 변경 감시 중
+        WATCHING,
+        FAILED,
+        STOPPED
+    }
 
-    @Value("${config.sourceDir}")
-    private String sourceDir;
+    @Autowired
+    private SourceRoots sourceRoots;
 
-    @Value("#{'${config.allowedExtensions}'.split(',')}")
-    private List<String> allowedExtensions;
+    @Autowired
+    private SyncTargets syncTargets;
 
     @Autowired
     private RemoteFileService remoteFileService;
 
-    @PostConstruct
-    public void searchfileApplication() throws IOException {
+    @Autowired
+    private DedupUploader dedupUploader;
+
+    @Autowired
+    private SyncStateIndex syncStateIndex;
+
+    @Autowired
+    private ManifestReconciler manifestReconciler;
+
+    @Autowired
+    private UploadScheduler uploadScheduler;
+
+    @Autowired
+    private EventCoalescer eventCoalescer;
+
+    @Autowired
+    private MoveDetector moveDetector;
+
+    @Autowired
+    private ParallelTreeScanner treeScanner;
+
+    @Autowired
+    private SyncFilter syncFilter;
+
+    @Autowired
+    private OperationDispatcher operationDispatcher;
+
+    @Autowired
+    private WatchRegistry watchRegistry;
+
+    @Autowired
+    private SubtreeRescanner subtreeRescanner;
+
+    @Autowired
+    private SmallFileBatcher smallFileBatcher;
+
+    @Autowired
+    private SyncMetrics syncMetrics;
+
+    @Autowired
+    private ScanCheckpoint scanCheckpoint;
+
+    @Autowired
+    private OperationJournal operationJournal;
+
+    private volatile State state = State.STARTING;
+    private volatile boolean running;
+    private Thread syncThread;
+    private Thread watchThread;
+
+    // 내장 웹 서버의 단계(Integer.MAX_VALUE - 1)보다 뒤이므로 포트가 열린 뒤에 시작하고, 종료는 웹 서버보다 먼저 한다.
+    // stub 프로파일은 같은 애플리케이션 안의 스텁 서버로 최초 동기화를 보내므로 이 순서에 기댄다
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        syncThread = new Thread(() -> {
+            try {
+                searchfileApplication();
+            } catch (Exception e) {
+                state = State.FAILED;
+                log.error("동기화 엔진 시작 실패", e);
+            }
+        }, "initial-sync");
+        syncThread.setDaemon(true);
+        syncThread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        state = State.STOPPED;
+        if (syncThread != null) {
+            syncThread.interrupt();
+        }
+        if (watchThread != null) {
+            watchThread.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    public State state() {
+        return state;
+    }
+
+    private void searchfileApplication() throws IOException {
         try {
             log.info("최초 동기화를 수행 중...");
-            Path sourcePath = Paths.get(sourceDir);
 
-            // 최초 동기화: 기존 파일들을 확인하여 업로드
-            Files.walkFileTree(sourcePath, new SimpleFileVisitor<>() {
-                @Override
-                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
-                    if (Files.isRegularFile(file) && isAllowedExtension(file)) {
-                        String fileName = file.getFileName().toString();
-                        CompletableFuture.runAsync(() -> uploadIfNotExists(file, file.toFile().getPath()));
-                        log.info(file.toFile().getPath());
-                        log.info(fileName);
-                    }
-                    return FileVisitResult.CONTINUE;
-                }
-            });
+            // 서버 작업은 저널에 기록한 뒤 실행하고, 이전 실행에서 확인되지 않은 작업부터 다시 보낸다
+            operationDispatcher.setHandler(this::execute);
+            operationDispatcher.replay();
 
-            log.info("최초 동기화 완료!");
+            // 병합된 변경만 업로드 스케줄러로 전달
+            eventCoalescer.setListener(this::onFileChange);
+            // 이름 변경/이동은 서버에서 옮기고, 짝이 없는 삭제는 병합 단계로 전달
+            moveDetector.setListener(this::onMoveOrDelete);
 
             // WatchService 설정
-            final WatchService[] watchService = {FileSystems.getDefault().newWatchService()};
-            registerAllDirectories(sourcePath, watchService[0]);
+            watchRegistry.open();
 
-            // 파일 변화 감지
-            Thread thread = new Thread(() -> {
+            // 파일 변화 감지: 탐색 전에 시작해서 탐색하는 동안 생긴 변경도 바로 처리한다
+            // (디렉토리는 탐색이 목록을 읽기 전에 등록하므로 빈틈이 없다)
+            watchThread = new Thread(() -> {
                 try {
                     while (true) {
                         WatchKey key;
                         try {
-                            key = watchService[0].take();
+                            key = watchRegistry.take();
 
                         } catch (InterruptedException e) {
-                            log.error("와치 서비스 에러: ", e);
+                            if (running) {
+                                log.error("와치 서비스 에러: ", e);
+                            }
                             return;
                         }
 
+                        // 이벤트가 잦은 디렉토리는 네이티브 감시를 유지 (hybrid 모드)
+                        watchRegistry.recordActivity((Path) key.watchable());
+
                         for (WatchEvent<?> event : key.pollEvents()) {
                             WatchEvent.Kind<?> kind = event.kind();
+                            syncMetrics.watchEvent(kind.name());
+
+                            // 이벤트가 유실됨: 이 디렉토리만 인덱스와 비교해서 다시 확인 (모아서, 간격을 두고 처리)
+                            if (kind.equals(StandardWatchEventKinds.OVERFLOW)) {
+                                log.warn("감시 이벤트 유실(OVERFLOW), 재확인 예약: {}", key.watchable());
+                                subtreeRescanner.rescanDirectory((Path) key.watchable());
+                                continue;
+                            }
+
                             Path fileName = (Path) event.context();
-                            log.info(key.watchable().toString());
                             Path detectedFilePath = ((Path) key.watchable()).resolve(fileName);
 
-                            log.info("감지됨: {} - {}", kind.name(), detectedFilePath);
+                            log.debug("감지됨: {} - {}", kind.name(), detectedFilePath);
 
-                            // 디렉토리 감지 시, 새 경로로 업데이트
-                            if (kind.equals(StandardWatchEventKinds.ENTRY_CREATE) && Files.isDirectory(detectedFilePath)) {
-                                log.info("새 디렉토리 생성 감지됨: {}", detectedFilePath);
-                                registerAllDirectories(detectedFilePath, watchService[0]);
-                                uploadFilesInDirectory(detectedFilePath);
+                            // 제외 규칙 파일이 바뀌면 규칙을 다시 읽고 그 디렉토리 아래를 다시 확인
+                            if (SyncFilter.isIgnoreFile(detectedFilePath)) {
+                                reloadIgnoreFile(detectedFilePath.getParent());
                                 continue;
                             }
 
-                            // 확장자 체크
-                            if (!isAllowedExtension(fileName)) {
-                                log.info("확장자가 일치하지 않음(무시): {}", fileName);
+                            // 제외 대상(디렉토리는 제외 규칙, 파일은 규칙과 확장자)은 무시
+                            boolean directory = watchRegistry.isWatched(detectedFilePath) || Files.isDirectory(detectedFilePath);
+                            if (directory ? syncFilter.isIgnoredDirectory(detectedFilePath) : !syncFilter.acceptsFile(detectedFilePath)) {
+                                log.debug("제외 대상(무시): {}", detectedFilePath);
+                                continue;
+                            }
+                            if (!directory) {
+                                // 서버가 확인할 때까지의 지연 시간 측정 시작
+                                syncMetrics.changeDetected(relativePath(detectedFilePath));
+                            }
+
+                            // 직전 DELETE와 짝이 맞는 CREATE는 이름 변경/이동으로 처리
+                            if (kind.equals(StandardWatchEventKinds.ENTRY_CREATE) && moveDetector.onCreate(detectedFilePath)) {
+                                if (Files.isDirectory(detectedFilePath)) {
+                                    // 옮겨진 디렉토리는 새 경로로 다시 감시 (서버에는 이미 옮겨짐)
+                                    watchRegistry.registerTree(detectedFilePath, dir -> { });
+                                }
                                 continue;
                             }
 
+                            // 디렉토리 감지 시, 새 경로로 업데이트
+                            if (kind.equals(StandardWatchEventKinds.ENTRY_CREATE) && Files.isDirectory(detectedFilePath)) {
+                                log.debug("새 디렉토리 생성 감지됨: {}", detectedFilePath);
+                                watchRegistry.registerTree(detectedFilePath, this::uploadDir);
+                                uploadFilesInDirectory(detectedFilePath);
+                                continue;
+                            }
 
-                            // 파일 생성 시
+                            // 파일 생성/수정 시: 같은 경로의 이벤트를 병합한 뒤 업로드
                             if ((kind.equals(StandardWatchEventKinds.ENTRY_CREATE)) || (kind.equals(StandardWatchEventKinds.ENTRY_MODIFY))) {
-                                try {
-                                    if (Files.isDirectory(detectedFilePath)) {
-                                        // 디렉토리명 변경 시 새로운 경로로 업로드 처리
-                                        remoteFileService.uploadDir(detectedFilePath);
-                                    }
-                                    log.info("업로드 처리: {}", detectedFilePath);
-
-                                    // 업로드 실행
-                                    remoteFileService.uploadFile(detectedFilePath, fileName.toString());
-                                } catch (Exception e) {
-                                    log.error("파일 업로드 요청 중 오류 발생: {}", detectedFilePath, e);
+                                if (Files.isDirectory(detectedFilePath)) {
+                                    // 디렉토리명 변경 시 새로운 경로로 업로드 처리
+                                    operationDispatcher.submit(OperationType.UPLOAD_DIR, relativePath(detectedFilePath), UploadPriority.LIVE);
+                                } else {
+                                    eventCoalescer.onEvent(detectedFilePath, ChangeType.UPSERT);
                                 }
                             }
 
                             // 폴더 이름 변경 감지
                             if (kind.equals(StandardWatchEventKinds.ENTRY_MODIFY) && Files.isDirectory(detectedFilePath)) {
-                                log.info("디렉토리 변경 감지됨: {}", detectedFilePath);
+                                log.debug("디렉토리 변경 감지됨: {}", detectedFilePath);
 
                                 // 디렉토리명을 변경한 경우 새 경로로 업데이트
                                 Path newDirectoryPath = detectedFilePath.getParent();
@@ -121,38 +275,33 @@ public class FileSyncController {
 
                             // 파일 삭제 시 삭제 처리
                             else if (kind.equals(StandardWatchEventKinds.ENTRY_DELETE)) {
-                                try {
-                                    remoteFileService.deleteFile(detectedFilePath.toString());
-                                } catch (Exception e) {
-                                    log.error("파일 삭제 요청 중 오류 발생: {}", fileName, e);
-                                }
+                                // 이어지는 CREATE가 있으면 이동으로 합쳐지도록 잠시 보류
+                                moveDetector.onDelete(detectedFilePath);
                             }
                         }
 
                         try {
-                            if (!key.reset()) {
-                                log.warn("WatchKey could not be reset. 새 WatchKey 생성...");
-
-                                // 기존 WatchService 닫기
-                                watchService[0].close();
-
-                                // 새로운 WatchService 생성
-                                watchService[0] = FileSystems.getDefault().newWatchService();
-
-                                // 기존 디렉토리들을 다시 등록
-                                registerAllDirectories(sourcePath, watchService[0]);
-
-                                // 루프를 멈추지 않고 계속 실행하도록 key 등록
-                                continue;
+                            if (!key.reset() && watchRegistry.isCurrent(key)) {
+                                // 감시가 끊긴 디렉토리 (이동/삭제로 직접 해제한 키는 제외)
+                                Path dir = (Path) key.watchable();
+                                if (Files.isDirectory(dir)) {
+                                    // 아직 있으면 그 아래만 감시를 다시 등록하고 바뀐 내용을 확인
+                                    log.warn("WatchKey 해제됨, 하위 트리 재확인 예약: {}", dir);
+                                    subtreeRescanner.rescanTree(dir);
+                                } else if (dir.getParent() != null) {
+                                    // 삭제됨: 상위 디렉토리의 DELETE 이벤트가 처리하고, 그 이벤트도 유실된 경우를 위해 상위를 재확인
+                                    subtreeRescanner.rescanDirectory(dir.getParent());
+                                }
                             }
                         } catch (ClosedWatchServiceException e) {
                             log.error("WatchService가 닫혀서 재시작합니다.", e);
 
-                            // WatchService가 강제 종료되었으므로 다시 시작
-                            watchService[0] = FileSystems.getDefault().newWatchService();
-                            registerAllDirectories(sourcePath, watchService[0]);
-
-                            continue; // 새 WatchService로 계속 감시
+                            // WatchService가 강제 종료되었으므로 다시 만들고, 닫힌 동안의 변경은 인덱스와 비교해서 확인
+                            watchRegistry.open();
+                            for (SourceRoot root : sourceRoots.all()) {
+                                watchRegistry.registerTree(root.path(), dir -> { });
+                                subtreeRescanner.rescanTree(root.path());
+                            }
                         }
 
                     }
@@ -161,8 +310,102 @@ public class FileSyncController {
                 }
             });
 
-            thread.setDaemon(true);
-            thread.start();
+            watchThread.setName("file-watch");
+            watchThread.setDaemon(true);
+            watchThread.start();
+
+            state = State.SCANNING;
+            syncMetrics.scanStarted();
+            // 탐색 중 주기적으로 진행 상황을 남긴다. 남기기 전에 그때까지 읽은 파일의 비교와 기록을 끝낸다
+            scanCheckpoint.begin(() -> {
+                manifestReconciler.flush();
+                syncStateIndex.flush();
+                operationJournal.sync();
+            });
+            // 체크포인트로 목록을 건너뛴 디렉토리 (탐색이 끝나면 파일을 인덱스와 다시 비교)
+            Queue<Path> resumed = new ConcurrentLinkedQueue<>();
+            // 최초 동기화: 한 번의 병렬 탐색으로 감시 등록과 업로드 대상 수집을 함께 수행
+            // (디렉토리마다 감시를 먼저 등록한 뒤 목록을 읽으므로 탐색 중 생긴 파일도 놓치지 않음)
+            ParallelTreeScanner.Visitor visitor = new ParallelTreeScanner.Visitor() {
+                @Override
+                public boolean directory(Path dir, BasicFileAttributes attrs) throws IOException {
+                    // 제외된 디렉토리는 하위로 들어가지 않고 감시도 등록하지 않음
+                    if (syncFilter.isIgnoredDirectory(dir)) {
+                        return false;
+                    }
+                    syncMetrics.scanDirectory();
+                    syncFilter.loadIgnoreFile(dir);
+                    watchRegistry.register(dir, attrs);
+                    // 디렉토리 생성 요청은 탐색을 막지 않도록 스케줄러에서 실행 (이어 하는 디렉토리는 이전 실행에서 이미 저널에 기록됨)
+                    if (resume(dir, attrs) == null) {
+                        operationDispatcher.submit(OperationType.UPLOAD_DIR, relativePath(dir));
+                    } else {
+                        resumed.add(dir);
+                    }
+                    return true;
+                }
+
+                @Override
+                public List<Path> resume(Path dir, BasicFileAttributes attrs) {
+                    return scanCheckpoint.resumable(dir, attrs.lastModifiedTime().toMillis());
+                }
+
+                @Override
+                public void listed(Path dir, BasicFileAttributes attrs, List<Path> subdirs) {
+                    scanCheckpoint.listed(dir, attrs.lastModifiedTime().toMillis(), subdirs);
+                }
+
+                @Override
+                public void file(Path file, BasicFileAttributes attrs) {
+                    if (syncFilter.acceptsFile(file)) {
+                        String relativePath = relativePath(file);
+                        long mtime = attrs.lastModifiedTime().toMillis();
+                        // 마지막으로 서버가 확인한 상태와 같으면 네트워크 요청 없이 건너뛴다
+                        if (syncStateIndex.isUnchanged(relativePath, attrs.size(), mtime)) {
+                            syncMetrics.scanFile(false);
+                            return;
+                        }
+                        syncMetrics.scanFile(true);
+                        // 변경된 파일은 매니페스트 묶음으로 서버와 비교
+                        manifestReconciler.add(new ManifestEntry(relativePath, attrs.size(), mtime, null));
+                        log.debug("변경된 파일: {}", file);
+                    }
+                }
+            };
+            for (SourceRoot root : sourceRoots.all()) {
+                treeScanner.scan(root.path(), visitor);
+            }
+            manifestReconciler.flush();
+            syncStateIndex.flush();
+            operationJournal.sync();
+            // 탐색 결과가 모두 저널과 인덱스에 남았으므로 다음 기동은 처음부터 다시 확인한다
+            scanCheckpoint.finish();
+            // 중단된 동안 내용만 바뀐 파일은 디렉토리 수정 시각이 그대로라 건너뛰었으므로 감시를 켠 뒤 다시 비교한다
+            // (인덱스와 같은 파일은 네트워크 요청 없음, 그 사이 삭제된 파일도 여기서 처리)
+            if (!resumed.isEmpty()) {
+                log.info("이어 한 디렉토리 {}개의 파일을 인덱스와 다시 비교합니다", resumed.size());
+                for (Path dir : resumed) {
+                    subtreeRescanner.rescanDirectory(dir);
+                }
+            }
+
+            // 제출된 업로드가 모두 끝날 때까지 대기 (그동안 생긴 변경은 감시 스레드가 처리)
+            try {
+                uploadScheduler.awaitIdle();
+                // 묶음에 남은 작은 파일도 보내고 기다린다
+                while (smallFileBatcher.flush()) {
+                    uploadScheduler.awaitIdle();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("최초 동기화 대기 중 인터럽트 발생");
+            }
+
+            syncMetrics.scanFinished();
+            if (running) {
+                state = State.WATCHING;
+                log.info("최초 동기화 완료!");
+            }
 
         } catch (IOException e) {
             log.error("Failed to initialize WatchService", e);
@@ -170,88 +413,212 @@ public class FileSyncController {
         }
     }
 
-//    private void registerAllDirectories(Path start, WatchService watchService) throws IOException {
-//        Files.walkFileTree(start, new SimpleFileVisitor<>() {
-//            @Override
-//            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
-//                dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
-//                        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
-//                log.info("디렉토리 감시 등록됨: {}", dir);
-//
-//                return FileVisitResult.CONTINUE;
-//            }
-//        });
-//    }
-
-    private Path registerAllDirectories(Path start, WatchService watchService) throws IOException {
-        Files.walkFileTree(start, new SimpleFileVisitor<Path>() {
-            @Override
-            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
-                dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
-                        StandardWatchEventKinds.ENTRY_DELETE,
-                        StandardWatchEventKinds.ENTRY_MODIFY);
-                        remoteFileService.uploadDir(dir);
-                return FileVisitResult.CONTINUE;
+    // 감시 중 생긴 디렉토리는 안의 파일보다 먼저 만들어지도록 LIVE로 제출
+    private void uploadDir(Path dir) {
+        operationDispatcher.submit(OperationType.UPLOAD_DIR, relativePath(dir), UploadPriority.LIVE);
+    }
+
+    private void onMoveOrDelete(FileChange change) {
+        Path path = change.path();
+        if (change.type() == ChangeType.DELETE) {
+            if (watchRegistry.isWatched(path)) {
+                // 감시 중이던 디렉토리가 삭제됨
+                watchRegistry.cancelTree(path);
+                operationDispatcher.submit(OperationType.DELETE_DIR, relativePath(path), UploadPriority.LIVE);
+                return;
             }
-        });
-        return start; // 등록된 디렉토리의 Path 반환
+            eventCoalescer.onEvent(path, ChangeType.DELETE);
+            return;
+        }
+
+        Path source = change.source();
+        boolean directory = watchRegistry.isWatched(source);
+        if (directory) {
+            // 같은 inode가 새 경로로 다시 등록될 수 있도록 이전 키를 먼저 해제
+            watchRegistry.cancelTree(source);
+        }
+        uploadScheduler.submit(UploadPriority.LIVE, () -> moveAndRecord(source, path, directory));
     }
 
+    // 서버에서 옮기고 인덱스도 새 경로로 갱신. 실패하면 삭제 + 업로드로 대신한다
+    private boolean moveAndRecord(Path source, Path target, boolean directory) {
+        if (!directory && !syncFilter.acceptsFile(target)) {
+            // 제외 대상으로 이름이 바뀐 파일은 삭제로 처리
+            eventCoalescer.onEvent(source, ChangeType.DELETE);
+            return true;
+        }
+        if (moveOnServers(source, target, directory)) {
+            syncStateIndex.move(relativePath(source), relativePath(target));
+            syncMetrics.changeAcknowledged(relativePath(source));
+            syncMetrics.changeAcknowledged(relativePath(target));
+            return true;
+        }
 
+        log.info("서버 이동 실패, 삭제 후 업로드로 처리: {} -> {}", source, target);
+        eventCoalescer.onEvent(source, ChangeType.DELETE);
+        if (directory) {
+            // 업로드 스레드 안이므로 대기열을 거치지 않고 바로 실행
+            operationDispatcher.runNow(OperationType.UPLOAD_DIR, relativePath(target));
+            uploadFilesInDirectory(target);
+        } else {
+            eventCoalescer.onEvent(target, ChangeType.UPSERT);
+        }
+        return false;
+    }
 
-    private void uploadIfNotExists(Path entry, String path) {
-        try {
-            if (remoteFileService.fileExistsOnServer(path)) {
-                log.info("파일이 이미 서버에 존재함, 업로드 생략: {}", path);
-                return;
+    // 옮긴 뒤에도 같은 서버에 있어야 하므로, 경로에 따라 서버가 달라지면 서버에서 옮기지 않는다
+    private boolean moveOnServers(Path source, Path target, boolean directory) {
+        List<SyncTarget> targets;
+        if (directory) {
+            // 하위 파일의 서버가 경로마다 다르므로 모든 서버에 모든 파일이 있을 때만 옮길 수 있다
+            if (!syncTargets.isFullyReplicated()) {
+                return false;
+            }
+            targets = syncTargets.all();
+        } else {
+            targets = syncTargets.targetsFor(relativePath(source));
+            if (!targets.equals(syncTargets.targetsFor(relativePath(target)))) {
+                return false;
+            }
+        }
+        // 업로드 스레드 안이므로 서버별 대기열을 거치지 않고 차례로 옮긴다
+        for (SyncTarget server : targets) {
+            if (!remoteFileService.moveFile(server, source.toString(), target.toString())) {
+                return false;
             }
-            remoteFileService.uploadFile(entry, path);
-            //log.info("업로드 성공: {}", path);
-        } catch (Exception e) {
-            log.error("병렬 업로드 중 오류 발생: {}", path, e);
         }
+        return true;
     }
 
-    // 확장자 필터링 메서드
-    private boolean isAllowedExtension(Path file) {
-        File f = file.toFile();
+    // 병합 단계를 통과한 최종 변경을 저널에 기록하고 업로드 스케줄러에 제출 (초기 스캔보다 먼저 실행)
+    private void onFileChange(FileChange change) {
+        String relativePath = relativePath(change.path());
+        if (change.type() == ChangeType.DELETE) {
+            operationDispatcher.submit(OperationType.DELETE_FILE, relativePath, UploadPriority.LIVE);
+        } else {
+            operationDispatcher.submit(OperationType.UPLOAD_FILE, relativePath,
+                    uploadScheduler.priorityFor(true, sizeOf(change.path())));
+        }
+    }
 
-        // 파일이 존재하지 않지만 이름을 기준으로 디렉토리로 간주할 수 있음
-        //if (!f.exists() || f.isDirectory()) {
-        if (Files.isDirectory(file)) {
-            log.info("디렉토리 감지: {}", file);
-            remoteFileService.deleteDir(file.toString());
-            return true;
+    // 우선순위를 정하는 데만 쓰므로 읽을 수 없으면 작은 파일로 본다
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    // 저널 작업 실행, 서버가 확인하면 true로 완료 (false면 백오프 후 재시도)
+    private CompletableFuture<Boolean> execute(JournalOperation op) throws Exception {
+        Path path = sourceRoots.resolve(op.path());
+        // 서버가 여러 대면 작업을 서버별 대기열로 나눠 보낸다
+        UploadPriority priority = operationDispatcher.priorityOf(op.path());
+        return switch (op.type()) {
+            case UPLOAD_FILE -> uploadAndRecord(path, priority);
+            case DELETE_FILE -> syncTargets.fanOut(syncTargets.targetsFor(op.path()), priority,
+                            target -> CompletableFuture.completedFuture(remoteFileService.deleteFile(target, path.toString())))
+                    .thenApply(ok -> record(ok, () -> syncStateIndex.markDeleted(op.path())));
+            // 그사이 지워진 디렉토리는 만들 필요 없음. 디렉토리는 모든 서버에 만든다
+            case UPLOAD_DIR -> !Files.isDirectory(path)
+                    ? CompletableFuture.completedFuture(true)
+                    : syncTargets.fanOut(syncTargets.all(), priority,
+                            target -> CompletableFuture.completedFuture(remoteFileService.uploadDir(target, path)));
+            case DELETE_DIR -> syncTargets.fanOut(syncTargets.all(), priority,
+                            target -> CompletableFuture.completedFuture(remoteFileService.deleteDir(target, path.toString())))
+                    .thenApply(ok -> record(ok, () -> syncStateIndex.markDeletedTree(op.path())));
+            default -> throw new IllegalStateException("알 수 없는 작업: " + op);
+        };
+    }
+
+    // 업로드 후 모든 서버가 확인하면 업로드 직전의 크기/수정 시각을 인덱스에 기록. 작은 파일은 묶음 전송이 끝날 때 완료
+    private CompletableFuture<Boolean> uploadAndRecord(Path file, UploadPriority priority) throws Exception {
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            // 그사이 삭제됨, 삭제 이벤트가 따로 처리한다
+            return CompletableFuture.completedFuture(true);
+        } catch (IOException e) {
+            log.error("파일 업로드 요청 중 오류 발생: {}", file, e);
+            return CompletableFuture.completedFuture(false);
         }
+        String relativePath = relativePath(file);
+        long mtime = attrs.lastModifiedTime().toMillis();
+        if (syncStateIndex.isUnchanged(relativePath, attrs.size(), mtime)) {
+            // 이미 같은 상태로 업로드됨
+            return CompletableFuture.completedFuture(true);
+        }
+        log.debug("업로드 처리: {}", file);
+        return syncTargets.fanOut(syncTargets.targetsFor(relativePath), priority, target -> uploadTo(target, file, relativePath, attrs))
+                .thenApply(ok -> record(ok, () -> syncStateIndex.markUploaded(relativePath, attrs.size(), mtime,
+                        dedupUploader.knownHash(relativePath, attrs.size(), mtime))));
+    }
 
-        String fileName = file.getFileName().toString();
-        int lastDotIndex = fileName.lastIndexOf(".");
+    private CompletableFuture<Boolean> uploadTo(SyncTarget target, Path file, String relativePath, BasicFileAttributes attrs) {
+        try {
+            CompletableFuture<Boolean> batched = smallFileBatcher.add(target, file, relativePath, attrs);
+            if (batched != null) {
+                return batched;
+            }
+            return CompletableFuture.completedFuture(remoteFileService.uploadFile(target, file, file.getFileName().toString()));
+        } catch (NoSuchFileException e) {
+            return CompletableFuture.completedFuture(true);
+        } catch (IOException e) {
+            log.error("파일 업로드 요청 중 오류 발생: {} ({})", file, target, e);
+            return CompletableFuture.completedFuture(false);
+        }
+    }
 
-        // 확장자가 없는 경우 (디렉토리일 가능성이 높음)
-        if (lastDotIndex == -1) {
-            log.info("확장자가 없는 파일(무시): {}", fileName);
-            return true; // 디렉토리로 간주
+    private static boolean record(boolean ok, Runnable update) {
+        if (ok) {
+            update.run();
         }
+        return ok;
+    }
 
-        String fileExtension = fileName.substring(lastDotIndex + 1).toLowerCase().trim();
-        log.info("파일명: {}, 추출된 확장자: {}", fileName, fileExtension);
+    // .syncignore 변경: 새로 제외된 디렉토리는 감시를 해제하고, 다시 포함된 디렉토리는 감시 등록 후 파일을 확인
+    private void reloadIgnoreFile(Path dir) throws IOException {
+        syncFilter.loadIgnoreFile(dir);
+        for (Path watched : watchRegistry.watchedDirectories(dir, true)) {
+            if (!watched.equals(dir) && syncFilter.isIgnoredDirectory(watched)) {
+                watchRegistry.cancelTree(watched);
+            }
+        }
+        if (Files.isDirectory(dir)) {
+            watchRegistry.registerTree(dir, this::uploadDir);
+            uploadFilesInDirectory(dir);
+        }
+    }
 
-        return allowedExtensions.contains(fileExtension);
+    // 동기화 루트 기준 상대 경로 (서버 요청과 같은 형식)
+    private String relativePath(Path file) {
+        return sourceRoots.relativePath(file);
     }
 
     private void uploadFilesInDirectory(Path directory) {
         try {
-            Files.walk(directory) // 디렉토리 내 모든 파일과 서브디렉토리 순회
-                    .filter(Files::isRegularFile) // 파일만 필터링
-                    .filter(this::isAllowedExtension) // 확장자가 허용된 파일만 처리
-                    .forEach(file -> {
-                        try {
-                            log.info("업로드 처리: {}", file);
-                            remoteFileService.uploadFile(file, file.getFileName().toString()); // 파일 업로드
-                        } catch (Exception e) {
-                            log.error("파일 업로드 중 오류 발생: {}", file, e);
-                        }
-                    });
+            // 디렉토리 내 모든 파일과 서브디렉토리 순회 (제외된 디렉토리는 건너뜀)
+            Files.walkFileTree(directory, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    return syncFilter.isIgnoredDirectory(dir) ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (attrs.isRegularFile() && syncFilter.acceptsFile(file)) {
+                        eventCoalescer.onEvent(file, ChangeType.UPSERT); // 병합 단계를 거쳐 업로드
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
         } catch (IOException e) {
             log.error("디렉토리 내 파일 업로드 중 오류 발생: {}", directory, e);
         }
@@ -0,0 +1,43 @@
+package FileSync.FindFileSync.controller;
+
+import FileSync.FindFileSync.journal.OperationDispatcher;
+import FileSync.FindFileSync.scheduler.UploadScheduler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.stereotype.Component;
+
+/**
+ * 동기화 엔진의 준비 상태 (/actuator/health의 initialSync).
+ * <p>
+ * 최초 동기화가 끝나고 감시 중이면 UP, 시작 중이거나 탐색 중이면 OUT_OF_SERVICE, 시작에 실패했으면 DOWN.
+ * 배포 도구는 OUT_OF_SERVICE 동안 다음 단계를 기다리면 된다.
+ */
+@Component
+public class InitialSyncHealthIndicator implements HealthIndicator {
+
+    @Autowired
+    private FileSyncController fileSyncController;
+
+    @Autowired
+    private OperationDispatcher operationDispatcher;
+
+    @Autowired
+    private UploadScheduler uploadScheduler;
+
+    @Override
+    public Health health() {
+        FileSyncController.State state = fileSyncController.state();
+        Health.Builder builder = switch (state) {
+            case WATCHING -> Health.up();
+            case STARTING, SCANNING -> Health.status(Status.OUT_OF_SERVICE);
+            case FAILED, STOPPED -> Health.down();
+        };
+        return builder
+                .withDetail("state", state)
+                .withDetail("pendingOperations", operationDispatcher.pendingCount())
+                .withDetail("uploadQueue", uploadScheduler.pending())
+                .build();
+    }
+}
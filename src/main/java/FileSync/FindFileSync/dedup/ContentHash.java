@@ -0,0 +1,68 @@
+package FileSync.FindFileSync.dedup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.zip.CRC32;
+import java.util.zip.CRC32C;
+
+/**
+ * 파일 내용의 해시.
+ * <p>
+ * 빠른 해시는 크기 + CRC32 + CRC32C(둘 다 CPU 명령으로 가속됨)를 묶은 값이고,
+ * 강한 해시(SHA-256)는 설정에 따라 함께 계산한다. 서버는 강한 해시가 있으면 그것으로 내용을 찾는다.
+ */
+public record ContentHash(long size, long crc32, long crc32c, String sha256) {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    // 크기-CRC32-CRC32C
+    public String fastKey() {
+        return String.format("%d-%08x%08x", size, crc32, crc32c);
+    }
+
+    public boolean hasStrong() {
+        return sha256 != null;
+    }
+
+    /**
+     * 파일을 한 번 읽으면서 빠른 해시(와 strong이면 SHA-256)를 계산한다.
+     */
+    public static ContentHash compute(Path file, boolean strong) throws IOException {
+        CRC32 crc32 = new CRC32();
+        CRC32C crc32c = new CRC32C();
+        MessageDigest sha256 = strong ? newSha256() : null;
+        long size = 0;
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                size += buffer.remaining();
+                crc32.update(buffer.duplicate());
+                if (sha256 != null) {
+                    crc32c.update(buffer.duplicate());
+                    sha256.update(buffer);
+                } else {
+                    crc32c.update(buffer);
+                }
+                buffer.clear();
+            }
+        }
+        return new ContentHash(size, crc32.getValue(), crc32c.getValue(),
+                sha256 != null ? HexFormat.of().formatHex(sha256.digest()) : null);
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package FileSync.FindFileSync.dedup;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 파일 해시를 전용 스레드 풀에서 병렬로 계산한다.
+ * <p>
+ * 업로드 스레드(네트워크 대기)와 분리해서, 해시 계산은 CPU 수만큼만 동시에 돈다.
+ */
+@Slf4j
+@Component
+public class ContentHasher {
+
+    // 0이면 CPU 코어 수
+    @Value("${config.dedup.hashThreads:0}")
+    private int hashThreads;
+
+    @Value("${config.dedup.strongHash:true}")
+    private boolean strongHash;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        int threads = hashThreads > 0 ? hashThreads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "content-hash-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        log.info("내용 해시 스레드: {}, 강한 해시: {}", threads, strongHash);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public CompletableFuture<ContentHash> hash(Path file) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return ContentHash.compute(file, strongHash);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+    }
+}
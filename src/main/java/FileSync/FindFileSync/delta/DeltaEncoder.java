@@ -0,0 +1,190 @@
+package FileSync.FindFileSync.delta;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 기준 서명과 새 파일 내용을 비교해서 델타 스트림({@link DeltaFormat})을 만든다.
+ * <p>
+ * 롤링 체크섬으로 임의 위치의 블록 일치를 찾고, 약한 체크섬이 같을 때만 MD5로 확인한다.
+ * 새 파일은 한 번만 순서대로 읽으며, 그 과정에서 다음 델타의 기준이 될 새 서명도 같이 만든다.
+ */
+public final class DeltaEncoder {
+
+    // 이 길이만큼 쌓인 리터럴은 바로 내보내서 버퍼 크기를 제한한다
+    private static final int MAX_LITERAL = 1024 * 1024;
+
+    private final FileSignature base;
+    private final int blockSize;
+    private final Map<Integer, int[]> blocksByWeak = new HashMap<>();
+
+    private long literalBytes;
+    private long copiedBytes;
+
+    public DeltaEncoder(FileSignature base) {
+        this.base = base;
+        this.blockSize = base.blockSize();
+        // 마지막 짧은 블록은 창 크기가 달라 롤링 비교에서 제외
+        for (int i = 0; i < base.blockCount(); i++) {
+            if (base.blockLength(i) != blockSize) {
+                continue;
+            }
+            blocksByWeak.merge(base.weak(i), new int[]{i}, DeltaEncoder::concat);
+        }
+    }
+
+    public long literalBytes() {
+        return literalBytes;
+    }
+
+    public long copiedBytes() {
+        return copiedBytes;
+    }
+
+    /**
+     * @param in  새 파일 내용
+     * @param out 델타 스트림 출력
+     * @return 새 파일 내용의 서명 (델타 적용 후 서버 파일의 서명)
+     */
+    public FileSignature encode(InputStream in, OutputStream out) throws IOException {
+        DataOutputStream delta = new DataOutputStream(out);
+        delta.writeInt(DeltaFormat.MAGIC);
+        delta.writeInt(DeltaFormat.VERSION);
+        delta.writeInt(blockSize);
+        delta.writeLong(base.fileSize());
+        delta.write(base.sha256());
+
+        FileSignature.Builder target = new FileSignature.Builder(blockSize);
+        MessageDigest strong = FileSignature.digest("MD5");
+        RollingChecksum rolling = new RollingChecksum(blockSize);
+
+        byte[] buf = new byte[MAX_LITERAL + 2 * blockSize + 64 * 1024];
+        int len = 0;      // buf의 유효 바이트 수
+        int pos = 0;      // 현재 창 시작
+        int literal = 0;  // 아직 내보내지 않은 리터럴 시작
+        boolean eof = false;
+        boolean rollingValid = false;
+
+        int copyStart = -1;
+        int copyCount = 0;
+
+        while (true) {
+            // 창 + 다음 한 바이트까지 확보
+            if (len - pos <= blockSize && !eof) {
+                if (len == buf.length) {
+                    // 앞쪽(이미 내보낸 부분)을 버리고 당긴다
+                    System.arraycopy(buf, literal, buf, 0, len - literal);
+                    len -= literal;
+                    pos -= literal;
+                    literal = 0;
+                }
+                int n = in.read(buf, len, buf.length - len);
+                if (n < 0) {
+                    eof = true;
+                } else {
+                    target.update(buf, len, n);
+                    len += n;
+                }
+                continue;
+            }
+
+            if (len - pos < blockSize) {
+                break;
+            }
+
+            if (!rollingValid) {
+                rolling.reset(buf, pos);
+                rollingValid = true;
+            }
+
+            int matched = -1;
+            int[] candidates = blocksByWeak.get(rolling.value());
+            if (candidates != null) {
+                strong.update(buf, pos, blockSize);
+                byte[] digest = strong.digest();
+                for (int candidate : candidates) {
+                    if (base.strongEquals(candidate, digest)) {
+                        matched = candidate;
+                        break;
+                    }
+                }
+            }
+
+            if (matched >= 0) {
+                if (pos > literal) {
+                    writeCopy(delta, copyStart, copyCount);
+                    copyCount = 0;
+                    writeLiteral(delta, buf, literal, pos - literal);
+                }
+                // 연속된 블록은 하나의 COPY로 합친다
+                if (copyCount > 0 && copyStart + copyCount == matched) {
+                    copyCount++;
+                } else {
+                    writeCopy(delta, copyStart, copyCount);
+                    copyStart = matched;
+                    copyCount = 1;
+                }
+                copiedBytes += blockSize;
+                pos += blockSize;
+                literal = pos;
+                rollingValid = false;
+                continue;
+            }
+
+            if (pos + blockSize < len) {
+                rolling.roll(buf[pos], buf[pos + blockSize]);
+            } else {
+                // 다음 바이트가 없으면(파일 끝) 창을 새로 계산하게 둔다
+                rollingValid = false;
+            }
+            pos++;
+
+            if (pos - literal >= MAX_LITERAL) {
+                writeCopy(delta, copyStart, copyCount);
+                copyCount = 0;
+                writeLiteral(delta, buf, literal, pos - literal);
+                literal = pos;
+            }
+        }
+
+        writeCopy(delta, copyStart, copyCount);
+        if (len > literal) {
+            writeLiteral(delta, buf, literal, len - literal);
+        }
+
+        FileSignature signature = target.build();
+        delta.writeByte(DeltaFormat.OP_END);
+        delta.writeLong(signature.fileSize());
+        delta.write(signature.sha256());
+        delta.flush();
+        return signature;
+    }
+
+    private void writeCopy(DataOutputStream delta, int firstBlock, int count) throws IOException {
+        if (count == 0) {
+            return;
+        }
+        delta.writeByte(DeltaFormat.OP_COPY);
+        delta.writeInt(firstBlock);
+        delta.writeInt(count);
+    }
+
+    private void writeLiteral(DataOutputStream delta, byte[] buf, int offset, int length) throws IOException {
+        delta.writeByte(DeltaFormat.OP_LITERAL);
+        delta.writeInt(length);
+        delta.write(buf, offset, length);
+        literalBytes += length;
+    }
+
+    private static int[] concat(int[] a, int[] b) {
+        int[] merged = new int[a.length + b.length];
+        System.arraycopy(a, 0, merged, 0, a.length);
+        System.arraycopy(b, 0, merged, a.length, b.length);
+        return merged;
+    }
+}
@@ -0,0 +1,26 @@
+package FileSync.FindFileSync.delta;
+
+/**
+ * 델타 스트림 형식.
+ * <pre>
+ * 헤더:  int MAGIC, int VERSION, int blockSize, long baseSize, byte[32] baseSha256
+ * 명령:  byte OP_COPY, int firstBlock, int blockCount   (기준 파일의 블록 구간 재사용)
+ *        byte OP_LITERAL, int length, byte[length]      (새 데이터)
+ * 끝:    byte OP_END, long targetSize, byte[32] targetSha256
+ * </pre>
+ * 모든 정수는 big-endian ({@link java.io.DataOutputStream} 형식).
+ */
+public final class DeltaFormat {
+
+    public static final int MAGIC = 0x4653444C; // "FSDL"
+    public static final int VERSION = 1;
+
+    public static final byte OP_END = 0;
+    public static final byte OP_COPY = 1;
+    public static final byte OP_LITERAL = 2;
+
+    public static final int SHA256_LENGTH = 32;
+
+    private DeltaFormat() {
+    }
+}
@@ -0,0 +1,112 @@
+package FileSync.FindFileSync.delta;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+/**
+ * 기준 파일에 델타 스트림({@link DeltaFormat})을 적용해 새 파일을 만든다.
+ * 기준 파일의 SHA-256이 델타 헤더와 다르면 {@link BaseMismatchException}을,
+ * 결과 파일의 크기/SHA-256이 델타 끝의 값과 다르면 {@link IOException}을 던진다.
+ */
+public final class DeltaPatcher {
+
+    public static class BaseMismatchException extends IOException {
+        public BaseMismatchException(String message) {
+            super(message);
+        }
+    }
+
+    private DeltaPatcher() {
+    }
+
+    public static void apply(InputStream deltaStream, Path base, Path output) throws IOException {
+        DataInputStream delta = new DataInputStream(deltaStream);
+        if (delta.readInt() != DeltaFormat.MAGIC || delta.readInt() != DeltaFormat.VERSION) {
+            throw new IOException("델타 형식이 아닙니다");
+        }
+        int blockSize = delta.readInt();
+        long baseSize = delta.readLong();
+        byte[] baseSha256 = delta.readNBytes(DeltaFormat.SHA256_LENGTH);
+        if (blockSize <= 0) {
+            throw new IOException("잘못된 블록 크기: " + blockSize);
+        }
+
+        if (!Files.isRegularFile(base) || Files.size(base) != baseSize || !Arrays.equals(sha256(base), baseSha256)) {
+            throw new BaseMismatchException("기준 파일이 델타의 기준과 다릅니다: " + base);
+        }
+
+        MessageDigest digest = FileSignature.digest("SHA-256");
+        long written = 0;
+        byte[] buffer = new byte[256 * 1024];
+
+        try (FileChannel baseChannel = FileChannel.open(base, StandardOpenOption.READ);
+             OutputStream out = Files.newOutputStream(output)) {
+            while (true) {
+                byte op = delta.readByte();
+                if (op == DeltaFormat.OP_END) {
+                    break;
+                }
+                if (op == DeltaFormat.OP_COPY) {
+                    long start = (long) delta.readInt() * blockSize;
+                    long end = Math.min(baseSize, start + (long) delta.readInt() * blockSize);
+                    if (start < 0 || start >= end) {
+                        throw new IOException("잘못된 COPY 구간");
+                    }
+                    for (long position = start; position < end; ) {
+                        ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, (int) Math.min(buffer.length, end - position));
+                        int n = baseChannel.read(chunk, position);
+                        if (n <= 0) {
+                            throw new IOException("기준 파일 읽기 실패");
+                        }
+                        out.write(buffer, 0, n);
+                        digest.update(buffer, 0, n);
+                        position += n;
+                        written += n;
+                    }
+                } else if (op == DeltaFormat.OP_LITERAL) {
+                    int length = delta.readInt();
+                    if (length < 0) {
+                        throw new IOException("잘못된 LITERAL 길이");
+                    }
+                    while (length > 0) {
+                        int n = Math.min(length, buffer.length);
+                        delta.readFully(buffer, 0, n);
+                        out.write(buffer, 0, n);
+                        digest.update(buffer, 0, n);
+                        length -= n;
+                        written += n;
+                    }
+                } else {
+                    throw new IOException("알 수 없는 델타 명령: " + op);
+                }
+            }
+        }
+
+        long targetSize = delta.readLong();
+        byte[] targetSha256 = delta.readNBytes(DeltaFormat.SHA256_LENGTH);
+        if (written != targetSize || !Arrays.equals(digest.digest(), targetSha256)) {
+            throw new IOException("델타 적용 결과가 일치하지 않습니다 (크기 " + written + "/" + targetSize + ")");
+        }
+    }
+
+    private static byte[] sha256(Path file) throws IOException {
+        MessageDigest digest = FileSignature.digest("SHA-256");
+        byte[] buffer = new byte[256 * 1024];
+        try (InputStream in = Files.newInputStream(file)) {
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, n);
+            }
+        }
+        return digest.digest();
+    }
+}
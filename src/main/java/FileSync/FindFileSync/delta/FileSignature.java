@@ -0,0 +1,173 @@
+package FileSync.FindFileSync.delta;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * 마지막으로 서버에 올린 파일 내용의 블록 서명.
+ * 블록마다 약한 롤링 체크섬과 MD5(강한 해시)를, 파일 전체는 SHA-256을 가진다.
+ */
+public final class FileSignature {
+
+    private static final int MAGIC = 0x46535347; // "FSSG"
+    static final int STRONG_LENGTH = 16;
+
+    private final int blockSize;
+    private final long fileSize;
+    private final byte[] sha256;
+    private final int[] weak;
+    private final byte[] strong;
+
+    FileSignature(int blockSize, long fileSize, byte[] sha256, int[] weak, byte[] strong) {
+        this.blockSize = blockSize;
+        this.fileSize = fileSize;
+        this.sha256 = sha256;
+        this.weak = weak;
+        this.strong = strong;
+    }
+
+    public int blockSize() {
+        return blockSize;
+    }
+
+    public long fileSize() {
+        return fileSize;
+    }
+
+    public byte[] sha256() {
+        return sha256;
+    }
+
+    public int blockCount() {
+        return weak.length;
+    }
+
+    int weak(int block) {
+        return weak[block];
+    }
+
+    boolean strongEquals(int block, byte[] digest) {
+        return Arrays.equals(strong, block * STRONG_LENGTH, (block + 1) * STRONG_LENGTH, digest, 0, STRONG_LENGTH);
+    }
+
+    // 블록 길이 (마지막 블록은 짧을 수 있음)
+    int blockLength(int block) {
+        return (int) Math.min(blockSize, fileSize - (long) block * blockSize);
+    }
+
+    public static FileSignature compute(Path file, int blockSize) throws IOException {
+        Builder builder = new Builder(blockSize);
+        byte[] buffer = new byte[Math.max(blockSize, 256 * 1024)];
+        try (InputStream in = Files.newInputStream(file)) {
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                builder.update(buffer, 0, n);
+            }
+        }
+        return builder.build();
+    }
+
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(blockSize);
+        out.writeLong(fileSize);
+        out.write(sha256);
+        out.writeInt(weak.length);
+        for (int w : weak) {
+            out.writeInt(w);
+        }
+        out.write(strong);
+    }
+
+    public static FileSignature readFrom(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("서명 형식이 아닙니다");
+        }
+        int blockSize = in.readInt();
+        long fileSize = in.readLong();
+        byte[] sha256 = in.readNBytes(DeltaFormat.SHA256_LENGTH);
+        int count = in.readInt();
+        if (blockSize <= 0 || count < 0 || (long) count * blockSize < fileSize) {
+            throw new IOException("손상된 서명");
+        }
+        int[] weak = new int[count];
+        for (int i = 0; i < count; i++) {
+            weak[i] = in.readInt();
+        }
+        byte[] strong = in.readNBytes(count * STRONG_LENGTH);
+        if (sha256.length != DeltaFormat.SHA256_LENGTH || strong.length != count * STRONG_LENGTH) {
+            throw new IOException("잘린 서명");
+        }
+        return new FileSignature(blockSize, fileSize, sha256, weak, strong);
+    }
+
+    static MessageDigest digest(String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 파일 내용을 순서대로 받아 서명을 만든다. 델타 인코딩 중에 새 파일의 서명을 같이 만들 때 쓴다.
+     */
+    public static final class Builder {
+        private final int blockSize;
+        private final byte[] block;
+        private int blockFill;
+        private long size;
+        private final MessageDigest fileDigest = digest("SHA-256");
+        private final MessageDigest blockDigest = digest("MD5");
+        private int[] weak = new int[64];
+        private byte[] strong = new byte[64 * STRONG_LENGTH];
+        private int count;
+
+        public Builder(int blockSize) {
+            this.blockSize = blockSize;
+            this.block = new byte[blockSize];
+        }
+
+        public void update(byte[] data, int offset, int length) {
+            fileDigest.update(data, offset, length);
+            size += length;
+            while (length > 0) {
+                int n = Math.min(length, blockSize - blockFill);
+                System.arraycopy(data, offset, block, blockFill, n);
+                blockFill += n;
+                offset += n;
+                length -= n;
+                if (blockFill == blockSize) {
+                    finishBlock();
+                }
+            }
+        }
+
+        public FileSignature build() {
+            if (blockFill > 0) {
+                finishBlock();
+            }
+            return new FileSignature(blockSize, size, fileDigest.digest(),
+                    Arrays.copyOf(weak, count), Arrays.copyOf(strong, count * STRONG_LENGTH));
+        }
+
+        private void finishBlock() {
+            if (count == weak.length) {
+                weak = Arrays.copyOf(weak, count * 2);
+                strong = Arrays.copyOf(strong, count * 2 * STRONG_LENGTH);
+            }
+            weak[count] = RollingChecksum.of(block, 0, blockFill);
+            blockDigest.update(block, 0, blockFill);
+            System.arraycopy(blockDigest.digest(), 0, strong, count * STRONG_LENGTH, STRONG_LENGTH);
+            count++;
+            blockFill = 0;
+        }
+    }
+}
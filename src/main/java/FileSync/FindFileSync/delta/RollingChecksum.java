@@ -0,0 +1,48 @@
+package FileSync.FindFileSync.delta;
+
+/**
+ * rsync의 약한 롤링 체크섬. 창을 한 바이트씩 밀면서 O(1)로 갱신한다.
+ */
+public final class RollingChecksum {
+
+    private final int blockSize;
+    private int a;
+    private int b;
+
+    public RollingChecksum(int blockSize) {
+        this.blockSize = blockSize;
+    }
+
+    public static int of(byte[] data, int offset, int length) {
+        int a = 0;
+        int b = 0;
+        for (int i = 0; i < length; i++) {
+            int x = data[offset + i] & 0xff;
+            a += x;
+            b += (length - i) * x;
+        }
+        return (a & 0xffff) | ((b & 0xffff) << 16);
+    }
+
+    // 창 전체로 다시 계산
+    public void reset(byte[] data, int offset) {
+        a = 0;
+        b = 0;
+        for (int i = 0; i < blockSize; i++) {
+            int x = data[offset + i] & 0xff;
+            a += x;
+            b += (blockSize - i) * x;
+        }
+    }
+
+    // 창에서 out이 빠지고 in이 들어옴
+    public void roll(byte out, byte in) {
+        int o = out & 0xff;
+        a += (in & 0xff) - o;
+        b += a - blockSize * o;
+    }
+
+    public int value() {
+        return (a & 0xffff) | ((b & 0xffff) << 16);
+    }
+}
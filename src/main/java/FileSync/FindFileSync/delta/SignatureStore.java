@@ -0,0 +1,87 @@
+package FileSync.FindFileSync.delta;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.HexFormat;
+
+/**
+ * 파일별 블록 서명을 로컬 디스크({@code config.delta.signatureDir})에 보관한다.
+ * 파일 이름은 상대 경로의 SHA-256이므로 경로 길이/문자 제약을 받지 않는다.
+ */
+@Slf4j
+@Component
+public class SignatureStore {
+
+    @Value("${config.delta.signatureDir:sync-state/signatures}")
+    private String signatureDir;
+
+    public FileSignature load(String relativePath) {
+        Path file = fileFor(relativePath);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            return FileSignature.readFrom(in);
+        } catch (IOException e) {
+            log.warn("서명 읽기 실패, 버립니다: {}", relativePath, e);
+            remove(relativePath);
+            return null;
+        }
+    }
+
+    public void save(String relativePath, FileSignature signature) {
+        Path file = fileFor(relativePath);
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(file.getParent());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                signature.writeTo(out);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("서명 저장 실패: {}", relativePath, e);
+        }
+    }
+
+    // 파일 이름 변경/이동 시 서명도 새 경로로 옮긴다
+    public void move(String fromPath, String toPath) {
+        Path from = fileFor(fromPath);
+        if (!Files.exists(from)) {
+            return;
+        }
+        try {
+            Path to = fileFor(toPath);
+            Files.createDirectories(to.getParent());
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.warn("서명 이동 실패: {} -> {}", fromPath, toPath, e);
+        }
+    }
+
+    public void remove(String relativePath) {
+        try {
+            Files.deleteIfExists(fileFor(relativePath));
+        } catch (IOException e) {
+            log.warn("서명 삭제 실패: {}", relativePath, e);
+        }
+    }
+
+    private Path fileFor(String relativePath) {
+        String name = HexFormat.of().formatHex(FileSignature.digest("SHA-256")
+                .digest(relativePath.getBytes(StandardCharsets.UTF_8)));
+        // 한 디렉토리에 파일이 너무 많아지지 않도록 앞 두 글자로 나눈다
+        return Paths.get(signatureDir, name.substring(0, 2), name + ".sig");
+    }
+}
@@ -0,0 +1,73 @@
+package FileSync.FindFileSync.delta;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 읽는 바이트로 블록 서명을 같이 만드는 스트림. 전체 업로드가 보내는 내용에서 바로 다음 델타의 기준을 얻을 때 쓴다.
+ * 끝까지 읽은 뒤에만 {@link #signature()}가 서명을 돌려준다.
+ */
+public final class SigningInputStream extends FilterInputStream {
+
+    private final FileSignature.Builder builder;
+    private FileSignature signature;
+
+    public SigningInputStream(InputStream in, int blockSize) {
+        super(in);
+        this.builder = new FileSignature.Builder(blockSize);
+    }
+
+    /**
+     * 읽은 내용의 서명, 아직 끝까지 읽지 않았으면 null.
+     */
+    public FileSignature signature() {
+        return signature;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] one = new byte[1];
+        return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = in.read(b, off, len);
+        if (n > 0) {
+            builder.update(b, off, n);
+        } else if (n < 0 && signature == null) {
+            signature = builder.build();
+        }
+        return n;
+    }
+
+    // 건너뛴 내용도 서명에 들어가야 하므로 읽어서 버린다
+    @Override
+    public long skip(long n) throws IOException {
+        byte[] buffer = new byte[(int) Math.min(Math.max(n, 0), 8192)];
+        long skipped = 0;
+        while (skipped < n) {
+            int read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+            if (read < 0) {
+                break;
+            }
+            skipped += read;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public void mark(int readlimit) {
+    }
+
+    @Override
+    public void reset() throws IOException {
+        throw new IOException("mark/reset을 지원하지 않습니다");
+    }
+}
@@ -0,0 +1,12 @@
+package FileSync.FindFileSync.dto;
+
+import java.util.List;
+
+/**
+ * 청크 업로드 세션 시작 응답.
+ *
+ * @param uploadId 세션 ID (같은 경로/크기/수정 시각/청크 크기면 재시작 후에도 같은 값)
+ * @param received 서버가 이미 받은 청크의 시작 오프셋 목록
+ */
+public record ChunkSession(String uploadId, List<Long> received) {
+}
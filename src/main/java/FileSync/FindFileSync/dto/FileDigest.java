@@ -0,0 +1,13 @@
+package FileSync.FindFileSync.dto;
+
+import java.util.List;
+
+/**
+ * 서버에 저장된 파일의 구간별 체크섬 (/file/hash 응답).
+ *
+ * @param exists   파일이 있으면 true (없으면 나머지 값은 의미 없음)
+ * @param size     파일 크기
+ * @param segments 요청한 구간 크기로 나눈 구간마다의 CRC32C (16진수)
+ */
+public record FileDigest(boolean exists, long size, List<String> segments) {
+}
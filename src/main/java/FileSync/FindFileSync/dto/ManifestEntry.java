@@ -0,0 +1,12 @@
+package FileSync.FindFileSync.dto;
+
+/**
+ * 매니페스트 diff 요청의 한 항목.
+ *
+ * @param path  동기화 루트 기준 상대 경로
+ * @param size  파일 크기 (바이트)
+ * @param mtime 마지막 수정 시각 (epoch millis)
+ * @param hash  콘텐츠 해시, 없으면 null
+ */
+public record ManifestEntry(String path, long size, long mtime, String hash) {
+}
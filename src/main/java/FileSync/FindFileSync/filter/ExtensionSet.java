@@ -0,0 +1,97 @@
+package FileSync.FindFileSync.filter;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 허용 확장자 집합. 파일 이름에서 확장자 부분을 잘라내지 않고 바로 해시해서 찾으므로
+ * 조회할 때 객체를 만들지 않는다 (대소문자 무시).
+ */
+final class ExtensionSet {
+
+    private final char[][] table;
+    private final int mask;
+    private final boolean matchAll;
+
+    ExtensionSet(Collection<String> extensions) {
+        Set<String> normalized = new LinkedHashSet<>();
+        boolean all = false;
+        for (String extension : extensions) {
+            String e = extension.trim().toLowerCase();
+            if (e.startsWith(".")) {
+                e = e.substring(1);
+            }
+            if (e.equals("*")) {
+                all = true;
+            } else if (!e.isEmpty()) {
+                normalized.add(e);
+            }
+        }
+        matchAll = all;
+
+        int capacity = Integer.highestOneBit(Math.max(4, normalized.size() * 4) - 1) << 1;
+        table = new char[capacity][];
+        mask = capacity - 1;
+        for (String e : normalized) {
+            int slot = hash(e, 0, e.length()) & mask;
+            while (table[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = e.toCharArray();
+        }
+    }
+
+    /**
+     * 이름의 마지막 '.' 뒤 확장자가 집합에 있으면 true. 확장자가 없으면 false.
+     */
+    boolean containsExtensionOf(String name) {
+        int dot = name.lastIndexOf('.');
+        if (dot < 0 || dot == name.length() - 1) {
+            return false;
+        }
+        if (matchAll) {
+            return true;
+        }
+        int start = dot + 1;
+        int end = name.length();
+        for (int slot = hash(name, start, end) & mask; table[slot] != null; slot = (slot + 1) & mask) {
+            if (regionEquals(table[slot], name, start, end)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean hasExtension(String name) {
+        int dot = name.lastIndexOf('.');
+        return dot >= 0 && dot < name.length() - 1;
+    }
+
+    private static int hash(String s, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + lower(s.charAt(i));
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean regionEquals(char[] extension, String name, int start, int end) {
+        if (extension.length != end - start) {
+            return false;
+        }
+        for (int i = 0; i < extension.length; i++) {
+            if (extension[i] != lower(name.charAt(start + i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static char lower(char c) {
+        if (c < 128) {
+            return (c >= 'A' && c <= 'Z') ? (char) (c + 32) : c;
+        }
+        return Character.toLowerCase(c);
+    }
+}
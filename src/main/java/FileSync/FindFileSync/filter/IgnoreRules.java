@@ -0,0 +1,169 @@
+package FileSync.FindFileSync.filter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * .gitignore 형식의 제외 규칙 목록 (컴파일된 형태).
+ * <ul>
+ *     <li>{@code #}으로 시작하는 줄과 빈 줄은 무시</li>
+ *     <li>{@code !}로 시작하면 앞선 규칙으로 제외된 대상을 다시 포함</li>
+ *     <li>{@code /}로 끝나면 디렉토리에만 적용</li>
+ *     <li>중간에 {@code /}가 없으면 어느 깊이의 이름에나 적용, 있으면 기준 디렉토리에서의 상대 경로에 적용</li>
+ *     <li>{@code *}, {@code ?}, {@code **} 글롭 지원, 대소문자 무시</li>
+ * </ul>
+ * 나중 규칙이 앞 규칙보다 우선한다. 흔한 형태(정확한 이름, {@code *.ext}, {@code prefix*})는 정규식 없이 비교한다.
+ */
+final class IgnoreRules {
+
+    static final IgnoreRules EMPTY = new IgnoreRules(List.of());
+
+    private enum Kind {
+        EXACT,
+        SUFFIX,
+        PREFIX,
+        NAME_PATTERN,
+        PATH_PATTERN
+    }
+
+    private record Rule(boolean negate, boolean directoryOnly, Kind kind, String text, Pattern pattern) {
+    }
+
+    private final Rule[] rules;
+    private final boolean hasPathRules;
+
+    private IgnoreRules(List<Rule> rules) {
+        this.rules = rules.toArray(new Rule[0]);
+        this.hasPathRules = rules.stream().anyMatch(r -> r.kind() == Kind.PATH_PATTERN);
+    }
+
+    static IgnoreRules compile(List<String> lines) {
+        List<Rule> rules = new ArrayList<>();
+        for (String raw : lines) {
+            String line = raw.strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            boolean negate = line.startsWith("!");
+            if (negate) {
+                line = line.substring(1);
+            }
+            line = line.replace('\\', '/');
+            boolean directoryOnly = line.endsWith("/");
+            while (line.endsWith("/")) {
+                line = line.substring(0, line.length() - 1);
+            }
+            boolean anchored = line.indexOf('/') >= 0;
+            while (line.startsWith("/")) {
+                line = line.substring(1);
+            }
+            if (line.isEmpty()) {
+                continue;
+            }
+            rules.add(anchored ? pathRule(negate, directoryOnly, line) : nameRule(negate, directoryOnly, line));
+        }
+        return rules.isEmpty() ? EMPTY : new IgnoreRules(rules);
+    }
+
+    boolean isEmpty() {
+        return rules.length == 0;
+    }
+
+    boolean hasPathRules() {
+        return hasPathRules;
+    }
+
+    /**
+     * 마지막으로 일치한 규칙의 결과. 제외면 TRUE, 다시 포함이면 FALSE, 일치하는 규칙이 없으면 null.
+     *
+     * @param relativePath '/' 구분자의 기준 디렉토리 상대 경로 ({@link #hasPathRules()}가 false면 null이어도 됨)
+     */
+    Boolean match(String name, String relativePath, boolean directory) {
+        for (int i = rules.length - 1; i >= 0; i--) {
+            Rule rule = rules[i];
+            if (rule.directoryOnly() && !directory) {
+                continue;
+            }
+            if (matches(rule, name, relativePath)) {
+                return !rule.negate();
+            }
+        }
+        return null;
+    }
+
+    private static boolean matches(Rule rule, String name, String relativePath) {
+        String text = rule.text();
+        return switch (rule.kind()) {
+            case EXACT -> name.equalsIgnoreCase(text);
+            case SUFFIX -> name.regionMatches(true, name.length() - text.length(), text, 0, text.length());
+            case PREFIX -> name.regionMatches(true, 0, text, 0, text.length());
+            case NAME_PATTERN -> rule.pattern().matcher(name).matches();
+            case PATH_PATTERN -> relativePath != null && rule.pattern().matcher(relativePath).matches();
+        };
+    }
+
+    private static Rule nameRule(boolean negate, boolean directoryOnly, String glob) {
+        int wildcards = countWildcards(glob);
+        if (wildcards == 0) {
+            return new Rule(negate, directoryOnly, Kind.EXACT, glob, null);
+        }
+        if (wildcards == 1 && glob.startsWith("*")) {
+            return new Rule(negate, directoryOnly, Kind.SUFFIX, glob.substring(1), null);
+        }
+        if (wildcards == 1 && glob.endsWith("*")) {
+            return new Rule(negate, directoryOnly, Kind.PREFIX, glob.substring(0, glob.length() - 1), null);
+        }
+        return new Rule(negate, directoryOnly, Kind.NAME_PATTERN, glob, toPattern(glob));
+    }
+
+    private static Rule pathRule(boolean negate, boolean directoryOnly, String glob) {
+        return new Rule(negate, directoryOnly, Kind.PATH_PATTERN, glob, toPattern(glob));
+    }
+
+    private static int countWildcards(String glob) {
+        int count = 0;
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c == '*' || c == '?' || c == '[') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // 글롭을 정규식으로 변환 ('**'는 디렉토리 경계를 넘고, '*'와 '?'는 넘지 않음)
+    private static Pattern toPattern(String glob) {
+        StringBuilder regex = new StringBuilder();
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c == '*') {
+                if (i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+                    i++;
+                    if (i + 1 < glob.length() && glob.charAt(i + 1) == '/') {
+                        // '**/'는 0개 이상의 디렉토리
+                        i++;
+                        regex.append("(?:.*/)?");
+                    } else {
+                        regex.append(".*");
+                    }
+                } else {
+                    regex.append("[^/]*");
+                }
+            } else if (c == '?') {
+                regex.append("[^/]");
+            } else if (c == '[') {
+                int close = glob.indexOf(']', i + 1);
+                if (close < 0) {
+                    regex.append("\\[");
+                } else {
+                    regex.append('[').append(glob, i + 1, close).append(']');
+                    i = close;
+                }
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+    }
+}
@@ -0,0 +1,205 @@
+package FileSync.FindFileSync.filter;
+
+import FileSync.FindFileSync.source.SourceRoot;
+import FileSync.FindFileSync.source.SourceRoots;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 동기화 대상 필터. 시작할 때 한 번 컴파일되며, 판단만 하고 부수 효과는 없다.
+ * <ul>
+ *     <li>{@code config.allowedExtensions}: 허용 확장자 (해시 조회)</li>
+ *     <li>{@code config.filter.include}: 확장자와 관계없이 포함할 파일 이름/경로 글롭</li>
+ *     <li>{@code config.filter.exclude}: 제외 규칙 (.syncignore와 같은 형식)</li>
+ *     <li>각 디렉토리의 {@code .syncignore}: 그 디렉토리 아래에 적용되는 제외 규칙, 깊은 쪽이 우선</li>
+ * </ul>
+ * 루트가 여러 개면({@code config.sources}) 루트마다 {@code config.source.이름.allowedExtensions},
+ * {@code .include}, {@code .exclude}, {@code .allowNoExtension}으로 위 값을 바꿀 수 있다 (없는 항목은 전역 값).
+ * 제외된 디렉토리는 탐색/감시에서 통째로 빠지므로, 파일 판단은 상위 디렉토리가 이미 통과했다고 보고 자신만 확인한다.
+ */
+@Slf4j
+@Component
+public class SyncFilter {
+
+    public static final String IGNORE_FILE_NAME = ".syncignore";
+
+    @Value("${config.allowedExtensions}")
+    private String allowedExtensions;
+
+    @Value("${config.filter.include:}")
+    private String include;
+
+    @Value("${config.filter.exclude:}")
+    private String exclude;
+
+    // 확장자가 없는 파일도 동기화 (기존 동작)
+    @Value("${config.filter.allowNoExtension:true}")
+    private boolean allowNoExtension;
+
+    @Autowired
+    private SourceRoots sourceRoots;
+
+    @Autowired
+    private Environment environment;
+
+    // 루트별로 컴파일한 규칙
+    private record Rules(Path root, ExtensionSet extensions, IgnoreRules includeRules, IgnoreRules excludeRules,
+                         boolean allowNoExtension) {
+    }
+
+    private List<Rules> rootRules;
+
+    // 디렉토리별 .syncignore 규칙
+    private final Map<Path, IgnoreRules> ignoreFiles = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        List<Rules> compiled = new ArrayList<>();
+        for (SourceRoot root : sourceRoots.all()) {
+            compiled.add(compile(root));
+        }
+        rootRules = List.copyOf(compiled);
+    }
+
+    private Rules compile(SourceRoot root) {
+        String extensions = allowedExtensions;
+        String includes = include;
+        String excludes = exclude;
+        boolean noExtension = allowNoExtension;
+        if (!root.name().isEmpty()) {
+            String prefix = "config.source." + root.name() + ".";
+            extensions = environment.getProperty(prefix + "allowedExtensions", extensions);
+            includes = environment.getProperty(prefix + "include", includes);
+            excludes = environment.getProperty(prefix + "exclude", excludes);
+            noExtension = environment.getProperty(prefix + "allowNoExtension", Boolean.class, noExtension);
+        }
+        return new Rules(root.path(),
+                new ExtensionSet(Arrays.asList(extensions.split(","))),
+                IgnoreRules.compile(Arrays.asList(includes.split(","))),
+                IgnoreRules.compile(Arrays.asList(excludes.split(","))),
+                noExtension);
+    }
+
+    // 경로가 속한 루트의 규칙, 어느 루트에도 없으면 null
+    private Rules rulesFor(Path path) {
+        if (rootRules.size() == 1) {
+            return rootRules.get(0);
+        }
+        for (Rules candidate : rootRules) {
+            if (path.startsWith(candidate.root())) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 파일을 동기화해야 하면 true. 파일이 실제로 있는지는 보지 않는다 (삭제 이벤트에도 사용).
+     */
+    public boolean acceptsFile(Path file) {
+        if (file.getFileName() == null) {
+            return false;
+        }
+        Rules rules = rulesFor(file);
+        if (rules == null) {
+            return false;
+        }
+        String name = file.getFileName().toString();
+        if (isIgnored(rules, file, name, false)) {
+            return false;
+        }
+        if (rules.extensions().containsExtensionOf(name)) {
+            return true;
+        }
+        if (rules.allowNoExtension() && !ExtensionSet.hasExtension(name)) {
+            return true;
+        }
+        IgnoreRules includeRules = rules.includeRules();
+        return !includeRules.isEmpty()
+                && Boolean.TRUE.equals(includeRules.match(name, includeRules.hasPathRules() ? relativePath(rules.root(), file) : null, false));
+    }
+
+    /**
+     * 디렉토리가 제외 대상이면 true. 탐색기는 하위로 들어가지 않고 감시도 등록하지 않는다.
+     */
+    public boolean isIgnoredDirectory(Path dir) {
+        Rules rules = rulesFor(dir);
+        if (rules == null) {
+            return true;
+        }
+        if (dir.equals(rules.root()) || dir.getFileName() == null) {
+            return false;
+        }
+        return isIgnored(rules, dir, dir.getFileName().toString(), true);
+    }
+
+    public static boolean isIgnoreFile(Path path) {
+        Path name = path.getFileName();
+        return name != null && name.toString().equals(IGNORE_FILE_NAME);
+    }
+
+    /**
+     * dir의 .syncignore를 (다시) 읽는다. 파일이 없으면 규칙을 지운다.
+     */
+    public void loadIgnoreFile(Path dir) {
+        Path file = dir.resolve(IGNORE_FILE_NAME);
+        try {
+            List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            IgnoreRules rules = IgnoreRules.compile(lines);
+            if (rules.isEmpty()) {
+                ignoreFiles.remove(dir);
+            } else {
+                ignoreFiles.put(dir, rules);
+                log.info("제외 규칙 적용: {}", file);
+            }
+        } catch (NoSuchFileException e) {
+            ignoreFiles.remove(dir);
+        } catch (IOException e) {
+            log.warn("제외 규칙 읽기 실패: {}: {}", file, e.getMessage());
+        }
+    }
+
+    // 깊은 .syncignore부터 확인하고, 일치하는 규칙이 없으면 전역 제외 규칙
+    private boolean isIgnored(Rules rules, Path path, String name, boolean directory) {
+        if (!ignoreFiles.isEmpty()) {
+            for (Path dir = path.getParent(); dir != null && dir.startsWith(rules.root()); dir = dir.getParent()) {
+                IgnoreRules ignoreFile = ignoreFiles.get(dir);
+                if (ignoreFile == null) {
+                    continue;
+                }
+                Boolean result = ignoreFile.match(name, ignoreFile.hasPathRules() ? relativePath(dir, path) : null, directory);
+                if (result != null) {
+                    return result;
+                }
+            }
+        }
+        IgnoreRules excludeRules = rules.excludeRules();
+        if (excludeRules.isEmpty()) {
+            return false;
+        }
+        return Boolean.TRUE.equals(excludeRules.match(name, excludeRules.hasPathRules() ? relativePath(rules.root(), path) : null, directory));
+    }
+
+    private static String relativePath(Path base, Path path) {
+        String relative = path.toString().substring(base.toString().length());
+        if (!relative.isEmpty() && (relative.charAt(0) == '/' || relative.charAt(0) == '\\')) {
+            relative = relative.substring(1);
+        }
+        return relative.replace('\\', '/');
+    }
+}
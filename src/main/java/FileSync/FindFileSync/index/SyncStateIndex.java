@@ -0,0 +1,299 @@
+package FileSync.FindFileSync.index;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 서버가 마지막으로 확인(ack)한 파일 상태를 로컬 디스크에 보관하는 인덱스.
+ * <p>
+ * 상대 경로마다 크기, 수정 시각, (선택) 콘텐츠 해시를 기록한다.
+ * 파일은 append-only 레코드 로그이며 부팅 시 한 번 읽어서 메모리 맵으로 올린다.
+ * 최초 동기화는 이 인덱스와 크기/수정 시각이 같은 파일에 대해 네트워크 요청을 하지 않는다.
+ */
+@Slf4j
+@Component
+public class SyncStateIndex {
+
+    private static final int MAGIC = 0x46534958; // "FSIX"
+    private static final int VERSION = 1;
+
+    private static final byte RECORD_PUT = 1;
+    private static final byte RECORD_REMOVE = 2;
+
+    // 이 개수만큼 기록할 때마다 버퍼를 디스크로 내린다
+    private static final int FLUSH_EVERY_RECORDS = 256;
+
+    @Value("${config.index.file:sync-state/index.dat}")
+    private String indexFile;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private Path indexPath;
+    private DataOutputStream out;
+    private int unflushedRecords;
+
+    /**
+     * 서버가 확인한 파일 상태.
+     *
+     * @param size  파일 크기 (바이트)
+     * @param mtime 마지막 수정 시각 (epoch millis)
+     * @param hash  콘텐츠 해시, 계산하지 않았으면 null
+     */
+    public record Entry(long size, long mtime, String hash) {
+
+        public boolean matches(long size, long mtime) {
+            return this.size == size && this.mtime == mtime;
+        }
+    }
+
+    @PostConstruct
+    public void load() throws IOException {
+        indexPath = Paths.get(indexFile).toAbsolutePath();
+        Files.createDirectories(indexPath.getParent());
+
+        long records = 0;
+        if (Files.exists(indexPath)) {
+            records = readLog();
+        }
+
+        // 덮어쓴 레코드가 살아있는 항목보다 훨씬 많으면 로그를 새로 쓴다
+        if (!Files.exists(indexPath) || records > entries.size() * 2L + 1024) {
+            compact();
+        }
+
+        out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexPath.toFile(), true), 64 * 1024));
+        log.info("동기화 인덱스 로드 완료: {} ({}개 항목)", indexPath, entries.size());
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            log.error("동기화 인덱스 닫기 실패: {}", indexPath, e);
+        }
+        out = null;
+    }
+
+    public Entry get(String relativePath) {
+        return entries.get(relativePath);
+    }
+
+    /**
+     * 마지막으로 확인된 상태와 크기/수정 시각이 같으면 true.
+     */
+    public boolean isUnchanged(String relativePath, long size, long mtime) {
+        Entry entry = entries.get(relativePath);
+        return entry != null && entry.matches(size, mtime);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    // 기록된 모든 상대 경로 (변경과 동시에 순회 가능)
+    public Set<String> paths() {
+        return Collections.unmodifiableSet(entries.keySet());
+    }
+
+    public void markUploaded(String relativePath, long size, long mtime, String hash) {
+        Entry entry = new Entry(size, mtime, hash);
+        if (entry.equals(entries.put(relativePath, entry))) {
+            return;
+        }
+        append(RECORD_PUT, relativePath, entry);
+    }
+
+    public void markDeleted(String relativePath) {
+        if (entries.remove(relativePath) != null) {
+            append(RECORD_REMOVE, relativePath, null);
+        }
+    }
+
+    // 삭제된 디렉토리와 그 하위 항목 전체를 지운다
+    public void markDeletedTree(String dirPath) {
+        String prefix = dirPath + File.separator;
+        for (String path : entries.keySet().toArray(new String[0])) {
+            if (path.equals(dirPath) || path.startsWith(prefix)) {
+                markDeleted(path);
+            }
+        }
+    }
+
+    /**
+     * 이름 변경/이동 후 경로(디렉토리면 하위 항목 전체)를 새 경로로 옮긴다.
+     */
+    public void move(String fromPath, String toPath) {
+        String fromPrefix = fromPath + File.separator;
+        for (String path : entries.keySet().toArray(new String[0])) {
+            String target;
+            if (path.equals(fromPath)) {
+                target = toPath;
+            } else if (path.startsWith(fromPrefix)) {
+                target = toPath + path.substring(fromPath.length());
+            } else {
+                continue;
+            }
+            Entry entry = entries.remove(path);
+            if (entry == null) {
+                continue;
+            }
+            append(RECORD_REMOVE, path, null);
+            entries.put(target, entry);
+            append(RECORD_PUT, target, entry);
+        }
+    }
+
+    public synchronized void flush() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.flush();
+            unflushedRecords = 0;
+        } catch (IOException e) {
+            log.error("동기화 인덱스 flush 실패: {}", indexPath, e);
+        }
+    }
+
+    private synchronized void append(byte type, String relativePath, Entry entry) {
+        if (out == null) {
+            return;
+        }
+        try {
+            writeRecord(out, type, relativePath, entry);
+            if (++unflushedRecords >= FLUSH_EVERY_RECORDS) {
+                out.flush();
+                unflushedRecords = 0;
+            }
+        } catch (IOException e) {
+            // 인덱스 기록 실패는 다음 기동 시 재확인으로 이어질 뿐이므로 동기화는 계속한다
+            log.error("동기화 인덱스 기록 실패: {}", relativePath, e);
+        }
+    }
+
+    private long readLog() throws IOException {
+        long records = 0;
+        long validLength = 0;
+        try (InputStream fileIn = Files.newInputStream(indexPath);
+             CountingInputStream counting = new CountingInputStream(new BufferedInputStream(fileIn, 64 * 1024));
+             DataInputStream in = new DataInputStream(counting)) {
+
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("알 수 없는 인덱스 형식");
+            }
+            validLength = counting.count;
+
+            while (true) {
+                byte type = in.readByte();
+                String path = in.readUTF();
+                if (type == RECORD_PUT) {
+                    long size = in.readLong();
+                    long mtime = in.readLong();
+                    String hash = in.readUTF();
+                    entries.put(path, new Entry(size, mtime, hash.isEmpty() ? null : hash));
+                } else if (type == RECORD_REMOVE) {
+                    entries.remove(path);
+                } else {
+                    throw new IOException("잘못된 레코드 타입: " + type);
+                }
+                records++;
+                validLength = counting.count;
+            }
+        } catch (EOFException e) {
+            // 정상 종료 또는 마지막 레코드가 잘린 경우
+        } catch (IOException e) {
+            log.warn("인덱스 손상 감지, {} 바이트 이후를 버립니다: {}", validLength, indexPath, e);
+        }
+
+        if (validLength == 0) {
+            // 헤더조차 온전하지 않으면 처음부터 다시 만든다
+            log.warn("인덱스를 새로 생성합니다: {}", indexPath);
+            entries.clear();
+            Files.deleteIfExists(indexPath);
+            return 0;
+        }
+
+        // 비정상 종료로 잘린 꼬리 레코드를 잘라낸다
+        if (validLength < Files.size(indexPath)) {
+            try (RandomAccessFile raf = new RandomAccessFile(indexPath.toFile(), "rw")) {
+                raf.setLength(validLength);
+            }
+        }
+        return records;
+    }
+
+    private void compact() throws IOException {
+        Path tmp = indexPath.resolveSibling(indexPath.getFileName() + ".tmp");
+        try (DataOutputStream tmpOut = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 64 * 1024))) {
+            tmpOut.writeInt(MAGIC);
+            tmpOut.writeInt(VERSION);
+            for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                writeRecord(tmpOut, RECORD_PUT, e.getKey(), e.getValue());
+            }
+        }
+        Files.move(tmp, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeRecord(DataOutputStream out, byte type, String relativePath, Entry entry) throws IOException {
+        out.writeByte(type);
+        out.writeUTF(relativePath);
+        if (type == RECORD_PUT) {
+            out.writeLong(entry.size());
+            out.writeLong(entry.mtime());
+            out.writeUTF(entry.hash() == null ? "" : entry.hash());
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+    }
+}
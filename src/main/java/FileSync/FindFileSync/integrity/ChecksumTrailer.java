@@ -0,0 +1,102 @@
+package FileSync.FindFileSync.integrity;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32C;
+
+/**
+ * {@link IntegrityFormat} 본문을 만들고(클라이언트) 확인하며 복사한다(서버).
+ * 파일은 한 번만 읽고, 보내는 바이트로 바로 CRC32C를 계산한다.
+ */
+public final class ChecksumTrailer {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private ChecksumTrailer() {
+    }
+
+    /**
+     * content를 그대로 읽고, 끝나면 읽은 바이트의 CRC32C와 크기 꼬리를 이어서 읽게 하는 스트림 (닫으면 content도 닫음).
+     */
+    public static InputStream append(InputStream content) {
+        return new TrailerInputStream(content);
+    }
+
+    /**
+     * 꼬리를 뺀 본문을 out에 복사하고, 꼬리의 CRC32C/크기와 맞으면 true.
+     * 꼬리가 잘렸거나 맞지 않으면 false이며, 이때 out에 쓴 내용은 버려야 한다.
+     */
+    public static boolean copyVerified(InputStream in, OutputStream out) throws IOException {
+        CRC32C crc = new CRC32C();
+        long size = 0;
+        // 끝에 올 꼬리를 알 수 없으므로 마지막 TRAILER_LENGTH 바이트는 항상 남겨 둔다
+        byte[] buffer = new byte[BUFFER_SIZE + IntegrityFormat.TRAILER_LENGTH];
+        int held = 0;
+        int n;
+        while ((n = in.read(buffer, held, buffer.length - held)) >= 0) {
+            held += n;
+            int ready = held - IntegrityFormat.TRAILER_LENGTH;
+            if (ready > 0) {
+                crc.update(buffer, 0, ready);
+                out.write(buffer, 0, ready);
+                size += ready;
+                System.arraycopy(buffer, ready, buffer, 0, IntegrityFormat.TRAILER_LENGTH);
+                held = IntegrityFormat.TRAILER_LENGTH;
+            }
+        }
+        if (held != IntegrityFormat.TRAILER_LENGTH) {
+            return false;
+        }
+        ByteBuffer trailer = ByteBuffer.wrap(buffer, 0, IntegrityFormat.TRAILER_LENGTH);
+        return trailer.getInt() == (int) crc.getValue() && trailer.getLong() == size;
+    }
+
+    private static final class TrailerInputStream extends InputStream {
+
+        private final InputStream content;
+        private final CRC32C crc = new CRC32C();
+        private long size;
+        // 내용을 다 읽은 뒤에 만든다
+        private ByteBuffer trailer;
+
+        TrailerInputStream(InputStream content) {
+            this.content = content;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (trailer == null) {
+                int n = content.read(b, off, len);
+                if (n >= 0) {
+                    crc.update(b, off, n);
+                    size += n;
+                    return n;
+                }
+                trailer = ByteBuffer.allocate(IntegrityFormat.TRAILER_LENGTH);
+                trailer.putInt((int) crc.getValue()).putLong(size).flip();
+            }
+            if (!trailer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, trailer.remaining());
+            trailer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            content.close();
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package FileSync.FindFileSync.integrity;
+
+/**
+ * 검증 업로드 본문 형식.
+ * <pre>
+ * 본문:  byte[size]                 (파일 내용)
+ * 꼬리:  int crc32c, long size      (본문의 CRC32C와 바이트 수)
+ * </pre>
+ * 모든 정수는 big-endian ({@link java.io.DataOutputStream} 형식). 체크섬은 파일을 보내면서 계산하므로 헤더가 아니라
+ * 꼬리에 둔다. 서버는 받은 내용으로 다시 계산해서 꼬리와 다르면 저장하지 않고 422로 응답한다.
+ */
+public final class IntegrityFormat {
+
+    public static final int TRAILER_LENGTH = 4 + 8;
+
+    private IntegrityFormat() {
+    }
+}
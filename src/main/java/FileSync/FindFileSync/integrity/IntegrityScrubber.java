@@ -0,0 +1,297 @@
+package FileSync.FindFileSync.integrity;
+
+import FileSync.FindFileSync.controller.FileSyncController;
+import FileSync.FindFileSync.dto.FileDigest;
+import FileSync.FindFileSync.index.SyncStateIndex;
+import FileSync.FindFileSync.journal.OperationDispatcher;
+import FileSync.FindFileSync.journal.OperationType;
+import FileSync.FindFileSync.metrics.SyncMetrics;
+import FileSync.FindFileSync.scheduler.UploadPriority;
+import FileSync.FindFileSync.service.DeltaUploader;
+import FileSync.FindFileSync.source.SourceRoots;
+import FileSync.FindFileSync.target.SyncTarget;
+import FileSync.FindFileSync.target.SyncTargets;
+import FileSync.FindFileSync.transport.TransportResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 동기화된 파일을 주기적으로 무작위로 골라 서버의 내용과 같은지 다시 확인한다.
+ * <p>
+ * 인덱스에 올라간 뒤로 바뀌지 않은 파일만 고르고, 서버의 구간별 CRC32C(/file/hash)와 로컬에서 같은 구간 크기로
+ * 계산한 값을 비교한다. 로컬 계산은 {@link SegmentHasher}로 매핑한 구간을 병렬로 읽되 {@code config.scrub.bytesPerSec}
+ * 이하로 속도를 맞추므로 감시/업로드의 디스크 읽기를 방해하지 않는다. 서버 파일이 없거나 다르면 인덱스에서 지우고
+ * 그 경로만 다시 업로드한다 (델타 서명도 버려서 전체를 보낸다). /file/hash를 지원하지 않는 서버(404)는 건너뛴다.
+ */
+@Slf4j
+@Component
+public class IntegrityScrubber {
+
+    private static final String HASH_URL = "/file/hash";
+
+    private static final String OK = "ok";
+    private static final String MISMATCH = "mismatch";
+    private static final String MISSING = "missing";
+
+    @Value("${config.scrub.enabled:true}")
+    private boolean enabled;
+
+    @Value("${config.scrub.intervalMillis:600000}")
+    private long intervalMillis;
+
+    // 한 번에 확인할 파일 수
+    @Value("${config.scrub.sampleFiles:100}")
+    private int sampleFiles;
+
+    // 0이면 무제한
+    @Value("${config.scrub.bytesPerSec:8388608}")
+    private long bytesPerSec;
+
+    @Value("${config.scrub.segmentBytes:8388608}")
+    private long segmentBytes;
+
+    @Value("${config.scrub.parallelism:2}")
+    private int parallelism;
+
+    @Autowired
+    private FileSyncController fileSyncController;
+
+    @Autowired
+    private SyncStateIndex syncStateIndex;
+
+    @Autowired
+    private SourceRoots sourceRoots;
+
+    @Autowired
+    private SyncTargets syncTargets;
+
+    @Autowired
+    private OperationDispatcher operationDispatcher;
+
+    @Autowired
+    private DeltaUploader deltaUploader;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private SyncMetrics syncMetrics;
+
+    // 해시 조회를 지원하지 않는 서버 (다시 묻지 않는다)
+    private final Set<String> hashUnsupported = ConcurrentHashMap.newKeySet();
+
+    private ScheduledExecutorService scheduler;
+    private ExecutorService hashers;
+    // 다음 구간을 읽어도 되는 시각 (System.nanoTime 기준)
+    private long nextReadNanos;
+
+    @PostConstruct
+    public void init() {
+        if (segmentBytes <= 0 || segmentBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("알 수 없는 config.scrub.segmentBytes: " + segmentBytes);
+        }
+        if (!enabled || intervalMillis <= 0 || sampleFiles <= 0) {
+            return;
+        }
+        nextReadNanos = System.nanoTime();
+        AtomicInteger threadNumber = new AtomicInteger();
+        hashers = Executors.newFixedThreadPool(Math.max(1, parallelism), runnable -> {
+            Thread thread = new Thread(runnable, "scrub-hash-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "integrity-scrub");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::scrub, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            hashers.shutdownNow();
+        }
+    }
+
+    private void scrub() {
+        // 최초 동기화 중에는 인덱스가 아직 채워지는 중이고 디스크도 바쁘다
+        if (fileSyncController.state() != FileSyncController.State.WATCHING) {
+            return;
+        }
+        int checked = 0;
+        int repaired = 0;
+        for (String relativePath : sample()) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            try {
+                Boolean ok = verify(relativePath);
+                if (ok != null) {
+                    checked++;
+                    if (!ok) {
+                        repaired++;
+                    }
+                }
+            } catch (Exception e) {
+                log.warn("무결성 검사 중 오류 발생: {}: {}", relativePath, e.getMessage());
+            }
+        }
+        if (repaired > 0) {
+            log.warn("무결성 검사: 파일 {}개 확인, {}개는 서버 내용이 달라 다시 업로드", checked, repaired);
+        } else {
+            log.debug("무결성 검사: 파일 {}개 확인", checked);
+        }
+    }
+
+    // 인덱스에서 sampleFiles개를 고르게 뽑는다 (reservoir sampling)
+    private List<String> sample() {
+        List<String> sample = new ArrayList<>(sampleFiles);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int seen = 0;
+        for (String path : syncStateIndex.paths()) {
+            seen++;
+            if (sample.size() < sampleFiles) {
+                sample.add(path);
+            } else {
+                int slot = random.nextInt(seen);
+                if (slot < sampleFiles) {
+                    sample.set(slot, path);
+                }
+            }
+        }
+        return sample;
+    }
+
+    /**
+     * 파일 하나를 서버들과 비교한다. 모두 같으면 true, 다시 업로드를 제출했으면 false,
+     * 확인할 수 없으면(로컬이 바뀜, 서버가 지원하지 않음 등) null.
+     */
+    private Boolean verify(String relativePath) throws IOException {
+        SyncStateIndex.Entry entry = syncStateIndex.get(relativePath);
+        Path file;
+        try {
+            file = sourceRoots.resolve(relativePath);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            // 삭제는 감시가 처리한다
+            return null;
+        }
+        // 바뀐 파일은 감시/탐색이 업로드한다
+        if (entry == null || !attrs.isRegularFile() || !entry.matches(attrs.size(), attrs.lastModifiedTime().toMillis())) {
+            return null;
+        }
+
+        List<String> local = null;
+        boolean compared = false;
+        boolean repair = false;
+        for (SyncTarget target : syncTargets.targetsFor(relativePath)) {
+            FileDigest remote = remoteDigest(target, relativePath);
+            if (remote == null) {
+                continue;
+            }
+            if (local == null) {
+                local = SegmentHasher.toHex(SegmentHasher.hash(file, segmentBytes, hashers, this::pace));
+                BasicFileAttributes after = Files.readAttributes(file, BasicFileAttributes.class);
+                if (after.size() != attrs.size() || !after.lastModifiedTime().equals(attrs.lastModifiedTime())) {
+                    // 읽는 동안 바뀜
+                    return null;
+                }
+            }
+            compared = true;
+            String outcome = !remote.exists() ? MISSING
+                    : remote.size() != attrs.size() || !local.equals(remote.segments()) ? MISMATCH : OK;
+            syncMetrics.integrity("scrub", outcome);
+            if (!OK.equals(outcome)) {
+                log.warn("서버 내용이 로컬과 다름({}, {}): {}", target, outcome, relativePath);
+                deltaUploader.forget(target, relativePath);
+                repair = true;
+            }
+        }
+        if (!compared) {
+            return null;
+        }
+        if (repair) {
+            // 인덱스에서 지워야 업로드가 건너뛰지 않는다
+            syncStateIndex.markDeleted(relativePath);
+            operationDispatcher.submit(OperationType.UPLOAD_FILE, relativePath, UploadPriority.BULK);
+        }
+        return !repair;
+    }
+
+    // 서버의 구간별 체크섬, 지원하지 않거나 실패하면 null
+    private FileDigest remoteDigest(SyncTarget target, String relativePath) {
+        if (hashUnsupported.contains(target.address())) {
+            return null;
+        }
+        try {
+            String path = URLEncoder.encode(relativePath, StandardCharsets.UTF_8);
+            TransportResponse response = target.transport().get(
+                    target.url(HASH_URL) + "?path=" + path + "&segmentBytes=" + segmentBytes);
+            if (response.status() == 404) {
+                log.info("서버가 해시 조회를 지원하지 않음, 무결성 검사 생략: {}", target);
+                hashUnsupported.add(target.address());
+                return null;
+            }
+            if (!response.isOk()) {
+                log.warn("해시 조회 실패({}, {}): {}", target, response.status(), relativePath);
+                return null;
+            }
+            return objectMapper.readValue(response.body(), FileDigest.class);
+        } catch (IOException e) {
+            log.warn("해시 조회 중 오류 발생({}): {}: {}", target, relativePath, e.getMessage());
+            return null;
+        }
+    }
+
+    // 해시 스레드들이 합쳐서 bytesPerSec보다 빨리 읽지 않도록 구간마다 차례를 정해 기다린다
+    private void pace(long bytes) {
+        if (bytesPerSec <= 0) {
+            return;
+        }
+        long wait;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long start = nextReadNanos - now > 0 ? nextReadNanos : now;
+            nextReadNanos = start + bytes * 1_000_000_000L / bytesPerSec;
+            wait = start - now;
+        }
+        if (wait > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package FileSync.FindFileSync.integrity;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.LongConsumer;
+import java.util.zip.CRC32C;
+
+/**
+ * 파일을 고정 크기 구간으로 나눠 구간마다 CRC32C를 계산한다.
+ * <p>
+ * 구간은 메모리 매핑해서 힙으로 복사하지 않고, executor가 있으면 구간들을 병렬로 계산한다.
+ * 서버의 /file/hash도 같은 구간 크기로 계산하므로 내용이 다르면 어느 구간인지까지 알 수 있다.
+ * 빈 파일은 구간이 없다.
+ */
+public final class SegmentHasher {
+
+    private SegmentHasher() {
+    }
+
+    /**
+     * @param executor      구간을 계산할 스레드, null이면 호출 스레드에서 차례로 계산
+     * @param beforeSegment 구간을 읽기 전에 구간 바이트 수로 호출 (읽기 속도 제한용), null 가능
+     */
+    public static long[] hash(Path file, long segmentBytes, Executor executor, LongConsumer beforeSegment) throws IOException {
+        if (segmentBytes <= 0 || segmentBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("잘못된 구간 크기: " + segmentBytes);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long[] crcs = new long[(int) ((size + segmentBytes - 1) / segmentBytes)];
+            if (executor == null) {
+                for (int i = 0; i < crcs.length; i++) {
+                    crcs[i] = segment(channel, size, segmentBytes, i, beforeSegment);
+                }
+                return crcs;
+            }
+
+            List<CompletableFuture<Void>> futures = new ArrayList<>(crcs.length);
+            for (int i = 0; i < crcs.length; i++) {
+                int index = i;
+                futures.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        crcs[index] = segment(channel, size, segmentBytes, index, beforeSegment);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, executor));
+            }
+            try {
+                CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof UncheckedIOException io) {
+                    throw io.getCause();
+                }
+                throw e;
+            }
+            return crcs;
+        }
+    }
+
+    public static List<String> toHex(long[] crcs) {
+        List<String> hex = new ArrayList<>(crcs.length);
+        for (long crc : crcs) {
+            hex.add(Long.toHexString(crc));
+        }
+        return hex;
+    }
+
+    private static long segment(FileChannel channel, long size, long segmentBytes, int index,
+                                LongConsumer beforeSegment) throws IOException {
+        long offset = index * segmentBytes;
+        long length = Math.min(segmentBytes, size - offset);
+        if (beforeSegment != null) {
+            beforeSegment.accept(length);
+        }
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+        CRC32C crc = new CRC32C();
+        crc.update(buffer);
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,89 @@
+package FileSync.FindFileSync.journal;
+
+/**
+ * 연속 실패가 쌓이면 잠시 서버 요청을 멈추는 차단기.
+ * <p>
+ * CLOSED에서 {@code threshold}번 연속 실패하면 OPEN이 되고, 열린 시간이 지나면 HALF_OPEN에서
+ * 시험 요청 하나만 허용한다. 시험이 성공하면 CLOSED, 실패하면 열린 시간을 두 배로 늘려(최대값까지) 다시 OPEN.
+ */
+final class CircuitBreaker {
+
+    enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final int threshold;
+    private final long baseOpenMillis;
+    private final long maxOpenMillis;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openMillis;
+    private long openUntil;
+    private boolean probeInFlight;
+
+    CircuitBreaker(int threshold, long baseOpenMillis, long maxOpenMillis) {
+        this.threshold = threshold;
+        this.baseOpenMillis = baseOpenMillis;
+        this.maxOpenMillis = maxOpenMillis;
+        this.openMillis = baseOpenMillis;
+    }
+
+    /**
+     * 지금 요청해도 되면 0, 아니면 다시 시도하기까지 남은 시간(ms).
+     */
+    synchronized long tryAcquire(long now) {
+        switch (state) {
+            case CLOSED:
+                return 0;
+            case OPEN:
+                if (now < openUntil) {
+                    return openUntil - now;
+                }
+                state = State.HALF_OPEN;
+                probeInFlight = true;
+                return 0;
+            default:
+                if (!probeInFlight) {
+                    probeInFlight = true;
+                    return 0;
+                }
+                return baseOpenMillis;
+        }
+    }
+
+    // 닫힌 상태가 아니었다가 닫혔으면 true
+    synchronized boolean onSuccess() {
+        boolean recovered = state != State.CLOSED;
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        openMillis = baseOpenMillis;
+        probeInFlight = false;
+        return recovered;
+    }
+
+    // 이번 실패로 열렸으면 true
+    synchronized boolean onFailure(long now) {
+        if (state == State.HALF_OPEN) {
+            openMillis = Math.min(openMillis * 2, maxOpenMillis);
+            return open(now);
+        }
+        if (state == State.CLOSED && ++consecutiveFailures >= threshold) {
+            return open(now);
+        }
+        return false;
+    }
+
+    synchronized State state() {
+        return state;
+    }
+
+    private boolean open(long now) {
+        state = State.OPEN;
+        openUntil = now + openMillis;
+        probeInFlight = false;
+        return true;
+    }
+}
@@ -0,0 +1,11 @@
+package FileSync.FindFileSync.journal;
+
+/**
+ * 서버의 확인을 기다리는 작업.
+ *
+ * @param seq  저널 순번 (확인 기록에 사용)
+ * @param type 작업 종류
+ * @param path 동기화 루트 기준 상대 경로
+ */
+public record JournalOperation(long seq, OperationType type, String path) {
+}
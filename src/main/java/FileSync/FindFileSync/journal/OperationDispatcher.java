@@ -0,0 +1,336 @@
+package FileSync.FindFileSync.journal;
+
+import FileSync.FindFileSync.metrics.SyncMetrics;
+import FileSync.FindFileSync.scheduler.UploadPriority;
+import FileSync.FindFileSync.scheduler.UploadScheduler;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 저널에 기록된 작업을 {@link UploadScheduler}에서 실행하고, 실패하면 지수 백오프로 다시 시도한다.
+ * <p>
+ * 경로마다 최신 작업 하나만 남기고(새 작업이 오면 이전 작업은 확인 처리) 한 번에 하나씩 실행하므로
+ * 같은 경로의 업로드/삭제 순서가 뒤바뀌지 않는다. 서버 오류가 이어지면 {@link CircuitBreaker}가 열려
+ * 작업을 보류했다가, 시험 요청이 성공하면 보류한 작업을 한꺼번에 다시 보낸다.
+ */
+@Slf4j
+@Component
+public class OperationDispatcher {
+
+    @FunctionalInterface
+    public interface Handler {
+        /**
+         * 서버가 작업을 확인하면 true로 완료되는 future. 묶음 전송처럼 나중에 끝나는 작업은
+         * 완료되지 않은 future를 돌려주며, 그동안 업로드 스레드는 다른 작업을 실행한다.
+         */
+        CompletableFuture<Boolean> execute(JournalOperation op) throws Exception;
+    }
+
+    @Value("${config.journal.retryBaseMillis:1000}")
+    private long retryBaseMillis;
+
+    @Value("${config.journal.retryMaxMillis:300000}")
+    private long retryMaxMillis;
+
+    // 0이면 무제한
+    @Value("${config.journal.maxAttempts:20}")
+    private int maxAttempts;
+
+    @Value("${config.journal.breakerThreshold:5}")
+    private int breakerThreshold;
+
+    @Value("${config.journal.breakerOpenMillis:10000}")
+    private long breakerOpenMillis;
+
+    @Value("${config.journal.breakerMaxOpenMillis:300000}")
+    private long breakerMaxOpenMillis;
+
+    @Autowired
+    private OperationJournal journal;
+
+    @Autowired
+    private UploadScheduler uploadScheduler;
+
+    @Autowired
+    private SyncMetrics syncMetrics;
+
+    private final Object lock = new Object();
+    // 경로별 최신 작업
+    private final Map<String, JournalOperation> pending = new HashMap<>();
+    // 실행 중이거나 재시도/보류 중인 경로
+    private final Set<String> active = new HashSet<>();
+    // 경로별 업로드 스케줄러 우선순위 (최신 작업 기준)
+    private final Map<String, UploadPriority> priorities = new HashMap<>();
+    // 차단기가 열려 있어 기다리는 경로
+    private final ArrayDeque<String> parked = new ArrayDeque<>();
+    private final Map<Long, Integer> failures = new HashMap<>();
+    private boolean probeScheduled;
+
+    private CircuitBreaker breaker;
+    private ScheduledExecutorService retryTimer;
+
+    private volatile Handler handler = op -> CompletableFuture.completedFuture(false);
+
+    @PostConstruct
+    public void init() {
+        breaker = new CircuitBreaker(breakerThreshold, breakerOpenMillis, breakerMaxOpenMillis);
+        retryTimer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "journal-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        syncMetrics.gauge("filesync.journal.pending", "서버가 아직 확인하지 않은 작업 수", this, OperationDispatcher::pendingCount);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        retryTimer.shutdownNow();
+    }
+
+    public void setHandler(Handler handler) {
+        this.handler = handler;
+    }
+
+    // 이전 실행에서 확인되지 않은 작업을 다시 보낸다
+    public void replay() {
+        List<JournalOperation> ops = journal.pending();
+        if (ops.isEmpty()) {
+            return;
+        }
+        log.info("저널의 미확인 작업 {}개를 다시 보냅니다", ops.size());
+        for (JournalOperation op : ops) {
+            if (track(op, UploadPriority.NORMAL)) {
+                dispatch(op.path());
+            }
+        }
+    }
+
+    /**
+     * 작업을 저널에 기록하고 업로드 스케줄러에 제출한다. 대기열이 차면 기다릴 수 있으므로
+     * 업로드 스레드 안에서는 {@link #runNow}를 쓴다.
+     */
+    public void submit(OperationType type, String path) {
+        submit(type, path, UploadPriority.NORMAL);
+    }
+
+    // 재시도도 같은 우선순위로 제출된다
+    public void submit(OperationType type, String path, UploadPriority priority) {
+        if (track(journal.append(type, path), priority)) {
+            dispatch(path);
+        }
+    }
+
+    // 작업을 저널에 기록하고 호출 스레드에서 바로 실행 (재시도는 스케줄러로)
+    public void runNow(OperationType type, String path) {
+        if (track(journal.append(type, path), UploadPriority.NORMAL)) {
+            attempt(path);
+        }
+    }
+
+    public int pendingCount() {
+        synchronized (lock) {
+            return pending.size();
+        }
+    }
+
+    // 경로의 작업이 제출된 우선순위 (서버별 대기열로 나눠 보낼 때 그대로 쓴다)
+    public UploadPriority priorityOf(String path) {
+        synchronized (lock) {
+            return priorities.getOrDefault(path, UploadPriority.NORMAL);
+        }
+    }
+
+    // 경로의 최신 작업으로 등록. 이 경로를 실행 중인 작업이 없으면 true
+    private boolean track(JournalOperation op, UploadPriority priority) {
+        JournalOperation superseded;
+        boolean start;
+        synchronized (lock) {
+            superseded = pending.put(op.path(), op);
+            priorities.put(op.path(), priority);
+            if (superseded != null) {
+                failures.remove(superseded.seq());
+            }
+            start = active.add(op.path());
+        }
+        if (superseded != null) {
+            journal.ack(superseded.seq());
+        }
+        return start;
+    }
+
+    private void dispatch(String path) {
+        UploadPriority priority;
+        synchronized (lock) {
+            priority = priorities.getOrDefault(path, UploadPriority.NORMAL);
+        }
+        uploadScheduler.submit(priority, () -> {
+            attempt(path);
+            return true;
+        });
+    }
+
+    private void attempt(String path) {
+        while (true) {
+            JournalOperation op;
+            synchronized (lock) {
+                op = pending.get(path);
+                if (op == null) {
+                    active.remove(path);
+                    priorities.remove(path);
+                    return;
+                }
+                long wait = breaker.tryAcquire(System.currentTimeMillis());
+                if (wait > 0) {
+                    parked.add(path);
+                    scheduleProbe(wait);
+                    return;
+                }
+            }
+
+            CompletableFuture<Boolean> result;
+            try {
+                result = handler.execute(op);
+            } catch (Exception e) {
+                log.warn("작업 실행 중 오류 발생: {}", op, e);
+                result = CompletableFuture.completedFuture(false);
+            }
+
+            if (!result.isDone()) {
+                // 나중에 끝나는 작업: 완료되면 결과를 반영하고, 같은 경로의 다음 작업은 재시도 스레드에서 다시 제출
+                result.whenComplete((ok, error) -> {
+                    if (onResult(op, succeeded(op, ok, error)) && hasNext(path)) {
+                        retryTimer.execute(() -> dispatch(path));
+                    }
+                });
+                return;
+            }
+            if (!onResult(op, succeeded(op, result.getNow(false), null))) {
+                return;
+            }
+            // 실행하는 동안 같은 경로에 새 작업이 들어왔으면 이어서 실행
+        }
+    }
+
+    private boolean succeeded(JournalOperation op, Boolean ok, Throwable error) {
+        if (error != null) {
+            log.warn("작업 실행 중 오류 발생: {}", op, error);
+            return false;
+        }
+        return Boolean.TRUE.equals(ok);
+    }
+
+    // 실행 결과를 반영한다. 같은 경로의 다음 작업으로 넘어가도 되면 true (재시도를 예약했으면 false)
+    private boolean onResult(JournalOperation op, boolean ok) {
+        if (ok) {
+            if (breaker.onSuccess()) {
+                log.info("서버 연결 복구, 보류한 작업을 다시 보냅니다");
+                retryTimer.execute(this::releaseParked);
+            }
+            syncMetrics.operation(op.type().name(), "completed");
+            complete(op, true);
+            return true;
+        }
+
+        if (breaker.onFailure(System.currentTimeMillis())) {
+            log.warn("서버 요청이 계속 실패하여 잠시 작업을 보류합니다");
+        }
+        int count;
+        synchronized (lock) {
+            count = failures.merge(op.seq(), 1, Integer::sum);
+        }
+        if (maxAttempts > 0 && count >= maxAttempts) {
+            log.error("작업이 {}번 실패하여 포기합니다: {}", count, op);
+            syncMetrics.operation(op.type().name(), "abandoned");
+            complete(op, false);
+            return true;
+        }
+        long delay = backoff(count);
+        log.info("작업 실패, {}ms 후 다시 시도: {}", delay, op);
+        syncMetrics.operation(op.type().name(), "retried");
+        retryTimer.schedule(() -> dispatch(op.path()), delay, TimeUnit.MILLISECONDS);
+        return false;
+    }
+
+    // 같은 경로에 실행할 작업이 남아 있으면 true, 없으면 경로를 비활성으로 돌린다
+    private boolean hasNext(String path) {
+        synchronized (lock) {
+            if (pending.containsKey(path)) {
+                return true;
+            }
+            active.remove(path);
+            priorities.remove(path);
+            return false;
+        }
+    }
+
+    private void complete(JournalOperation op, boolean ok) {
+        boolean latest;
+        synchronized (lock) {
+            failures.remove(op.seq());
+            latest = pending.remove(op.path(), op);
+        }
+        journal.ack(op.seq());
+        // 실행하는 동안 새 작업이 들어왔으면 지연 시간은 그 작업이 끝날 때 기록
+        if (latest) {
+            if (ok) {
+                syncMetrics.changeAcknowledged(op.path());
+            } else {
+                syncMetrics.changeDropped(op.path());
+            }
+        }
+    }
+
+    // 지수 백오프 (최대값 제한, ±20% 흔들기)
+    private long backoff(int failureCount) {
+        long delay = retryBaseMillis << Math.min(failureCount - 1, 20);
+        delay = Math.min(delay, retryMaxMillis);
+        double jitter = 0.8 + ThreadLocalRandom.current().nextDouble() * 0.4;
+        return (long) (delay * jitter);
+    }
+
+    // lock 안에서 호출
+    private void scheduleProbe(long delay) {
+        if (probeScheduled) {
+            return;
+        }
+        probeScheduled = true;
+        retryTimer.schedule(() -> {
+            String path;
+            synchronized (lock) {
+                probeScheduled = false;
+                path = parked.poll();
+            }
+            if (path != null) {
+                dispatch(path);
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void releaseParked() {
+        List<String> paths;
+        synchronized (lock) {
+            paths = new ArrayList<>(parked);
+            parked.clear();
+        }
+        for (String path : paths) {
+            dispatch(path);
+        }
+    }
+}
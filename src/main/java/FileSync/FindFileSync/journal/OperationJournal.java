@@ -0,0 +1,287 @@
+package FileSync.FindFileSync.journal;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 서버로 보낼 작업의 write-ahead 저널.
+ * <p>
+ * 작업을 실행하기 전에 ENQUEUE 레코드를, 서버가 확인하면 ACK 레코드를 세그먼트 파일에 덧붙인다.
+ * 디스크 동기화(fsync)는 {@code config.journal.syncIntervalMillis}마다 묶어서 한다.
+ * 마지막으로 옮겨 쓴 뒤 늘어난 기록이 {@code config.journal.segmentBytes}와 옮겨 쓴 크기 중 큰 쪽을 넘으면
+ * 확인되지 않은 작업만 새 세그먼트에 옮겨 쓴다. 미확인 작업이 많아도 옮겨 쓰는 비용이 기록량에 비례하도록
+ * 하기 위함이다. 이전 세그먼트는 동기화 스레드가 지운다. 기동 시 확인되지 않은 작업을 그대로 돌려준다.
+ */
+@Slf4j
+@Component
+public class OperationJournal {
+
+    private static final int MAGIC = 0x46534a4c; // "FSJL"
+    private static final int VERSION = 1;
+
+    private static final byte RECORD_ENQUEUE = 1;
+    private static final byte RECORD_ACK = 2;
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    @Value("${config.journal.dir:sync-state/journal}")
+    private String journalDir;
+
+    @Value("${config.journal.segmentBytes:16777216}")
+    private long segmentBytes;
+
+    @Value("${config.journal.syncIntervalMillis:50}")
+    private long syncIntervalMillis;
+
+    // 확인되지 않은 작업 (순번 순)
+    private final Map<Long, JournalOperation> live = new LinkedHashMap<>();
+
+    private Path dir;
+    private long nextSeq = 1;
+    private int segmentNumber;
+    private FileChannel channel;
+    private DataOutputStream out;
+    // 현재 세그먼트에 미확인 작업을 옮겨 쓴 직후의 크기
+    private long compactedSize;
+    private boolean dirty;
+
+    private ScheduledExecutorService syncer;
+
+    @PostConstruct
+    public synchronized void load() throws IOException {
+        dir = Paths.get(journalDir).toAbsolutePath();
+        Files.createDirectories(dir);
+
+        List<Path> segments = listSegments();
+        for (Path segment : segments) {
+            readSegment(segment);
+        }
+        // 남은 작업만 새 세그먼트로 옮겨 쓰고 이전 세그먼트(잘린 꼬리 포함)는 지운다
+        openSegment(segments.isEmpty() ? 1 : segmentNumberOf(segments.get(segments.size() - 1)) + 1);
+        deleteOldSegments();
+
+        syncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "journal-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        syncer.scheduleWithFixedDelay(this::sync, syncIntervalMillis, syncIntervalMillis, TimeUnit.MILLISECONDS);
+        log.info("작업 저널 로드 완료: {} (미확인 작업 {}개)", dir, live.size());
+    }
+
+    @PreDestroy
+    public void close() {
+        synchronized (this) {
+            if (out != null) {
+                try {
+                    out.flush();
+                    channel.force(false);
+                    out.close();
+                } catch (IOException e) {
+                    log.error("작업 저널 닫기 실패: {}", dir, e);
+                }
+                out = null;
+            }
+        }
+        // 기록이 닫힌 뒤에 멈춰야 세그먼트 교체가 멈춘 스레드에 삭제를 맡기지 않는다.
+        // 맡긴 삭제는 끝까지 기다린다: 다음 기동이 세그먼트를 읽는 도중에 지우면 확인 기록만 사라질 수 있다
+        if (syncer != null) {
+            syncer.shutdown();
+            try {
+                if (!syncer.awaitTermination(10, TimeUnit.SECONDS)) {
+                    log.warn("이전 저널 세그먼트 삭제가 끝나지 않음: {}", dir);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // 확인되지 않은 작업 (기록된 순서)
+    public synchronized List<JournalOperation> pending() {
+        return new ArrayList<>(live.values());
+    }
+
+    public synchronized int size() {
+        return live.size();
+    }
+
+    public synchronized JournalOperation append(OperationType type, String path) {
+        JournalOperation op = new JournalOperation(nextSeq++, type, path);
+        live.put(op.seq(), op);
+        write(RECORD_ENQUEUE, op);
+        return op;
+    }
+
+    // 서버가 확인했거나 더 이상 필요 없는 작업
+    public synchronized void ack(long seq) {
+        JournalOperation op = live.remove(seq);
+        if (op != null) {
+            write(RECORD_ACK, op);
+        }
+    }
+
+    private void write(byte type, JournalOperation op) {
+        if (out == null) {
+            return;
+        }
+        try {
+            writeRecord(out, type, op);
+            dirty = true;
+            if (out.size() - compactedSize >= Math.max(segmentBytes, compactedSize)) {
+                openSegment(segmentNumber + 1);
+                syncer.execute(this::deleteOldSegments);
+            }
+        } catch (IOException e) {
+            // 저널 기록 실패는 재기동 시 재시도를 잃을 뿐이므로 동기화는 계속한다
+            log.error("작업 저널 기록 실패: {}", op, e);
+        }
+    }
+
+    // 버퍼를 내리고 fsync. 동기화 자체는 락 밖에서 해서 기록을 막지 않는다 (주기와 관계없이 바로 내려야 할 때도 호출)
+    public void sync() {
+        FileChannel target;
+        synchronized (this) {
+            if (!dirty || out == null) {
+                return;
+            }
+            try {
+                out.flush();
+            } catch (IOException e) {
+                log.error("작업 저널 flush 실패: {}", dir, e);
+                return;
+            }
+            dirty = false;
+            target = channel;
+        }
+        try {
+            target.force(false);
+        } catch (ClosedChannelException e) {
+            // 세그먼트 교체 중 닫힘 (미확인 작업은 새 세그먼트에 옮겨 써서 동기화됨)
+        } catch (IOException e) {
+            log.error("작업 저널 fsync 실패: {}", dir, e);
+        }
+    }
+
+    // 새 세그먼트를 열어 미확인 작업을 옮겨 쓰고 디스크에 내린다. 이전 세그먼트는 호출자가 지운다
+    private void openSegment(int number) throws IOException {
+        if (out != null) {
+            // 새 세그먼트에 미확인 작업이 모두 들어가므로 이전 세그먼트는 fsync하지 않는다
+            out.close();
+        }
+
+        Path segment = dir.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+        FileOutputStream fileOut = new FileOutputStream(segment.toFile());
+        channel = fileOut.getChannel();
+        out = new DataOutputStream(new BufferedOutputStream(fileOut, 64 * 1024));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        for (JournalOperation op : live.values()) {
+            writeRecord(out, RECORD_ENQUEUE, op);
+        }
+        out.flush();
+        channel.force(false);
+        segmentNumber = number;
+        compactedSize = out.size();
+        dirty = false;
+    }
+
+    // 현재 세그먼트보다 앞선 세그먼트를 지운다 (목록 읽기와 삭제는 락 밖에서)
+    private void deleteOldSegments() {
+        int current;
+        synchronized (this) {
+            current = segmentNumber;
+        }
+        try {
+            for (Path old : listSegments()) {
+                if (segmentNumberOf(old) < current) {
+                    Files.deleteIfExists(old);
+                }
+            }
+        } catch (IOException e) {
+            // 다음 교체나 기동 때 다시 지운다
+            log.warn("이전 저널 세그먼트 삭제 실패: {}: {}", dir, e.getMessage());
+        }
+    }
+
+    private void readSegment(Path segment) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment), 64 * 1024))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                log.warn("알 수 없는 저널 세그먼트 형식, 무시합니다: {}", segment);
+                return;
+            }
+            while (true) {
+                byte type = in.readByte();
+                long seq = in.readLong();
+                if (type == RECORD_ENQUEUE) {
+                    OperationType opType = OperationType.of(in.readByte());
+                    String path = in.readUTF();
+                    live.put(seq, new JournalOperation(seq, opType, path));
+                } else if (type == RECORD_ACK) {
+                    live.remove(seq);
+                } else {
+                    throw new IOException("잘못된 레코드 타입: " + type);
+                }
+                nextSeq = Math.max(nextSeq, seq + 1);
+            }
+        } catch (EOFException e) {
+            // 정상 종료 또는 마지막 레코드가 잘린 경우
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("저널 세그먼트 손상 감지, 이후 레코드를 버립니다: {}", segment, e);
+        }
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> {
+                        String name = p.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted((a, b) -> Integer.compare(segmentNumberOf(a), segmentNumberOf(b)))
+                    .toList();
+        }
+    }
+
+    private static int segmentNumberOf(Path segment) {
+        String name = segment.getFileName().toString();
+        try {
+            return Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static void writeRecord(DataOutputStream out, byte type, JournalOperation op) throws IOException {
+        out.writeByte(type);
+        out.writeLong(op.seq());
+        if (type == RECORD_ENQUEUE) {
+            out.writeByte(op.type().code());
+            out.writeUTF(op.path());
+        }
+    }
+}
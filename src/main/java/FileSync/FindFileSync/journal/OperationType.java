@@ -0,0 +1,30 @@
+package FileSync.FindFileSync.journal;
+
+/**
+ * 저널에 기록되는 서버 작업 종류.
+ */
+public enum OperationType {
+    UPLOAD_FILE(1),
+    DELETE_FILE(2),
+    UPLOAD_DIR(3),
+    DELETE_DIR(4);
+
+    private final byte code;
+
+    OperationType(int code) {
+        this.code = (byte) code;
+    }
+
+    byte code() {
+        return code;
+    }
+
+    static OperationType of(byte code) {
+        for (OperationType type : values()) {
+            if (type.code == code) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("알 수 없는 작업 타입: " + code);
+    }
+}
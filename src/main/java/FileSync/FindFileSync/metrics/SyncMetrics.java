@@ -0,0 +1,172 @@
+package FileSync.FindFileSync.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 동기화 파이프라인의 Micrometer 지표. Actuator의 {@code /actuator/metrics}, {@code /actuator/prometheus}로 본다.
+ * <ul>
+ *     <li>{@code filesync.watch.events} (kind): 감시 이벤트 수</li>
+ *     <li>{@code filesync.http.requests} (operation, outcome): 서버 요청 지연 히스토그램</li>
+ *     <li>{@code filesync.upload.bytes} (mode): 업로드한 파일 바이트 (rate로 초당 바이트)</li>
+ *     <li>{@code filesync.operations} (type, result): 저널 작업의 완료/재시도/포기 수</li>
+ *     <li>{@code filesync.integrity.checks} (stage, outcome): 업로드 검증/주기 검사에서 서버 내용을 확인한 결과</li>
+ *     <li>{@code filesync.scan.*}: 최초 동기화 탐색 진행 상황</li>
+ *     <li>{@code filesync.sync.lag}: 파일 변경 감지부터 서버 확인까지 걸린 시간</li>
+ *     <li>{@code filesync.target.queue} (target): 서버가 여러 대일 때 서버별 대기열 크기</li>
+ * </ul>
+ * 대기열 크기 같은 게이지는 각 컴포넌트가 {@link #gauge}로 등록한다.
+ */
+@Component
+public class SyncMetrics {
+
+    public static final String SUCCESS = "success";
+    public static final String FAILURE = "failure";
+    public static final String ERROR = "error";
+
+    // 지연 시간을 재려고 기억하는 경로 수 상한 (서버가 응답하지 않아도 메모리가 계속 늘지 않도록)
+    @Value("${config.metrics.maxTrackedChanges:100000}")
+    private int maxTrackedChanges;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    // 태그 조합마다 한 번만 만든다 (이벤트마다 빌더를 거치지 않도록)
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<String, Timer> requestTimers = new ConcurrentHashMap<>();
+
+    // 상대 경로 -> 처음 감지한 시각 (nanoTime)
+    private final Map<String, Long> detectedAt = new ConcurrentHashMap<>();
+    private Timer lag;
+
+    private final AtomicInteger scanRunning = new AtomicInteger();
+    private final AtomicLong scanDirectories = new AtomicLong();
+    private final AtomicLong scanFiles = new AtomicLong();
+    private final AtomicLong scanChanged = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        lag = Timer.builder("filesync.sync.lag")
+                .description("파일 변경 감지부터 서버 확인까지 걸린 시간")
+                .publishPercentileHistogram()
+                .maximumExpectedValue(Duration.ofHours(1))
+                .register(registry);
+        gauge("filesync.scan.running", "최초 동기화 탐색 중이면 1", scanRunning, AtomicInteger::get);
+        gauge("filesync.scan.directories", "이번 탐색에서 확인한 디렉토리 수", scanDirectories, AtomicLong::get);
+        gauge("filesync.scan.files", "이번 탐색에서 확인한 파일 수", scanFiles, AtomicLong::get);
+        gauge("filesync.scan.changed", "이번 탐색에서 서버와 비교할 파일 수", scanChanged, AtomicLong::get);
+        gauge("filesync.sync.tracked", "서버 확인을 기다리는 감지된 변경 수", detectedAt, Map::size);
+    }
+
+    // tags: 이름, 값 순서로 번갈아
+    public <T> void gauge(String name, String description, T target, ToDoubleFunction<T> value, String... tags) {
+        Gauge.builder(name, target, value).description(description).tags(tags).register(registry);
+    }
+
+    // 감시 이벤트 하나 (kind: ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE, OVERFLOW)
+    public void watchEvent(String kind) {
+        counter("filesync.watch.events", "kind", kind).increment();
+    }
+
+    /**
+     * 파일 변경을 감지한 시각을 기억한다. 같은 경로가 확인되기 전에 다시 바뀌면 처음 시각을 유지한다.
+     */
+    public void changeDetected(String relativePath) {
+        if (detectedAt.size() < maxTrackedChanges) {
+            detectedAt.putIfAbsent(relativePath, System.nanoTime());
+        }
+    }
+
+    // 서버가 경로의 최신 상태를 확인함
+    public void changeAcknowledged(String relativePath) {
+        Long start = detectedAt.remove(relativePath);
+        if (start != null) {
+            lag.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // 작업을 포기하거나 서버에 보낼 필요가 없어짐
+    public void changeDropped(String relativePath) {
+        detectedAt.remove(relativePath);
+    }
+
+    /**
+     * 서버 요청 하나의 지연 시간을 기록한다.
+     *
+     * @param startNanos 요청 전에 읽은 {@link System#nanoTime()}
+     * @param outcome    {@link #SUCCESS}, {@link #FAILURE}(서버 거절), {@link #ERROR}(예외)
+     */
+    public void request(String operation, String outcome, long startNanos) {
+        requestTimers.computeIfAbsent(operation + '|' + outcome, key -> Timer.builder("filesync.http.requests")
+                        .description("서버 요청 지연 시간")
+                        .tag("operation", operation)
+                        .tag("outcome", outcome)
+                        .publishPercentileHistogram()
+                        .register(registry))
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    // 업로드한 파일 크기 (mode: full, compressed, chunked, delta, dedup, batch)
+    public void uploaded(String mode, long bytes) {
+        counter("filesync.upload.bytes", "mode", mode).increment(bytes);
+    }
+
+    // 저널 작업 결과 (result: completed, retried, abandoned)
+    public void operation(String type, String result) {
+        counter("filesync.operations", "type", type, "result", result).increment();
+    }
+
+    // 내용 확인 결과 (stage: upload, scrub / outcome: ok, mismatch, missing)
+    public void integrity(String stage, String outcome) {
+        counter("filesync.integrity.checks", "stage", stage, "outcome", outcome).increment();
+    }
+
+    public void scanStarted() {
+        scanDirectories.set(0);
+        scanFiles.set(0);
+        scanChanged.set(0);
+        scanRunning.set(1);
+    }
+
+    public void scanDirectory() {
+        scanDirectories.incrementAndGet();
+    }
+
+    public void scanFile(boolean changed) {
+        scanFiles.incrementAndGet();
+        if (changed) {
+            scanChanged.incrementAndGet();
+        }
+    }
+
+    public void scanFinished() {
+        scanRunning.set(0);
+    }
+
+    private Counter counter(String name, String... tags) {
+        return counters.computeIfAbsent(name + '|' + String.join("|", tags), key -> {
+            Counter.Builder builder = Counter.builder(name);
+            for (int i = 0; i < tags.length; i += 2) {
+                builder.tag(tags[i], tags[i + 1]);
+            }
+            if (name.endsWith(".bytes")) {
+                builder.baseUnit("bytes");
+            }
+            return builder.register(registry);
+        });
+    }
+}
@@ -0,0 +1,167 @@
+package FileSync.FindFileSync.scan;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 디렉토리 트리를 work-stealing {@link ForkJoinPool}에서 병렬로 탐색한다.
+ * <p>
+ * 디렉토리마다 하나의 작업이 {@link Visitor#directory}(감시 등록 등)를 먼저 호출한 뒤 목록을 읽고,
+ * 하위 디렉토리는 새 작업으로 나눈다. 목록을 읽기 전에 감시가 등록되므로 탐색 중에 생긴 파일은
+ * 목록이나 감시 이벤트 중 적어도 한쪽에서 잡힌다. 심볼릭 링크는 따라가지 않는다.
+ * <p>
+ * 중단된 탐색을 이어 할 때는 {@link Visitor#resume}이 이전에 기록한 하위 디렉토리를 돌려주면
+ * 목록을 읽지 않고(파일마다 속성을 읽지 않고) 하위 디렉토리로 바로 내려간다.
+ */
+@Slf4j
+@Component
+public class ParallelTreeScanner {
+
+    public interface Visitor {
+        // 디렉토리 목록을 읽기 전에 호출된다. false면 하위를 탐색하지 않는다
+        boolean directory(Path dir, BasicFileAttributes attrs) throws IOException;
+
+        void file(Path file, BasicFileAttributes attrs);
+
+        // 이전 탐색에서 목록을 이미 처리한 디렉토리면 그때의 하위 디렉토리, 아니면 null (목록을 읽는다)
+        default List<Path> resume(Path dir, BasicFileAttributes attrs) {
+            return null;
+        }
+
+        // 목록을 끝까지 처리한 뒤 호출된다 (이어 한 디렉토리 포함). subdirs는 하위 디렉토리
+        default void listed(Path dir, BasicFileAttributes attrs, List<Path> subdirs) {
+        }
+    }
+
+    // 0이면 CPU 코어 수
+    @Value("${config.scan.parallelism:0}")
+    private int parallelism;
+
+    private ForkJoinPool pool;
+
+    @PostConstruct
+    public void init() {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        pool = new ForkJoinPool(threads, forkJoinPool -> {
+            var thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("tree-scan-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * root 아래를 모두 탐색할 때까지 기다린다. 개별 디렉토리 오류는 로그만 남기고 계속한다.
+     */
+    public void scan(Path root, Visitor visitor) throws IOException {
+        BasicFileAttributes attrs = Files.readAttributes(root, BasicFileAttributes.class);
+        long started = System.currentTimeMillis();
+        LongAdder directories = new LongAdder();
+        LongAdder files = new LongAdder();
+        pool.invoke(new DirectoryTask(root, attrs, visitor, directories, files));
+        log.info("디렉토리 탐색 완료: 디렉토리 {}개, 파일 {}개, {}ms",
+                directories.sum(), files.sum(), System.currentTimeMillis() - started);
+    }
+
+    private static final class DirectoryTask extends RecursiveAction {
+
+        private final Path dir;
+        private final BasicFileAttributes attrs;
+        private final Visitor visitor;
+        private final LongAdder directories;
+        private final LongAdder files;
+
+        DirectoryTask(Path dir, BasicFileAttributes attrs, Visitor visitor, LongAdder directories, LongAdder files) {
+            this.dir = dir;
+            this.attrs = attrs;
+            this.visitor = visitor;
+            this.directories = directories;
+            this.files = files;
+        }
+
+        @Override
+        protected void compute() {
+            directories.increment();
+            try {
+                if (!visitor.directory(dir, attrs)) {
+                    return;
+                }
+            } catch (IOException e) {
+                log.warn("디렉토리 처리 실패: {}: {}", dir, e.getMessage());
+            }
+
+            List<DirectoryTask> subtasks = new ArrayList<>();
+            List<Path> subdirs = new ArrayList<>();
+            List<Path> known = visitor.resume(dir, attrs);
+            if (known != null) {
+                // 이미 처리한 디렉토리: 기록된 하위 디렉토리만 확인
+                for (Path subdir : known) {
+                    BasicFileAttributes subdirAttrs;
+                    try {
+                        subdirAttrs = Files.readAttributes(subdir, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    } catch (IOException e) {
+                        continue;
+                    }
+                    if (subdirAttrs.isDirectory()) {
+                        fork(subdir, subdirAttrs, subtasks, subdirs);
+                    }
+                }
+                visitor.listed(dir, attrs, subdirs);
+            } else {
+                try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+                    for (Path entry : entries) {
+                        BasicFileAttributes entryAttrs;
+                        try {
+                            entryAttrs = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                        } catch (IOException e) {
+                            // 목록을 읽는 사이 삭제된 항목
+                            continue;
+                        }
+                        if (entryAttrs.isDirectory()) {
+                            // 목록을 다 읽기 전에 하위 디렉토리를 다른 스레드가 가져갈 수 있도록 바로 fork
+                            fork(entry, entryAttrs, subtasks, subdirs);
+                        } else if (entryAttrs.isRegularFile()) {
+                            files.increment();
+                            visitor.file(entry, entryAttrs);
+                        }
+                    }
+                    visitor.listed(dir, attrs, subdirs);
+                } catch (IOException e) {
+                    log.warn("디렉토리 목록 읽기 실패: {}: {}", dir, e.getMessage());
+                }
+            }
+            for (int i = subtasks.size() - 1; i >= 0; i--) {
+                subtasks.get(i).join();
+            }
+        }
+
+        private void fork(Path subdir, BasicFileAttributes subdirAttrs, List<DirectoryTask> subtasks, List<Path> subdirs) {
+            DirectoryTask subtask = new DirectoryTask(subdir, subdirAttrs, visitor, directories, files);
+            subtask.fork();
+            subtasks.add(subtask);
+            subdirs.add(subdir);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package FileSync.FindFileSync.scan;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 최초 동기화 탐색의 진행 상황을 주기적으로 디스크에 남겨, 탐색 중에 재기동하면 처음부터 다시 읽지 않게 한다.
+ * <p>
+ * 목록을 끝까지 처리한 디렉토리마다 수정 시각과 하위 디렉토리 이름을 기록한다. 다음 기동 때 수정 시각이 같은
+ * 디렉토리는 항목이 그대로이므로 목록과 파일 속성을 읽지 않고 기록된 하위 디렉토리로만 내려간다.
+ * 저장 전에 호출자가 넘긴 작업(매니페스트 비교, 인덱스/저널 기록)을 먼저 끝내므로 기록된 디렉토리의 파일은
+ * 업로드가 저널에 남았거나 서버에 있는 것으로 확인된 상태다. 탐색이 끝나면 파일을 지워서, 다음 기동은 다시 전체를 확인한다.
+ * <p>
+ * 이어 하기로 건너뛴 디렉토리 안에서 중단 중에 내용만 바뀌거나 삭제된 파일(디렉토리 수정 시각이 그대로)은 탐색에서 빠지므로,
+ * 호출자는 탐색이 끝난 뒤 그 디렉토리들을 인덱스와 다시 비교해야 한다 ({@code SubtreeRescanner#rescanDirectory}).
+ * {@code config.scan.checkpointMaxAgeMillis}보다 오래된 체크포인트는 쓰지 않는다.
+ */
+@Slf4j
+@Component
+public class ScanCheckpoint {
+
+    private static final int MAGIC = 0x46534350; // "FSCP"
+    private static final int VERSION = 1;
+
+    @Value("${config.scan.checkpointFile:sync-state/scan-checkpoint.dat}")
+    private String checkpointFile;
+
+    // 0이면 체크포인트를 쓰지 않는다
+    @Value("${config.scan.checkpointIntervalMillis:10000}")
+    private long intervalMillis;
+
+    @Value("${config.scan.checkpointMaxAgeMillis:3600000}")
+    private long maxAgeMillis;
+
+    /**
+     * 목록을 끝까지 처리한 디렉토리.
+     *
+     * @param mtime   처리를 시작할 때의 디렉토리 수정 시각
+     * @param subdirs 하위 디렉토리 이름
+     */
+    private record Listed(long mtime, String[] subdirs) {
+    }
+
+    private Path path;
+    // 이전 실행에서 남긴 기록 (읽기만 함)
+    private Map<String, Listed> previous = Map.of();
+    // 이번 탐색의 기록
+    private final Map<String, Listed> current = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService saver;
+
+    @PostConstruct
+    public void load() {
+        path = Paths.get(checkpointFile).toAbsolutePath();
+        if (intervalMillis <= 0 || !Files.exists(path)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 64 * 1024))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("알 수 없는 체크포인트 형식");
+            }
+            long savedAt = in.readLong();
+            if (System.currentTimeMillis() - savedAt > maxAgeMillis) {
+                log.info("오래된 탐색 체크포인트는 쓰지 않음: {}", path);
+                return;
+            }
+            int count = in.readInt();
+            Map<String, Listed> loaded = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                String dir = in.readUTF();
+                long mtime = in.readLong();
+                String[] subdirs = new String[in.readInt()];
+                for (int j = 0; j < subdirs.length; j++) {
+                    subdirs[j] = in.readUTF();
+                }
+                loaded.put(dir, new Listed(mtime, subdirs));
+            }
+            previous = loaded;
+            log.info("탐색 체크포인트 로드: 디렉토리 {}개는 이어서 처리", loaded.size());
+        } catch (IOException e) {
+            // 체크포인트가 없으면 처음부터 탐색할 뿐이다
+            log.warn("탐색 체크포인트를 읽을 수 없어 처음부터 탐색: {}: {}", path, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (saver != null) {
+            saver.shutdownNow();
+        }
+    }
+
+    /**
+     * 탐색을 시작하며 주기 저장을 켠다. 저장할 때마다 barrier를 먼저 실행한다.
+     */
+    public void begin(Runnable barrier) {
+        if (intervalMillis <= 0) {
+            return;
+        }
+        saver = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "scan-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        saver.scheduleWithFixedDelay(() -> save(barrier), intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 이전 탐색에서 처리한 디렉토리이고 그 뒤로 바뀌지 않았으면 하위 디렉토리, 아니면 null.
+     */
+    public List<Path> resumable(Path dir, long mtime) {
+        Listed listed = previous.get(dir.toString());
+        if (listed == null || listed.mtime() != mtime) {
+            return null;
+        }
+        List<Path> subdirs = new ArrayList<>(listed.subdirs().length);
+        for (String name : listed.subdirs()) {
+            subdirs.add(dir.resolve(name));
+        }
+        return subdirs;
+    }
+
+    // 디렉토리의 목록을 끝까지 처리함
+    public void listed(Path dir, long mtime, List<Path> subdirs) {
+        if (intervalMillis <= 0) {
+            return;
+        }
+        String[] names = new String[subdirs.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = subdirs.get(i).getFileName().toString();
+        }
+        current.put(dir.toString(), new Listed(mtime, names));
+    }
+
+    /**
+     * 탐색이 끝남: 주기 저장을 멈추고 체크포인트를 지운다.
+     */
+    public void finish() {
+        if (saver != null) {
+            saver.shutdownNow();
+            try {
+                // 저장 중이면 끝난 뒤에 지운다
+                saver.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            saver = null;
+        }
+        current.clear();
+        previous = Map.of();
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("탐색 체크포인트 삭제 실패: {}: {}", path, e.getMessage());
+        }
+    }
+
+    private void save(Runnable barrier) {
+        // barrier 전에 목록을 복사해야 복사한 디렉토리의 파일이 모두 barrier에서 처리된다
+        Map<String, Listed> snapshot = new HashMap<>(current);
+        barrier.run();
+        if (Thread.currentThread().isInterrupted()) {
+            // 종료 중: barrier가 끝나지 않았을 수 있으므로 이전 체크포인트를 그대로 둔다
+            return;
+        }
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(path.getParent());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 64 * 1024))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(System.currentTimeMillis());
+                out.writeInt(snapshot.size());
+                for (Map.Entry<String, Listed> e : snapshot.entrySet()) {
+                    out.writeUTF(e.getKey());
+                    out.writeLong(e.getValue().mtime());
+                    out.writeInt(e.getValue().subdirs().length);
+                    for (String name : e.getValue().subdirs()) {
+                        out.writeUTF(name);
+                    }
+                }
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.debug("탐색 체크포인트 저장: 디렉토리 {}개", snapshot.size());
+        } catch (IOException e) {
+            log.warn("탐색 체크포인트 저장 실패: {}: {}", path, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package FileSync.FindFileSync.scheduler;
+
+/**
+ * 업로드 대기열의 우선순위. 선언 순서대로 먼저 실행된다.
+ */
+public enum UploadPriority {
+    // 감시 중 변경된 작은 파일, 삭제, 이동
+    LIVE,
+    // 감시 중 변경된 큰 파일, 초기 스캔의 작은 파일
+    NORMAL,
+    // 초기 스캔의 큰 파일
+    BULK
+}
@@ -0,0 +1,350 @@
+package FileSync.FindFileSync.scheduler;
+
+import FileSync.FindFileSync.metrics.SyncMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 업로드/삭제 같은 블로킹 HTTP 작업을 실행하는 스케줄러.
+ * <p>
+ * {@code config.upload.threads}로 실행 방식을 고른다.
+ * <ul>
+ *     <li>{@code virtual} (기본): 작업마다 가상 스레드를 만들고, 동시 실행 수는 세마포어로
+ *     {@code config.upload.virtualConcurrency}개까지 제한한다. 느린 서버에 요청이 수천 개 걸려 있어도
+ *     스레드 풀을 조정할 필요가 없다.</li>
+ *     <li>{@code platform}: {@code config.upload.concurrency}개의 플랫폼 스레드 풀</li>
+ * </ul>
+ * 대기열 크기({@code config.upload.queueCapacity})가 제한되어 있고, 대기열이 가득 차면
+ * {@link #submit(Callable)} 호출자(디렉토리 탐색 스레드 등)가 자리가 날 때까지 기다린다.
+ * {@link #awaitIdle()}로 제출된 작업이 모두 끝날 때까지 기다릴 수 있다.
+ * <p>
+ * 대기 중인 작업은 {@link UploadPriority} 순서로, 같은 우선순위 안에서는 제출 순서로 실행되므로
+ * 초기 스캔의 큰 파일이 대기열을 채우고 있어도 감시 중 변경된 파일이 먼저 올라간다.
+ * <p>
+ * 서버가 여러 대면 서버마다 {@link #openLane}으로 따로 대기열을 열어, 느린 서버의 작업이 실행 자리와
+ * 대기열을 모두 차지해도 다른 서버의 작업은 계속 실행된다. 업로드 스레드나 타이머처럼 여러 서버의 작업을
+ * 나눠 넣는 스레드는 {@link #trySubmit}을 써서, 가득 찬 서버 대기열에서 기다리느라 다른 서버로의 전달까지 멈추지 않게 한다.
+ */
+@Slf4j
+@Component
+public class UploadScheduler {
+
+    @Value("${config.upload.threads:virtual}")
+    private String threads;
+
+    // platform 모드의 스레드 수
+    @Value("${config.upload.concurrency:8}")
+    private int concurrency;
+
+    // virtual 모드의 동시 실행 수
+    @Value("${config.upload.virtualConcurrency:512}")
+    private int virtualConcurrency;
+
+    @Value("${config.upload.queueCapacity:1000}")
+    private int queueCapacity;
+
+    // 이 크기 이상이면 큰 파일로 보고 우선순위를 낮춘다
+    @Value("${config.upload.largeFileBytes:16777216}")
+    private long largeFileBytes;
+
+    @Autowired
+    private SyncMetrics syncMetrics;
+
+    private boolean virtual;
+    private volatile boolean stopped;
+
+    // 기본 대기열과 서버별 대기열
+    private Lane defaultLane;
+    private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+
+    private final Object idleLock = new Object();
+    private int inFlight;
+
+    // 같은 우선순위 안에서 제출 순서를 지키기 위한 번호
+    private final AtomicLong sequence = new AtomicLong();
+
+    private record PrioritizedTask(UploadPriority priority, long seq, Runnable task)
+            implements Runnable, Comparable<PrioritizedTask> {
+
+        @Override
+        public void run() {
+            task.run();
+        }
+
+        @Override
+        public int compareTo(PrioritizedTask other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(seq, other.seq);
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        virtual = switch (threads.toLowerCase(Locale.ROOT)) {
+            case "virtual" -> true;
+            case "platform" -> false;
+            default -> throw new IllegalArgumentException("알 수 없는 config.upload.threads: " + threads);
+        };
+        int limit = virtual ? virtualConcurrency : concurrency;
+        defaultLane = new Lane("", limit);
+        syncMetrics.gauge("filesync.upload.queue", "실행 중이거나 대기 중인 업로드 작업 수", this, UploadScheduler::pending);
+        log.info("업로드 스케줄러 시작: {} 스레드, 동시 실행 {}, 대기열 {}", threads, limit, queueCapacity);
+    }
+
+    /**
+     * 이름이 name인 대기열을 연다. 동시 실행 수는 limit(0 이하면 기본 대기열과 같음), 대기열 크기는 기본 대기열과 같다.
+     */
+    public void openLane(String name, int limit) {
+        int laneLimit = limit > 0 ? limit : (virtual ? virtualConcurrency : concurrency);
+        lanes.computeIfAbsent(name, key -> {
+            Lane lane = new Lane("-" + key, laneLimit);
+            syncMetrics.gauge("filesync.target.queue", "서버별 대기열에서 실행 중이거나 대기 중인 작업 수", lane, Lane::pending, "target", key);
+            return lane;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        stopped = true;
+        defaultLane.shutdown();
+        lanes.values().forEach(Lane::shutdown);
+    }
+
+    /**
+     * 파일 하나를 올릴 때의 우선순위. 감시 중 변경(live)이 초기 스캔보다, 작은 파일이 큰 파일보다 먼저다.
+     */
+    public UploadPriority priorityFor(boolean live, long size) {
+        boolean large = size >= largeFileBytes;
+        if (live) {
+            return large ? UploadPriority.NORMAL : UploadPriority.LIVE;
+        }
+        return large ? UploadPriority.BULK : UploadPriority.NORMAL;
+    }
+
+    /**
+     * 작업을 {@link UploadPriority#NORMAL} 우선순위로 제출한다.
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> job) {
+        return submit(UploadPriority.NORMAL, job);
+    }
+
+    /**
+     * 작업을 기본 대기열에 제출한다. 대기열이 가득 차 있으면 자리가 날 때까지 호출 스레드를 막는다.
+     *
+     * @return 작업 결과 또는 예외로 완료되는 future
+     */
+    public <T> CompletableFuture<T> submit(UploadPriority priority, Callable<T> job) {
+        return submit(defaultLane, priority, job, true);
+    }
+
+    /**
+     * 작업을 {@link #openLane}으로 연 대기열에 제출한다. 그 대기열이 가득 차 있으면 자리가 날 때까지 호출 스레드를 막는다.
+     */
+    public <T> CompletableFuture<T> submit(String lane, UploadPriority priority, Callable<T> job) {
+        return submit(lane(lane), priority, job, true);
+    }
+
+    /**
+     * 작업을 기본 대기열에 제출하되, 대기열이 가득 차 있으면 기다리지 않고
+     * {@link RejectedExecutionException}으로 완료된 future를 돌려준다.
+     */
+    public <T> CompletableFuture<T> trySubmit(UploadPriority priority, Callable<T> job) {
+        return submit(defaultLane, priority, job, false);
+    }
+
+    /**
+     * 작업을 {@link #openLane}으로 연 대기열에 제출하되, 그 대기열이 가득 차 있으면 기다리지 않고
+     * {@link RejectedExecutionException}으로 완료된 future를 돌려준다.
+     */
+    public <T> CompletableFuture<T> trySubmit(String lane, UploadPriority priority, Callable<T> job) {
+        return submit(lane(lane), priority, job, false);
+    }
+
+    private Lane lane(String name) {
+        Lane lane = lanes.get(name);
+        if (lane == null) {
+            throw new IllegalArgumentException("열지 않은 대기열: " + name);
+        }
+        return lane;
+    }
+
+    private <T> CompletableFuture<T> submit(Lane lane, UploadPriority priority, Callable<T> job, boolean wait) {
+        if (wait) {
+            try {
+                lane.permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return CompletableFuture.failedFuture(e);
+            }
+        } else if (!lane.permits.tryAcquire()) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException("대기열이 가득 참: upload" + lane.suffix));
+        }
+
+        lane.pending.incrementAndGet();
+        synchronized (idleLock) {
+            inFlight++;
+        }
+
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            lane.execute(new PrioritizedTask(priority, sequence.incrementAndGet(), () -> {
+                try {
+                    future.complete(job.call());
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                } finally {
+                    release(lane);
+                }
+            }));
+        } catch (RuntimeException e) {
+            // 종료 중인 경우
+            release(lane);
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * 지금까지 제출된 작업이 (모든 대기열에서) 끝날 때까지 기다린다.
+     */
+    public void awaitIdle() throws InterruptedException {
+        synchronized (idleLock) {
+            while (inFlight > 0) {
+                idleLock.wait();
+            }
+        }
+    }
+
+    // 실행 중이거나 대기 중인 작업 수
+    public int pending() {
+        synchronized (idleLock) {
+            return inFlight;
+        }
+    }
+
+    private void release(Lane lane) {
+        lane.permits.release();
+        lane.pending.decrementAndGet();
+        synchronized (idleLock) {
+            if (--inFlight == 0) {
+                idleLock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * 대기열 하나. 실행 중 + 대기 중인 작업 수를 permits로, 동시 실행 수를 스레드 풀 또는 세마포어로 제한한다.
+     */
+    private final class Lane {
+
+        // 스레드 이름 뒤에 붙는 부분 (기본 대기열은 빈 문자열)
+        private final String suffix;
+        private final Semaphore permits;
+        private final AtomicInteger pending = new AtomicInteger();
+
+        // platform 모드
+        private ThreadPoolExecutor executor;
+
+        // virtual 모드: 분배 스레드가 실행 허가를 얻은 뒤 우선순위 대기열에서 꺼내 가상 스레드로 실행
+        private PriorityBlockingQueue<PrioritizedTask> queue;
+        private Semaphore running;
+        private Thread dispatcher;
+        private final Set<Thread> workers = ConcurrentHashMap.newKeySet();
+
+        Lane(String suffix, int limit) {
+            this.suffix = suffix;
+            permits = new Semaphore(limit + queueCapacity);
+            if (virtual) {
+                startVirtual(limit);
+            } else {
+                startPlatform(limit);
+            }
+        }
+
+        private void startPlatform(int limit) {
+            AtomicInteger threadNumber = new AtomicInteger();
+            ThreadFactory threadFactory = runnable -> {
+                Thread thread = new Thread(runnable, "upload" + suffix + "-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+            // 대기열 크기는 permits가 제한하므로 큐 자체는 제한하지 않는다
+            executor = new ThreadPoolExecutor(limit, limit, 60, TimeUnit.SECONDS,
+                    new PriorityBlockingQueue<>(), threadFactory);
+            executor.allowCoreThreadTimeOut(true);
+        }
+
+        private void startVirtual(int limit) {
+            queue = new PriorityBlockingQueue<>();
+            running = new Semaphore(limit);
+            dispatcher = new Thread(this::dispatchLoop, "upload-dispatch" + suffix);
+            dispatcher.setDaemon(true);
+            dispatcher.start();
+        }
+
+        int pending() {
+            return pending.get();
+        }
+
+        void shutdown() {
+            if (executor != null) {
+                executor.shutdownNow();
+            } else {
+                dispatcher.interrupt();
+                workers.forEach(Thread::interrupt);
+            }
+        }
+
+        // 실행 자리가 나면 그때 가장 앞선 작업을 꺼내므로 우선순위가 지켜진다
+        private void dispatchLoop() {
+            Thread.Builder builder = Thread.ofVirtual().name("upload" + suffix + "-", 1);
+            try {
+                while (!stopped) {
+                    running.acquire();
+                    PrioritizedTask task = queue.take();
+                    Thread worker = builder.unstarted(() -> {
+                        try {
+                            task.run();
+                        } finally {
+                            workers.remove(Thread.currentThread());
+                            running.release();
+                        }
+                    });
+                    workers.add(worker);
+                    worker.start();
+                }
+            } catch (InterruptedException e) {
+                // 종료
+            }
+        }
+
+        void execute(PrioritizedTask task) {
+            if (executor != null) {
+                executor.execute(task);
+            } else if (stopped) {
+                throw new RejectedExecutionException("업로드 스케줄러가 종료됨");
+            } else {
+                queue.add(task);
+            }
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package FileSync.FindFileSync.service;
+
+import FileSync.FindFileSync.dto.ChunkSession;
+import FileSync.FindFileSync.target.SyncTarget;
+import FileSync.FindFileSync.transport.TransportResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32C;
+
+/**
+ * 큰 파일을 고정 크기 청크로 나눠 올리는 재개 가능한 업로드.
+ * <p>
+ * 세션 시작 시 서버가 이미 받은 청크 목록을 돌려주므로, 연결이 끊기거나 클라이언트가 재시작되어도
+ * 남은 청크만 보낸다. 청크마다 CRC32C를 함께 보내 서버가 검증한다.
+ * {@code config.chunk.parallelism}이 1보다 크면 같은 파일의 청크를 병렬로 보낸다.
+ */
+@Slf4j
+@Service
+public class ChunkedUploader {
+
+    public enum Result {
+        OK,
+        FAILED,
+        // 서버가 청크 업로드 API를 지원하지 않음
+        UNSUPPORTED
+    }
+
+    @Value("${config.chunk.sizeBytes:8388608}")
+    private long chunkSize;
+
+    @Value("${config.chunk.parallelism:4}")
+    private int parallelism;
+
+    @Value("${config.chunk.maxRetries:3}")
+    private int maxRetries;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private static final String CHUNK_INIT_URL = "/file/chunk/init";
+    private static final String CHUNK_URL = "/file/chunk";
+    private static final String CHUNK_COMPLETE_URL = "/file/chunk/complete";
+
+    // 청크 업로드 API를 지원하지 않는 서버 (다시 시도하지 않는다)
+    private final Set<String> unsupported = ConcurrentHashMap.newKeySet();
+
+    // 서버별 청크 전송 스레드 (느린 서버가 다른 서버의 청크 전송 자리를 차지하지 않도록)
+    private final Map<String, ExecutorService> chunkExecutors = new ConcurrentHashMap<>();
+    private final AtomicInteger threadNumber = new AtomicInteger();
+
+    @PreDestroy
+    public void shutdown() {
+        chunkExecutors.values().forEach(ExecutorService::shutdownNow);
+    }
+
+    private ExecutorService executorFor(SyncTarget target) {
+        return chunkExecutors.computeIfAbsent(target.address(), address -> Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "chunk-upload-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    public Result upload(SyncTarget target, Path file, String relativePath) {
+        if (unsupported.contains(target.address())) {
+            return Result.UNSUPPORTED;
+        }
+        try {
+            long size = Files.size(file);
+            long lastModified = Files.getLastModifiedTime(file).toMillis();
+
+            TransportResponse initResponse = target.transport().postJson(target.url(CHUNK_INIT_URL), Map.of(
+                    "path", relativePath,
+                    "size", size,
+                    "lastModified", lastModified,
+                    "chunkSize", chunkSize));
+            if (initResponse.status() == 404) {
+                log.info("서버가 청크 업로드를 지원하지 않음, 단일 요청으로 전송: {}", target);
+                unsupported.add(target.address());
+                return Result.UNSUPPORTED;
+            }
+            if (!initResponse.isOk()) {
+                log.warn("청크 업로드 세션 시작 실패: {} ({})", relativePath, initResponse.status());
+                return Result.FAILED;
+            }
+
+            ChunkSession session = objectMapper.readValue(initResponse.body(), ChunkSession.class);
+            Set<Long> received = new HashSet<>(session.received());
+            if (!received.isEmpty()) {
+                log.info("청크 업로드 재개: {} ({}개 청크 이미 전송됨)", relativePath, received.size());
+            }
+
+            List<CompletableFuture<Boolean>> chunks = new ArrayList<>();
+            ExecutorService chunkExecutor = executorFor(target);
+            for (long offset = 0; offset < size; offset += chunkSize) {
+                if (received.contains(offset)) {
+                    continue;
+                }
+                long chunkOffset = offset;
+                long length = Math.min(chunkSize, size - offset);
+                chunks.add(CompletableFuture.supplyAsync(
+                        () -> sendChunk(target, file, session.uploadId(), chunkOffset, length), chunkExecutor));
+            }
+
+            boolean allSent = true;
+            for (CompletableFuture<Boolean> chunk : chunks) {
+                allSent &= chunk.join();
+            }
+            if (!allSent) {
+                // 받은 청크는 서버에 남아 있으므로 다음 시도에서 이어서 보낸다
+                return Result.FAILED;
+            }
+
+            if (Files.getLastModifiedTime(file).toMillis() != lastModified || Files.size(file) != size) {
+                log.warn("청크 업로드 중 파일이 변경됨, 완료하지 않음: {}", relativePath);
+                return Result.FAILED;
+            }
+
+            TransportResponse completeResponse = target.transport().postJson(target.url(CHUNK_COMPLETE_URL), Map.of("uploadId", session.uploadId()));
+            if (!completeResponse.isOk()) {
+                log.warn("청크 업로드 완료 실패: {} ({})", relativePath, completeResponse.body());
+                return Result.FAILED;
+            }
+            return Result.OK;
+        } catch (IOException e) {
+            log.error("청크 업로드 중 오류 발생: {}", relativePath, e);
+            return Result.FAILED;
+        }
+    }
+
+    private boolean sendChunk(SyncTarget target, Path file, String uploadId, long offset, long length) {
+        for (int attempt = 0; attempt <= maxRetries; attempt++) {
+            try {
+                String url = target.url(CHUNK_URL) + "?uploadId=" + URLEncoder.encode(uploadId, StandardCharsets.UTF_8)
+                        + "&offset=" + offset + "&crc32c=" + crc32c(file, offset, length);
+                TransportResponse response = target.transport().postFileRange(url, file, offset, length);
+                if (response.isOk()) {
+                    return true;
+                }
+                log.warn("청크 전송 실패: {} @{} ({})", file, offset, response.status());
+            } catch (IOException e) {
+                log.warn("청크 전송 중 오류 발생: {} @{}: {}", file, offset, e.getMessage());
+            }
+
+            try {
+                Thread.sleep(500L << attempt);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return false;
+    }
+
+    // 힙 복사 없이 매핑된 버퍼로 청크의 CRC32C 계산
+    private static String crc32c(Path file, long offset, long length) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+            CRC32C crc = new CRC32C();
+            crc.update(buffer);
+            return Long.toHexString(crc.getValue());
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package FileSync.FindFileSync.service;
+
+import FileSync.FindFileSync.dedup.ContentHash;
+import FileSync.FindFileSync.dedup.ContentHasher;
+import FileSync.FindFileSync.target.SyncTarget;
+import FileSync.FindFileSync.transport.TransportResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 서버에 같은 내용이 이미 있으면 바이트를 보내지 않고 경로만 그 내용에 연결한다.
+ * <p>
+ * 해시를 보내 서버가 내용을 찾으면 그 자리에서 연결까지 하므로 중복 파일은 요청 하나로 끝난다.
+ * 해시는 파일 크기/수정 시각과 함께 기억해 두어, 같은 파일을 여러 서버에 올릴 때는 (동시에 올려도) 한 번만 계산한다.
+ */
+@Slf4j
+@Service
+public class DedupUploader {
+
+    @Value("${config.dedup.enabled:true}")
+    private boolean enabled;
+
+    // 이보다 작은 파일은 해시 요청이 업로드와 비용이 비슷하므로 바로 업로드
+    @Value("${config.dedup.minSizeBytes:16384}")
+    private long minSize;
+
+    @Autowired
+    private ContentHasher contentHasher;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private static final String CONTENT_LINK_URL = "/file/content/link";
+
+    // 기억해 둘 최근 해시 수 (같은 파일을 서버 여러 대에 올리는 동안만 필요하다)
+    private static final int RECENT_HASHES = 1024;
+
+    // 내용 연결 API를 지원하지 않는 서버 (다시 시도하지 않는다)
+    private final Set<String> unsupported = ConcurrentHashMap.newKeySet();
+
+    // 상대 경로별 최근 해시 (계산 중이면 아직 완료되지 않은 future, 접근 순서로 오래된 것부터 버림)
+    private final Map<String, Recent> recent = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Recent> eldest) {
+            return size() > RECENT_HASHES;
+        }
+    };
+
+    private record Recent(long size, long lastModified, CompletableFuture<ContentHash> hash) {
+    }
+
+    /**
+     * 서버에 같은 내용이 있어 경로를 연결했으면 true. false면 파일을 직접 올려야 한다.
+     */
+    public boolean link(SyncTarget target, Path file, String relativePath) {
+        if (!enabled || unsupported.contains(target.address())) {
+            return false;
+        }
+        CompletableFuture<ContentHash> pending = null;
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+            if (attrs.size() < minSize) {
+                return false;
+            }
+            long lastModified = attrs.lastModifiedTime().toMillis();
+            pending = hash(file, relativePath, attrs.size(), lastModified);
+            ContentHash hash = pending.get();
+            // 해시하는 동안 바뀐 파일은 해시를 믿을 수 없음
+            if (Files.getLastModifiedTime(file).toMillis() != lastModified || hash.size() != attrs.size()) {
+                forget(relativePath, pending);
+                return false;
+            }
+
+            Map<String, Object> body = new HashMap<>();
+            body.put("path", relativePath);
+            body.put("lastModified", lastModified);
+            body.put("size", hash.size());
+            body.put("fast", hash.fastKey());
+            body.put("strong", hash.sha256());
+            TransportResponse response = target.transport().postJson(target.url(CONTENT_LINK_URL), body);
+
+            if (response.status() == 404) {
+                log.info("서버가 내용 연결을 지원하지 않음, 전체 업로드만 사용: {}", target);
+                unsupported.add(target.address());
+                return false;
+            }
+            if (!response.isOk()) {
+                log.warn("내용 연결 요청 실패({}, {}): {}", target, response.status(), file);
+                return false;
+            }
+            boolean linked = objectMapper.readTree(response.body()).path("linked").asBoolean();
+            if (linked) {
+                log.debug("같은 내용이 서버에 있어 연결만 함: {}", file);
+            }
+            return linked;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            forget(relativePath, pending);
+            log.warn("내용 해시 실패: {}: {}", file, e.getCause().getMessage());
+        } catch (Exception e) {
+            log.warn("내용 연결 중 오류 발생: {}: {}", file, e.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * 업로드하면서 계산해 둔 내용 해시(SHA-256, 없으면 빠른 해시). 크기와 수정 시각이 같고 계산이 끝났을 때만 돌려주고, 아니면 null.
+     * 동기화 상태 인덱스에 업로드한 내용의 해시로 남길 때 쓴다.
+     */
+    public String knownHash(String relativePath, long size, long lastModified) {
+        CompletableFuture<ContentHash> future;
+        synchronized (recent) {
+            Recent entry = recent.get(relativePath);
+            if (entry == null || entry.size() != size || entry.lastModified() != lastModified) {
+                return null;
+            }
+            future = entry.hash();
+        }
+        if (!future.isDone() || future.isCompletedExceptionally()) {
+            return null;
+        }
+        ContentHash hash = future.join();
+        return hash.hasStrong() ? hash.sha256() : hash.fastKey();
+    }
+
+    // 크기와 수정 시각이 같으면 기억해 둔(또는 계산 중인) 해시를 같이 쓰고, 아니면 새로 계산한다
+    private CompletableFuture<ContentHash> hash(Path file, String relativePath, long size, long lastModified) {
+        synchronized (recent) {
+            Recent entry = recent.get(relativePath);
+            if (entry != null && entry.size() == size && entry.lastModified() == lastModified) {
+                return entry.hash();
+            }
+            CompletableFuture<ContentHash> hash = contentHasher.hash(file);
+            recent.put(relativePath, new Recent(size, lastModified, hash));
+            return hash;
+        }
+    }
+
+    // 그사이 다른 내용의 해시로 바뀌었으면 그대로 둔다
+    private void forget(String relativePath, CompletableFuture<ContentHash> hash) {
+        synchronized (recent) {
+            Recent entry = recent.get(relativePath);
+            if (entry != null && entry.hash() == hash) {
+                recent.remove(relativePath);
+            }
+        }
+    }
+}
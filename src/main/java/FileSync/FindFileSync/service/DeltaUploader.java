@@ -0,0 +1,283 @@
+package FileSync.FindFileSync.service;
+
+import FileSync.FindFileSync.delta.DeltaEncoder;
+import FileSync.FindFileSync.delta.FileSignature;
+import FileSync.FindFileSync.delta.SignatureStore;
+import FileSync.FindFileSync.delta.SigningInputStream;
+import FileSync.FindFileSync.target.SyncTarget;
+import FileSync.FindFileSync.target.SyncTargets;
+import FileSync.FindFileSync.transport.TransportResponse;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 수정된 큰 파일을 rsync 방식의 델타로 보낸다.
+ * <p>
+ * 마지막으로 올린 내용의 블록 서명({@link SignatureStore})과 새 내용을 비교해서
+ * 바뀐 부분만 리터럴로, 나머지는 블록 참조로 보낸다. 서버 파일이 서명의 기준과 다르면(409)
+ * 서명을 버리고 전체 업로드로 돌아간다. 서버가 여러 대면 서버마다 받은 내용이 다를 수 있으므로 서명도 서버별로 둔다.
+ * <p>
+ * 전체 업로드 뒤의 새 서명은 보내는 내용을 {@link SignatureTap}으로 읽으면서 만들고, 최근 서명은 파일 크기/수정 시각과 함께
+ * 기억해 두어 같은 파일을 다른 서버에 올릴 때는 파일을 다시 읽지 않는다.
+ */
+@Slf4j
+@Service
+public class DeltaUploader {
+
+    public enum Result {
+        OK,
+        FAILED,
+        // 델타를 쓸 수 없거나 이득이 없음: 전체 업로드 필요
+        NOT_APPLICABLE
+    }
+
+    @Value("${config.delta.enabled:true}")
+    private boolean enabled;
+
+    @Value("${config.delta.minSizeBytes:4194304}")
+    private long minSize;
+
+    @Value("${config.delta.blockSize:16384}")
+    private int blockSize;
+
+    // 델타 크기가 파일 크기의 이 비율을 넘으면 전체 업로드
+    @Value("${config.delta.maxRatio:0.8}")
+    private double maxRatio;
+
+    @Value("${config.delta.tempDir:sync-state/tmp}")
+    private String tempDir;
+
+    @Autowired
+    private SignatureStore signatureStore;
+
+    @Autowired
+    private SyncTargets syncTargets;
+
+    private static final String DELTA_URL = "/file/delta";
+
+    // 기억해 둘 최근 서명의 블록 수 합 (16KB 블록이면 약 16GB 분량, 서명으로는 약 20MB)
+    private static final long RECENT_MAX_BLOCKS = 1 << 20;
+
+    // 델타 API를 지원하지 않는 서버 (다시 시도하지 않는다)
+    private final Set<String> unsupported = ConcurrentHashMap.newKeySet();
+
+    // 상대 경로별 최근 서명 (접근 순서, recentBlocks 기준으로 오래된 것부터 버림)
+    private final Map<String, Recent> recent = new LinkedHashMap<>(16, 0.75f, true);
+    private long recentBlocks;
+
+    private record Recent(long size, long lastModified, FileSignature signature) {
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        Files.createDirectories(Paths.get(tempDir));
+    }
+
+    public Result upload(SyncTarget target, Path file, String relativePath) {
+        if (!enabled || unsupported.contains(target.address())) {
+            return Result.NOT_APPLICABLE;
+        }
+        Path deltaFile = null;
+        try {
+            long size = Files.size(file);
+            if (size < minSize) {
+                return Result.NOT_APPLICABLE;
+            }
+            String key = signatureKey(target, relativePath);
+            FileSignature base = signatureStore.load(key);
+            if (base == null) {
+                return Result.NOT_APPLICABLE;
+            }
+            long lastModified = Files.getLastModifiedTime(file).toMillis();
+
+            DeltaEncoder encoder = new DeltaEncoder(base);
+            deltaFile = Files.createTempFile(Paths.get(tempDir), "delta-", ".bin");
+            FileSignature uploaded;
+            try (InputStream in = Files.newInputStream(file);
+                 OutputStream out = new BufferedOutputStream(Files.newOutputStream(deltaFile), 256 * 1024)) {
+                uploaded = encoder.encode(in, out);
+            }
+
+            long deltaSize = Files.size(deltaFile);
+            if (deltaSize > uploaded.fileSize() * maxRatio) {
+                log.debug("델타 이득 없음, 전체 업로드: {} ({} / {} bytes)", relativePath, deltaSize, uploaded.fileSize());
+                return Result.NOT_APPLICABLE;
+            }
+
+            String url = target.url(DELTA_URL) + "?path=" + URLEncoder.encode(relativePath, StandardCharsets.UTF_8)
+                    + "&lastModified=" + lastModified;
+            TransportResponse response = target.transport().postFileRange(url, deltaFile, 0, deltaSize);
+
+            if (response.isOk()) {
+                signatureStore.save(key, uploaded);
+                log.debug("델타 업로드 성공: {} (전송 {} bytes, 재사용 {} bytes)", relativePath, deltaSize, encoder.copiedBytes());
+                return Result.OK;
+            }
+            if (response.status() == 404) {
+                log.info("서버가 델타 업로드를 지원하지 않음, 전체 업로드 사용: {}", target);
+                unsupported.add(target.address());
+                return Result.NOT_APPLICABLE;
+            }
+            if (response.status() == 409) {
+                // 서버 파일이 서명의 기준과 다름
+                signatureStore.remove(key);
+                return Result.NOT_APPLICABLE;
+            }
+            log.warn("델타 업로드 실패({}): {} ({})", target, relativePath, response.status());
+            return Result.FAILED;
+        } catch (IOException e) {
+            log.error("델타 업로드 중 오류 발생: {}", relativePath, e);
+            return Result.FAILED;
+        } finally {
+            if (deltaFile != null) {
+                try {
+                    Files.deleteIfExists(deltaFile);
+                } catch (IOException e) {
+                    log.warn("델타 임시 파일 삭제 실패: {}", deltaFile, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * 전체 업로드로 보낼 내용에서 서명을 같이 만들 준비를 한다. 이 서버에 서명이 필요 없거나
+     * 같은 내용의 서명을 이미 기억하고 있으면 {@link SignatureTap#wrap}은 스트림을 그대로 돌려준다.
+     */
+    public SignatureTap tap(SyncTarget target, Path file, String relativePath) throws IOException {
+        if (!enabled || unsupported.contains(target.address())) {
+            return new SignatureTap(0, 0, false);
+        }
+        BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        long lastModified = attrs.lastModifiedTime().toMillis();
+        boolean needed = attrs.size() >= minSize && recent(relativePath, attrs.size(), lastModified) == null;
+        return new SignatureTap(blockSize, lastModified, needed);
+    }
+
+    // 전체 업로드가 끝난 파일의 서명을 다음 델타의 기준으로 저장 (보내면서 만든 서명이 없을 때)
+    public void recordSignature(SyncTarget target, Path file, String relativePath) {
+        recordSignature(target, file, relativePath, null);
+    }
+
+    /**
+     * 전체 업로드가 끝난 파일의 서명을 다음 델타의 기준으로 저장한다.
+     * tap으로 보낸 내용을 끝까지 읽었으면 그 서명을, 아니면 기억해 둔 서명을 쓰고, 둘 다 없을 때만 파일을 다시 읽는다.
+     */
+    public void recordSignature(SyncTarget target, Path file, String relativePath, SignatureTap tap) {
+        if (!enabled || unsupported.contains(target.address())) {
+            return;
+        }
+        String key = signatureKey(target, relativePath);
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+            if (attrs.size() < minSize) {
+                return;
+            }
+            long lastModified = attrs.lastModifiedTime().toMillis();
+            FileSignature signature = tap != null ? tap.signature() : null;
+            if (signature != null) {
+                // 서버가 받은 내용 그대로의 서명, 보내는 동안 파일이 바뀌지 않았을 때만 다른 서버에도 쓴다
+                if (tap.lastModified == lastModified && signature.fileSize() == attrs.size()) {
+                    remember(relativePath, lastModified, signature);
+                }
+            } else {
+                signature = recent(relativePath, attrs.size(), lastModified);
+                if (signature == null) {
+                    signature = FileSignature.compute(file, blockSize);
+                    remember(relativePath, lastModified, signature);
+                }
+            }
+            signatureStore.save(key, signature);
+        } catch (IOException e) {
+            log.warn("서명 생성 실패: {}", relativePath, e);
+            signatureStore.remove(key);
+        }
+    }
+
+    // 크기와 수정 시각이 같을 때만 기억해 둔 서명을 돌려준다
+    private FileSignature recent(String relativePath, long size, long lastModified) {
+        synchronized (recent) {
+            Recent entry = recent.get(relativePath);
+            return entry != null && entry.size() == size && entry.lastModified() == lastModified ? entry.signature() : null;
+        }
+    }
+
+    private void remember(String relativePath, long lastModified, FileSignature signature) {
+        synchronized (recent) {
+            Recent previous = recent.put(relativePath, new Recent(signature.fileSize(), lastModified, signature));
+            if (previous != null) {
+                recentBlocks -= previous.signature().blockCount();
+            }
+            recentBlocks += signature.blockCount();
+            Iterator<Recent> eldest = recent.values().iterator();
+            while (recentBlocks > RECENT_MAX_BLOCKS && eldest.hasNext()) {
+                recentBlocks -= eldest.next().signature().blockCount();
+                eldest.remove();
+            }
+        }
+    }
+
+    public void moved(SyncTarget target, String fromPath, String toPath) {
+        signatureStore.move(signatureKey(target, fromPath), signatureKey(target, toPath));
+    }
+
+    public void forget(SyncTarget target, String relativePath) {
+        signatureStore.remove(signatureKey(target, relativePath));
+    }
+
+    // 서버가 하나면 상대 경로 그대로 (기존 서명을 계속 쓴다)
+    private String signatureKey(SyncTarget target, String relativePath) {
+        return syncTargets.all().size() == 1 ? relativePath : target.address() + "|" + relativePath;
+    }
+
+    /**
+     * 전체 업로드가 보내는 내용으로 서명을 만든다. 전송 계층이 재시도하면 새로 연 스트림에서 처음부터 다시 만든다.
+     */
+    public static final class SignatureTap {
+
+        private final int blockSize;
+        // 보내기 전의 파일 수정 시각
+        private final long lastModified;
+        private final boolean needed;
+        private volatile SigningInputStream last;
+
+        private SignatureTap(int blockSize, long lastModified, boolean needed) {
+            this.blockSize = blockSize;
+            this.lastModified = lastModified;
+            this.needed = needed;
+        }
+
+        public InputStream wrap(InputStream content) {
+            if (!needed) {
+                return content;
+            }
+            SigningInputStream signing = new SigningInputStream(content, blockSize);
+            last = signing;
+            return signing;
+        }
+
+        // 마지막으로 연 스트림을 끝까지 읽었을 때의 서명
+        private FileSignature signature() {
+            SigningInputStream signing = last;
+            return signing != null ? signing.signature() : null;
+        }
+    }
+}
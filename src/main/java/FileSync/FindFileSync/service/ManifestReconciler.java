@@ -0,0 +1,221 @@
+package FileSync.FindFileSync.service;
+
+import FileSync.FindFileSync.dto.ManifestEntry;
+import FileSync.FindFileSync.index.SyncStateIndex;
+import FileSync.FindFileSync.journal.OperationDispatcher;
+import FileSync.FindFileSync.journal.OperationType;
+import FileSync.FindFileSync.scheduler.UploadScheduler;
+import FileSync.FindFileSync.source.SourceRoots;
+import FileSync.FindFileSync.target.SyncTarget;
+import FileSync.FindFileSync.target.SyncTargets;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 최초 동기화 시 파일 목록을 묶음 단위 매니페스트로 서버에 보내고,
+ * 서버가 필요하다고 답한 항목만 업로드한다.
+ * <p>
+ * 디렉토리 탐색 중에 묶음이 차는 대로 전송하므로 파일마다 존재 여부를 묻지 않는다.
+ * 서버가 여러 대면 항목을 올라갈 서버별로 나눠 각 서버에 보내고, 한 서버라도 필요하다고 하면 업로드한다.
+ * 서버가 매니페스트 API를 지원하지 않으면 기존 파일별 확인 방식으로 돌아간다.
+ * 업로드는 저널({@link OperationDispatcher})을 거쳐 {@link UploadScheduler}에 제출되므로
+ * 대기열이 차면 탐색 스레드가 잠시 멈추고, 실패한 업로드는 다시 시도된다.
+ */
+@Slf4j
+@Service
+public class ManifestReconciler {
+
+    @Value("${config.manifest.enabled:true}")
+    private boolean enabled;
+
+    @Value("${config.manifest.batchSize:5000}")
+    private int batchSize;
+
+    @Autowired
+    private RemoteFileService remoteFileService;
+
+    @Autowired
+    private SourceRoots sourceRoots;
+
+    @Autowired
+    private SyncTargets syncTargets;
+
+    @Autowired
+    private SyncStateIndex syncStateIndex;
+
+    @Autowired
+    private UploadScheduler uploadScheduler;
+
+    @Autowired
+    private OperationDispatcher operationDispatcher;
+
+    private List<ManifestEntry> batch = new ArrayList<>();
+    // 가져간 묶음의 번호와 아직 비교 중인 묶음 번호 (this로 잠금)
+    private long nextBatch;
+    private final TreeSet<Long> reconciling = new TreeSet<>();
+
+    // 여러 탐색 스레드가 동시에 호출할 수 있음. 서버 비교는 락 밖에서 실행
+    public void add(ManifestEntry entry) {
+        List<ManifestEntry> full;
+        long number;
+        synchronized (this) {
+            batch.add(entry);
+            if (batch.size() < batchSize) {
+                return;
+            }
+            full = takeBatch();
+            number = started();
+        }
+        reconcileAndFinish(full, number);
+    }
+
+    /**
+     * 남은 항목을 모두 전송하고, 그 전에 다른 스레드가 가져간 묶음의 비교도 끝날 때까지 기다린다.
+     * 돌아오면 지금까지 추가한 항목은 모두 업로드가 저널에 기록되었거나 인덱스에 반영되어 있다.
+     */
+    public void flush() {
+        List<ManifestEntry> rest = null;
+        long number;
+        synchronized (this) {
+            if (!batch.isEmpty()) {
+                rest = takeBatch();
+                number = started();
+            } else {
+                number = nextBatch - 1;
+            }
+        }
+        if (rest != null) {
+            reconcileAndFinish(rest, number);
+        }
+        synchronized (this) {
+            try {
+                while (!reconciling.isEmpty() && reconciling.first() <= number) {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private List<ManifestEntry> takeBatch() {
+        List<ManifestEntry> entries = batch;
+        batch = new ArrayList<>(batchSize);
+        return entries;
+    }
+
+    // 잠금 안에서 호출
+    private long started() {
+        long number = nextBatch++;
+        reconciling.add(number);
+        return number;
+    }
+
+    private void reconcileAndFinish(List<ManifestEntry> entries, long number) {
+        try {
+            reconcile(entries);
+        } finally {
+            synchronized (this) {
+                reconciling.remove(number);
+                notifyAll();
+            }
+        }
+    }
+
+    private void reconcile(List<ManifestEntry> entries) {
+        if (!enabled) {
+            submitChecks(entries);
+            return;
+        }
+
+        // 서버별로 나눠 비교한다. 서버가 하나면 묶음 그대로
+        Map<SyncTarget, List<ManifestEntry>> byTarget = new LinkedHashMap<>();
+        if (syncTargets.all().size() == 1) {
+            byTarget.put(syncTargets.all().get(0), entries);
+        } else {
+            for (ManifestEntry entry : entries) {
+                for (SyncTarget target : syncTargets.targetsFor(entry.path())) {
+                    byTarget.computeIfAbsent(target, t -> new ArrayList<>()).add(entry);
+                }
+            }
+        }
+
+        Set<String> neededPaths = new HashSet<>();
+        // 매니페스트 API를 쓸 수 없는 서버에 올라갈 항목
+        Set<String> unchecked = new HashSet<>();
+        for (Map.Entry<SyncTarget, List<ManifestEntry>> group : byTarget.entrySet()) {
+            List<String> needed = remoteFileService.diffManifest(group.getKey(), group.getValue());
+            if (needed == null) {
+                group.getValue().forEach(entry -> unchecked.add(entry.path()));
+            } else {
+                neededPaths.addAll(needed);
+            }
+        }
+
+        if (unchecked.size() == entries.size()) {
+            // 매니페스트 API를 쓸 수 없으면 파일별로 확인
+            submitChecks(entries);
+            return;
+        }
+
+        log.info("매니페스트 비교 완료: {}개 중 {}개 업로드 필요", entries.size(), neededPaths.size());
+        for (ManifestEntry entry : entries) {
+            if (neededPaths.contains(entry.path())) {
+                // 초기 스캔이므로 감시 중 변경보다 뒤에, 큰 파일은 가장 뒤에 보낸다
+                operationDispatcher.submit(OperationType.UPLOAD_FILE, entry.path(), uploadScheduler.priorityFor(false, entry.size()));
+            } else if (unchecked.contains(entry.path())) {
+                uploadScheduler.submit(uploadScheduler.priorityFor(false, entry.size()), () -> uploadIfNotExists(entry));
+            } else {
+                // 서버가 같은 크기/수정 시각으로 가지고 있음
+                syncStateIndex.markUploaded(entry.path(), entry.size(), entry.mtime(), entry.hash());
+            }
+        }
+    }
+
+    private void submitChecks(List<ManifestEntry> entries) {
+        for (ManifestEntry entry : entries) {
+            uploadScheduler.submit(uploadScheduler.priorityFor(false, entry.size()), () -> uploadIfNotExists(entry));
+        }
+    }
+
+    private boolean uploadIfNotExists(ManifestEntry entry) {
+        Path file = localPath(entry);
+        try {
+            if (existsOnAllTargets(entry.path(), file)) {
+                log.debug("파일이 이미 서버에 존재함, 업로드 생략: {}", file);
+                syncStateIndex.markUploaded(entry.path(), entry.size(), entry.mtime(), entry.hash());
+                return true;
+            }
+            // 업로드 스레드 안이므로 대기열을 거치지 않고 바로 실행
+            operationDispatcher.runNow(OperationType.UPLOAD_FILE, entry.path());
+            return true;
+        } catch (Exception e) {
+            log.error("병렬 업로드 중 오류 발생: {}", file, e);
+            return false;
+        }
+    }
+
+    private boolean existsOnAllTargets(String relativePath, Path file) {
+        for (SyncTarget target : syncTargets.targetsFor(relativePath)) {
+            if (!remoteFileService.fileExistsOnServer(target, file.toString())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Path localPath(ManifestEntry entry) {
+        return sourceRoots.resolve(entry.path());
+    }
+}
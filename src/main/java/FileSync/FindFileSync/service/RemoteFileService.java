@@ -1,224 +1,344 @@
 package FileSync.FindFileSync.service;
 
-import jakarta.annotation.PostConstruct;
+import FileSync.FindFileSync.compress.AdaptiveCompressor;
+import FileSync.FindFileSync.dto.ManifestEntry;
+import FileSync.FindFileSync.metrics.SyncMetrics;
+import FileSync.FindFileSync.source.SourceRoots;
+import FileSync.FindFileSync.target.SyncTarget;
+import FileSync.FindFileSync.transport.TransportResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
-import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
-import org.springframework.util.LinkedMultiValueMap;
-import org.springframework.util.MultiValueMap;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.core.io.FileSystemResource;
 
-import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.InputStream;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.*;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * 서버 하나({@link SyncTarget})에 대한 파일/디렉토리 요청. 어느 서버로 보낼지는 호출자가 정한다.
+ */
 @Slf4j
 @Service
 public class RemoteFileService {
 
-    @Value("${config.serverUrl}")
-    private String serverUrl;
+    private static final String UPLOAD_URL = "/file/upload";
+    private static final String DELETE_URL = "/file/delete";
+    private static final String FILE_EXISTS_URL = "/file/exists";
+    private static final String UPDATE_DIR_URL = "/file/update/dir";
+    private static final String DELETE_DIR_URL = "/file/deleteDirectory";
+    private static final String MANIFEST_DIFF_URL = "/file/manifest/diff";
+    private static final String MOVE_URL = "/file/move";
+    private static final String COMPRESSED_UPLOAD_URL = "/file/upload/compressed";
+    private static final String VERIFIED_UPLOAD_URL = "/file/upload/verified";
 
-    @Value("${config.sourceDir}")
-    private String sourceDir;
+    @Autowired
+    private SourceRoots sourceRoots;
 
-    private static String UPLOAD_URL;
-    private static String DELETE_URL;
-    private static String FILE_EXISTS_URL;
-    private static String UPDATE_DIR_URL;
-    private static String DELETE_DIR_URL;
+    @Autowired
+    private ObjectMapper objectMapper;
 
+    @Autowired
+    private ChunkedUploader chunkedUploader;
 
-    @PostConstruct
-    public void init() {
-        //UPLOAD_URL = "http://" + serverUrl + "/api/files/upload";
-        UPLOAD_URL = "http://" + serverUrl + "/file/upload";
-        DELETE_URL = "http://" + serverUrl + "/file/delete";
-        FILE_EXISTS_URL = "http://" + serverUrl + "/file/exists";
-        UPDATE_DIR_URL = "http://" + serverUrl + "/file/update/dir";
-        DELETE_DIR_URL = "http://" + serverUrl + "/file/deleteDirectory";
+    @Autowired
+    private DeltaUploader deltaUploader;
 
+    @Autowired
+    private DedupUploader dedupUploader;
 
-        log.info(FILE_EXISTS_URL);
-    }
+    @Autowired
+    private AdaptiveCompressor adaptiveCompressor;
 
-//    private static final String UPLOAD_URL = "http:///api/files/upload";
-//    private static final String DELETE_URL = "http://localhost:8081/api/files/delete";
-//    private static final String FILE_EXISTS_URL = "http://localhost:8081/api/files/exists";
+    @Autowired
+    private SyncMetrics syncMetrics;
 
+    @Value("${config.chunk.enabled:true}")
+    private boolean chunkEnabled;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    @Value("${config.chunk.thresholdBytes:67108864}")
+    private long chunkThreshold;
 
-    // ScheduledExecutorService를 사용하여 디바운스 구현
-    //private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
-    //private final Map<String, ScheduledFuture<?>> debounceMap = new ConcurrentHashMap<>();
+    // 압축 업로드를 지원하지 않는 서버 (다시 시도하지 않는다)
+    private final Set<String> compressedUploadUnsupported = ConcurrentHashMap.newKeySet();
 
-    // 최신 요청만 실행하기 위해 사용할 디바운스 대기 시간 (밀리초)
-    // private static final int DEBOUNCE_DELAY_MILLIS = 0;
+    // 검증 업로드를 지원하지 않는 서버 (다시 시도하지 않는다)
+    private final Set<String> verifiedUploadUnsupported = ConcurrentHashMap.newKeySet();
 
-    public void uploadDir(Path path) {
+    // 디렉토리 생성 요청, 서버가 OK로 응답하면 true
+    public boolean uploadDir(SyncTarget target, Path path) {
         String filePath = path.toString();
+        long start = System.nanoTime();
         try {
-            // 요청 body 생`성
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-
-            Map<String, String> body = Map.of("path", filePath.substring(sourceDir.length()));
-            HttpEntity<Map<String, String>> requestEntity = new HttpEntity<>(body, headers);
+            // 요청 body 생성
+            Map<String, String> body = Map.of("path", sourceRoots.relativePath(path));
 
             // Update 요청 전송
-            ResponseEntity<String> response = restTemplate.exchange(UPDATE_DIR_URL, HttpMethod.POST, requestEntity, String.class);
+            TransportResponse response = target.transport().postJson(target.url(UPDATE_DIR_URL), body);
 
-            if (response.getStatusCode() == HttpStatus.OK) {
-                System.out.println("디렉토리 업데이트 성공: " + filePath);
+            if (response.isOk()) {
+                syncMetrics.request("upload_dir", SyncMetrics.SUCCESS, start);
+                log.debug("디렉토리 업데이트 성공: {}", filePath);
+                return true;
             } else {
-                System.out.println("디렉토리 업데이트 실패: " + response.getBody());
+                syncMetrics.request("upload_dir", SyncMetrics.FAILURE, start);
+                log.warn("디렉토리 업데이트 실패({}, {}): {}: {}", target, response.status(), filePath, response.body());
             }
 
         } catch (Exception e) {
-            System.err.println("디렉토리 업데이트 중 오류 발생: " + e.getMessage());
-            e.printStackTrace();
+            syncMetrics.request("upload_dir", SyncMetrics.ERROR, start);
+            log.error("디렉토리 업데이트 중 오류 발생({}): {}", target, filePath, e);
         }
+        return false;
     }
 
-    // 파일 업로드 요청
-    public void uploadFile(Path localFilePath, String fileName) {
+    // 파일 업로드 요청, 서버가 OK로 응답하면 true
+    public boolean uploadFile(SyncTarget target, Path localFilePath, String fileName) {
+        long start = System.nanoTime();
         try {
-            String fileKey = localFilePath.toString(); // 파일의 경로를 Key로 사용
-            log.info("Uploading file " + fileName);
-            //log.info(fileKey);
-            // 기존 예약 작업이 있다면 취소
-            /*if (debounceMap.containsKey(fileKey)) {
-                debounceMap.get(fileKey).cancel(false);
-            }*/
-
-            // 새 예약 작업 등록
-            //ScheduledFuture<?> future = scheduler.schedule(() -> {
-                try {
-                    File file = localFilePath.toFile();
-                    if (!file.exists()) {
-                        throw new FileNotFoundException("파일이 존재하지 않습니다: " + localFilePath);
-                    }
-                    //FileSystemResource fileResource = new FileSystemResource(localFilePath.toFile());
-                    FileSystemResource fileResource = getFileResource(localFilePath);
-
-                    // 요청 body 생성
-                    MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
-                    body.add("file", fileResource);
-                    body.set("path", fileResource.getPath().substring(sourceDir.length()));
+            // 디바운스는 EventCoalescer에서 처리하므로 여기서는 바로 전송
+            log.debug("Uploading file {}", fileName);
+            if (!Files.isRegularFile(localFilePath)) {
+                throw new FileNotFoundException("파일이 존재하지 않거나 올바른 파일이 아닙니다: " + localFilePath);
+            }
 
-                    HttpHeaders headers = new HttpHeaders();
-                    headers.setContentType(MediaType.MULTIPART_FORM_DATA); // 반드시 MULTIPART_FORM_DATA 설정
+            String relativePath = sourceRoots.relativePath(localFilePath);
+            long size = Files.size(localFilePath);
 
-                    HttpEntity<MultiValueMap<String, Object>> requestEntity = new HttpEntity<>(body, headers);
+            // 이전에 올린 내용의 서명이 있으면 바뀐 블록만 전송
+            DeltaUploader.Result deltaResult = deltaUploader.upload(target, localFilePath, relativePath);
+            if (deltaResult != DeltaUploader.Result.NOT_APPLICABLE) {
+                return uploadResult("delta", deltaResult == DeltaUploader.Result.OK, size, start);
+            }
 
+            // 서버에 같은 내용이 있으면 경로만 연결
+            if (dedupUploader.link(target, localFilePath, relativePath)) {
+                log.debug("파일 내용 연결 성공: {}", localFilePath);
+                deltaUploader.recordSignature(target, localFilePath, relativePath);
+                return uploadResult("dedup", true, size, start);
+            }
 
-                    ResponseEntity<String> response = restTemplate.postForEntity(UPLOAD_URL, requestEntity, String.class);
+            // 큰 파일은 재개 가능한 청크 업로드로 전송
+            if (chunkEnabled && size >= chunkThreshold) {
+                ChunkedUploader.Result result = chunkedUploader.upload(target, localFilePath, relativePath);
+                if (result != ChunkedUploader.Result.UNSUPPORTED) {
+                    if (result == ChunkedUploader.Result.OK) {
+                        log.debug("파일 청크 업로드 성공: {}", localFilePath);
+                        deltaUploader.recordSignature(target, localFilePath, relativePath);
+                    } else {
+                        log.warn("파일 청크 업로드 실패({}): {}", target, localFilePath);
+                    }
+                    return uploadResult("chunked", result == ChunkedUploader.Result.OK, size, start);
+                }
+            }
 
+            String lastModified = String.valueOf(Files.getLastModifiedTime(localFilePath).toMillis());
+            // 다음 델타의 기준 서명은 보내는 내용에서 같이 만든다 (파일을 다시 읽지 않는다)
+            DeltaUploader.SignatureTap signatureTap = deltaUploader.tap(target, localFilePath, relativePath);
+
+            // 압축이 잘 되는 파일은 gzip으로 압축하면서 전송 (서버가 풀어서 크기와 CRC를 확인)
+            if (!compressedUploadUnsupported.contains(target.address()) && adaptiveCompressor.shouldCompress(localFilePath, size)) {
+                Map<String, String> compressedFields = Map.of(
+                        "path", relativePath,
+                        "lastModified", lastModified,
+                        "encoding", "gzip",
+                        "size", String.valueOf(size));
+                TransportResponse response = target.transport().uploadStream(target.url(COMPRESSED_UPLOAD_URL), compressedFields,
+                        fileName + ".gz", out -> {
+                            try (InputStream in = signatureTap.wrap(Files.newInputStream(localFilePath))) {
+                                adaptiveCompressor.gzip(in, out);
+                            }
+                        });
+                if (response.status() == 404) {
+                    log.info("서버가 압축 업로드를 지원하지 않음, 원본으로 전송: {}", target);
+                    compressedUploadUnsupported.add(target.address());
+                } else if (response.isOk()) {
+                    log.debug("파일 압축 업로드 성공: {}", localFilePath);
+                    deltaUploader.recordSignature(target, localFilePath, relativePath, signatureTap);
+                    return uploadResult("compressed", true, size, start);
+                } else {
+                    log.warn("파일 압축 업로드 실패({}, {}): {}", target, response.status(), localFilePath);
+                    return uploadResult("compressed", false, size, start);
+                }
+            }
 
-                    if (response.getStatusCode() == HttpStatus.OK) {
-                        System.out.println("파일 업로드 성공: " + localFilePath);
+            // 요청 body 생성 (파일 내용은 전송 계층이 스트리밍)
+            Map<String, String> fields = Map.of(
+                    "path", relativePath,
+                    "lastModified", lastModified);
+
+            // 보내면서 계산한 CRC32C와 크기를 본문 끝에 붙여 서버가 저장 전에 확인하게 한다
+            if (!verifiedUploadUnsupported.contains(target.address())) {
+                TransportResponse response = target.transport().uploadVerified(target.url(VERIFIED_UPLOAD_URL), fields,
+                        fileName, Files.size(localFilePath), () -> signatureTap.wrap(Files.newInputStream(localFilePath)));
+                if (response.status() == 404) {
+                    log.info("서버가 검증 업로드를 지원하지 않음, 체크섬 없이 전송: {}", target);
+                    verifiedUploadUnsupported.add(target.address());
+                } else if (response.isOk()) {
+                    log.debug("파일 업로드 성공: {}", localFilePath);
+                    syncMetrics.integrity("upload", "ok");
+                    deltaUploader.recordSignature(target, localFilePath, relativePath, signatureTap);
+                    return uploadResult("full", true, size, start);
+                } else {
+                    if (response.status() == 422) {
+                        // 전송 중 내용이 바뀌었거나 손상됨: 저장되지 않았으므로 저널이 다시 보낸다
+                        log.warn("서버가 받은 내용의 체크섬이 다름({}): {}: {}", target, localFilePath, response.body());
+                        syncMetrics.integrity("upload", "mismatch");
                     } else {
-                        System.out.println("파일 업로드 실패: " + response.getStatusCode());
+                        log.warn("파일 업로드 실패({}, {}): {}", target, response.status(), localFilePath);
                     }
-                } catch (Exception e) {
-                    System.err.println("파일 업로드 중 오류 발생: " + e.getMessage());
-                    e.printStackTrace();
+                    return uploadResult("full", false, size, start);
                 }
-           // });
+            }
+
+            TransportResponse response = target.transport().uploadFile(target.url(UPLOAD_URL), fields, localFilePath);
 
-            // 예약 작업 등록
-          //  debounceMap.put(fileKey, future);
+            if (response.isOk()) {
+                log.debug("파일 업로드 성공: {}", localFilePath);
+                deltaUploader.recordSignature(target, localFilePath, relativePath);
+                return uploadResult("full", true, size, start);
+            } else {
+                log.warn("파일 업로드 실패({}, {}): {}", target, response.status(), localFilePath);
+                return uploadResult("full", false, size, start);
+            }
         } catch (Exception e) {
-            System.err.println("파일 업로드 요청 중 오류 발생: " + e.getMessage());
-            e.printStackTrace();
+            syncMetrics.request("upload_file", SyncMetrics.ERROR, start);
+            log.error("파일 업로드 중 오류 발생({}): {}", target, localFilePath, e);
         }
+        return false;
     }
 
-    // 파일 삭제 요청
-    public void deleteFile(String filePath) {
-        try {
-            // 요청 body 생성
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            String path = filePath.substring(sourceDir.length());
+    // 업로드 지연 시간과, 성공했으면 전송 방식별 바이트를 기록
+    private boolean uploadResult(String mode, boolean ok, long size, long start) {
+        syncMetrics.request("upload_file", ok ? SyncMetrics.SUCCESS : SyncMetrics.FAILURE, start);
+        if (ok) {
+            syncMetrics.uploaded(mode, size);
+        }
+        return ok;
+    }
 
-            Map<String, String> body = Map.of("path", path);
-            HttpEntity<Map<String, String>> requestEntity = new HttpEntity<>(body, headers);
+    // 파일 삭제 요청, 서버가 OK로 응답하면 true
+    public boolean deleteFile(SyncTarget target, String filePath) {
+        long start = System.nanoTime();
+        try {
+            String relativePath = sourceRoots.relativePath(filePath);
 
             // DELETE 요청 전송
-            //ResponseEntity<String> response = restTemplate.exchange(DELETE_URL, HttpMethod.DELETE, requestEntity, String.class);
-            path = URLEncoder.encode(path, StandardCharsets.UTF_8);
-            ResponseEntity<String> response = restTemplate.getForEntity(DELETE_URL + "?path=" + path, String.class);
-
-            if (response.getStatusCode() == HttpStatus.OK) {
-                System.out.println("파일 삭제 성공: " + filePath);
+            String path = URLEncoder.encode(relativePath, StandardCharsets.UTF_8);
+            TransportResponse response = target.transport().get(target.url(DELETE_URL) + "?path=" + path);
+
+            if (response.isOk()) {
+                syncMetrics.request("delete_file", SyncMetrics.SUCCESS, start);
+                log.debug("파일 삭제 성공: {}", filePath);
+                deltaUploader.forget(target, relativePath);
+                return true;
             } else {
-                log.info(filePath);
-                System.out.println("파일 삭제 실패: " + response.getBody());
+                syncMetrics.request("delete_file", SyncMetrics.FAILURE, start);
+                log.warn("파일 삭제 실패({}, {}): {}: {}", target, response.status(), filePath, response.body());
             }
 
         } catch (Exception e) {
-            System.err.println("파일 삭제 중 오류 발생: " + e.getMessage());
-            e.printStackTrace();
+            syncMetrics.request("delete_file", SyncMetrics.ERROR, start);
+            log.error("파일 삭제 중 오류 발생({}): {}", target, filePath, e);
         }
+        return false;
     }
-    public boolean fileExistsOnServer(String path) {
-        path = path.substring(sourceDir.length());
+
+    /**
+     * 서버에서 파일이나 디렉토리를 옮긴다. 서버가 이동 API를 지원하지 않거나 실패하면 false.
+     */
+    public boolean moveFile(SyncTarget target, String fromPath, String toPath) {
+        long start = System.nanoTime();
         try {
-            ResponseEntity<Boolean> response = restTemplate.getForEntity(FILE_EXISTS_URL + "?path=" + path, Boolean.class);
-            return Boolean.TRUE.equals(response.getBody());
+            String from = sourceRoots.relativePath(fromPath);
+            String to = sourceRoots.relativePath(toPath);
+            Map<String, String> body = Map.of("from", from, "to", to);
+            TransportResponse response = target.transport().postJson(target.url(MOVE_URL), body);
+
+            if (response.isOk()) {
+                syncMetrics.request("move", SyncMetrics.SUCCESS, start);
+                log.debug("이동 성공: {} -> {}", fromPath, toPath);
+                deltaUploader.moved(target, from, to);
+                return true;
+            }
+            syncMetrics.request("move", SyncMetrics.FAILURE, start);
+            log.warn("이동 실패({}, {}): {} -> {}", target, response.status(), fromPath, toPath);
         } catch (Exception e) {
-            System.err.println("파일 존재 여부 확인 중 오류 발생: " + e.getMessage());
-            e.printStackTrace();
+            syncMetrics.request("move", SyncMetrics.ERROR, start);
+            log.warn("이동 요청 중 오류 발생({}): {} -> {}: {}", target, fromPath, toPath, e.getMessage());
+        }
+        return false;
+    }
+
+    public boolean fileExistsOnServer(SyncTarget target, String path) {
+        String localPath = path;
+        path = URLEncoder.encode(sourceRoots.relativePath(path), StandardCharsets.UTF_8);
+        long start = System.nanoTime();
+        try {
+            TransportResponse response = target.transport().get(target.url(FILE_EXISTS_URL) + "?path=" + path);
+            syncMetrics.request("exists", response.isOk() ? SyncMetrics.SUCCESS : SyncMetrics.FAILURE, start);
+            return response.isOk() && Boolean.parseBoolean(response.body().trim());
+        } catch (Exception e) {
+            syncMetrics.request("exists", SyncMetrics.ERROR, start);
+            log.error("파일 존재 여부 확인 중 오류 발생({}): {}", target, localPath, e);
             return false; // 서버 확인 실패 시 기본값으로 false 반환
         }
     }
 
-    public void deleteDir(String path) {
+    /**
+     * 매니페스트 묶음을 서버에 보내고 서버가 업로드를 원하는 상대 경로 목록을 받는다.
+     * 서버가 응답하지 않거나 API를 지원하지 않으면 null.
+     */
+    public List<String> diffManifest(SyncTarget target, List<ManifestEntry> entries) {
+        long start = System.nanoTime();
         try {
-            // 요청 body 생성
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
+            TransportResponse response = target.transport().postJson(target.url(MANIFEST_DIFF_URL), entries);
+            if (response.isOk()) {
+                syncMetrics.request("manifest_diff", SyncMetrics.SUCCESS, start);
+                return Arrays.asList(objectMapper.readValue(response.body(), String[].class));
+            }
+            syncMetrics.request("manifest_diff", SyncMetrics.FAILURE, start);
+            log.warn("매니페스트 비교 실패({}): {}", response.status(), target);
+        } catch (Exception e) {
+            syncMetrics.request("manifest_diff", SyncMetrics.ERROR, start);
+            log.warn("매니페스트 비교 중 오류 발생, 파일별 확인으로 전환({}): {}", target, e.getMessage());
+        }
+        return null;
+    }
 
-            Map<String, String> body = Map.of("path","\\" + path);
-            HttpEntity<Map<String, String>> requestEntity = new HttpEntity<>(body, headers);
+    // 디렉토리 삭제 요청, 서버가 OK로 응답하면 true
+    public boolean deleteDir(SyncTarget target, String dirPath) {
+        long start = System.nanoTime();
+        try {
+            // 요청 body 생성 (다른 요청과 같은 상대 경로)
+            Map<String, String> body = Map.of("path", sourceRoots.relativePath(dirPath));
 
             // DELETE 요청 전송
-            ResponseEntity<String> response = restTemplate.exchange(DELETE_DIR_URL, HttpMethod.DELETE, requestEntity, String.class);
+            TransportResponse response = target.transport().deleteJson(target.url(DELETE_DIR_URL), body);
 
-            if (response.getStatusCode() == HttpStatus.OK) {
-                System.out.println("디렉토리 삭제 성공: " + path);
+            if (response.isOk()) {
+                syncMetrics.request("delete_dir", SyncMetrics.SUCCESS, start);
+                log.debug("디렉토리 삭제 성공: {}", dirPath);
+                return true;
             } else {
-                System.out.println("디렉토리 삭제 실패: " + response.getBody());
+                syncMetrics.request("delete_dir", SyncMetrics.FAILURE, start);
+                log.warn("디렉토리 삭제 실패({}, {}): {}: {}", target, response.status(), dirPath, response.body());
             }
 
         } catch (Exception e) {
-            System.err.println("디렉토리 삭제 중 오류 발생: " + e.getMessage());
-            e.printStackTrace();
-        }
-
-    }
-
-    public FileSystemResource getFileResource(Path localFilePath) throws FileNotFoundException {
-        if (!Files.exists(localFilePath) || !Files.isRegularFile(localFilePath)) {
-            throw new FileNotFoundException("파일이 존재하지 않거나 올바른 파일이 아닙니다: " + localFilePath);
+            syncMetrics.request("delete_dir", SyncMetrics.ERROR, start);
+            log.error("디렉토리 삭제 중 오류 발생({}): {}", target, dirPath, e);
         }
-
-        return new FileSystemResource(localFilePath.toFile());
+        return false;
     }
 
 }
-
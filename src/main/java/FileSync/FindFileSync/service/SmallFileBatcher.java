@@ -0,0 +1,300 @@
+package FileSync.FindFileSync.service;
+
+import FileSync.FindFileSync.batch.BatchFormat;
+import FileSync.FindFileSync.metrics.SyncMetrics;
+import FileSync.FindFileSync.scheduler.UploadPriority;
+import FileSync.FindFileSync.target.SyncTarget;
+import FileSync.FindFileSync.target.SyncTargets;
+import FileSync.FindFileSync.transport.TransportResponse;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+/**
+ * 작은 파일을 모아서 요청 하나로 업로드한다 (형식은 {@link BatchFormat}).
+ * <p>
+ * 파일마다 multipart 요청을 보내면 연결/헤더 비용이 내용보다 크므로, {@code config.batch.maxFileBytes} 이하 파일은
+ * 묶음에 넣고 개수나 크기가 차면 넣은 업로드 스레드가 바로 보낸다. 차지 않아도 첫 항목 후
+ * {@code config.batch.lingerMillis}가 지나면 업로드 스케줄러로 보낸다. 결과는 파일별 future로 돌려주므로
+ * 업로드 스레드는 묶음이 찰 때까지 기다리지 않는다.
+ * 묶음은 서버마다 따로 모으고, 서버가 묶음 API를 지원하지 않으면 처음 한 번 확인한 뒤로는 그 서버에 파일별 업로드를 쓴다.
+ */
+@Slf4j
+@Service
+public class SmallFileBatcher {
+
+    private static final String BATCH_URL = "/file/batch";
+
+    @Value("${config.batch.enabled:true}")
+    private boolean enabled;
+
+    @Value("${config.batch.maxFileBytes:16384}")
+    private long maxFileBytes;
+
+    @Value("${config.batch.maxBatchBytes:4194304}")
+    private long maxBatchBytes;
+
+    @Value("${config.batch.maxBatchFiles:1000}")
+    private int maxBatchFiles;
+
+    @Value("${config.batch.lingerMillis:100}")
+    private long lingerMillis;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private SyncTargets syncTargets;
+
+    @Autowired
+    private SyncMetrics syncMetrics;
+
+    private record Entry(String path, long lastModified, byte[] content, int crc32c, CompletableFuture<Boolean> result) {
+    }
+
+    // 서버별로 모으는 묶음
+    private final Map<String, TargetBatch> batches = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService timer;
+
+    @PostConstruct
+    public void init() {
+        timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "small-file-batch");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+
+    /**
+     * 작은 파일을 target으로 보낼 다음 묶음에 넣는다.
+     *
+     * @param attrs 업로드를 결정할 때 읽은 속성, 읽는 사이 파일이 바뀌었으면 묶지 않는다
+     * @return 서버가 저장을 확인하면 true로 완료되는 future, 묶을 수 없으면 null (직접 업로드)
+     */
+    public CompletableFuture<Boolean> add(SyncTarget target, Path file, String relativePath, BasicFileAttributes attrs) throws IOException {
+        if (!enabled || attrs.size() > maxFileBytes) {
+            return null;
+        }
+        TargetBatch pending = batches.computeIfAbsent(target.address(), address -> new TargetBatch(target));
+        if (!pending.isSupported()) {
+            return null;
+        }
+        byte[] content = Files.readAllBytes(file);
+        if (content.length != attrs.size()
+                || Files.getLastModifiedTime(file).toMillis() != attrs.lastModifiedTime().toMillis()) {
+            // 읽는 동안 바뀜: 다음 변경 이벤트가 다시 처리한다
+            return null;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(content);
+        Entry entry = new Entry(relativePath, attrs.lastModifiedTime().toMillis(), content, (int) crc.getValue(), new CompletableFuture<>());
+
+        List<Entry> full = null;
+        synchronized (pending) {
+            pending.batch.add(entry);
+            pending.batchBytes += BatchFormat.ENTRY_OVERHEAD + relativePath.length() * 3L + content.length;
+            if (pending.batch.size() >= maxBatchFiles || pending.batchBytes >= maxBatchBytes) {
+                full = pending.take();
+            } else if (pending.batch.size() == 1) {
+                long current = pending.generation;
+                timer.schedule(() -> lingerExpired(pending, current), lingerMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (full != null) {
+            // 업로드 스레드이므로 대기열을 거치지 않고 바로 전송
+            pending.send(full);
+        }
+        return entry.result();
+    }
+
+    /**
+     * 모인 항목을 서버별 대기열로 보낸다. 보낸 항목이 있으면 true. 업로드 스레드 안에서는 호출하지 않는다.
+     */
+    public boolean flush() {
+        boolean flushed = false;
+        for (TargetBatch pending : batches.values()) {
+            List<Entry> rest;
+            synchronized (pending) {
+                if (pending.batch.isEmpty()) {
+                    continue;
+                }
+                rest = pending.take();
+            }
+            pending.submit(rest);
+            flushed = true;
+        }
+        return flushed;
+    }
+
+    private void lingerExpired(TargetBatch pending, long expected) {
+        List<Entry> due;
+        synchronized (pending) {
+            if (pending.generation != expected || pending.batch.isEmpty()) {
+                return;
+            }
+            due = pending.take();
+        }
+        pending.submit(due);
+    }
+
+    /**
+     * 서버 하나로 보낼 묶음과 그 서버의 묶음 API 지원 여부. 묶음 상태는 이 객체로 잠근다.
+     */
+    private final class TargetBatch {
+
+        private final SyncTarget target;
+
+        private List<Entry> batch = new ArrayList<>();
+        private long batchBytes;
+        // 묶음을 꺼낼 때마다 증가, 이미 보낸 묶음의 대기 타이머를 무시하는 데 쓴다
+        private long generation;
+
+        // 서버의 묶음 API 지원 여부, 아직 확인하지 못했으면 null
+        private volatile Boolean supported;
+        // 확인 요청 중에 가상 스레드가 캐리어 스레드를 붙잡지 않도록 synchronized 대신 ReentrantLock
+        private final ReentrantLock probeLock = new ReentrantLock();
+
+        TargetBatch(SyncTarget target) {
+            this.target = target;
+        }
+
+        // 잠금 안에서 호출
+        List<Entry> take() {
+            List<Entry> entries = batch;
+            batch = new ArrayList<>();
+            batchBytes = 0;
+            generation++;
+            return entries;
+        }
+
+        // 묶음 안의 파일은 이미 업로드 순서가 된 작은 파일이므로 대기열 앞쪽으로 보낸다.
+        // 타이머 스레드는 모든 서버의 묶음을 보내므로 가득 찬 대기열에서 기다리지 않는다
+        void submit(List<Entry> entries) {
+            syncTargets.trySubmit(target, UploadPriority.LIVE, () -> {
+                send(entries);
+                return true;
+            }).whenComplete((ignored, error) -> {
+                if (error != null) {
+                    // 대기열이 가득 찼거나 종료 중: false로 끝나서 저널이 다시 시도한다
+                    log.debug("묶음을 대기열에 넣지 못함({}): {}개 파일: {}", target, entries.size(), error.getMessage());
+                    entries.forEach(entry -> entry.result().complete(false));
+                }
+            });
+        }
+
+        void send(List<Entry> entries) {
+            Set<String> stored = new HashSet<>();
+            long start = System.nanoTime();
+            try {
+                TransportResponse response = target.transport().postBytes(target.url(BATCH_URL), encode(entries));
+                if (response.status() == 404) {
+                    log.info("서버가 묶음 업로드를 지원하지 않음, 파일별로 업로드: {}", target);
+                    supported = false;
+                    syncMetrics.request("batch", SyncMetrics.FAILURE, start);
+                } else if (!response.isOk()) {
+                    log.warn("묶음 업로드 실패({}, {}): {}개 파일", target, response.status(), entries.size());
+                    syncMetrics.request("batch", SyncMetrics.FAILURE, start);
+                } else {
+                    for (JsonNode path : objectMapper.readTree(response.body()).path("stored")) {
+                        stored.add(path.asText());
+                    }
+                    log.debug("묶음 업로드 완료: {}개 중 {}개 저장", entries.size(), stored.size());
+                    syncMetrics.request("batch", SyncMetrics.SUCCESS, start);
+                }
+            } catch (Exception e) {
+                log.warn("묶음 업로드 중 오류 발생({}): {}개 파일: {}", target, entries.size(), e.getMessage());
+                syncMetrics.request("batch", SyncMetrics.ERROR, start);
+            }
+            // 저장되지 않은 파일은 false로 끝나서 저널이 다시 시도한다
+            long storedBytes = 0;
+            for (Entry entry : entries) {
+                boolean ok = stored.contains(entry.path());
+                if (ok) {
+                    storedBytes += entry.content().length;
+                }
+                entry.result().complete(ok);
+            }
+            syncMetrics.uploaded("batch", storedBytes);
+        }
+
+        // 처음 한 번 빈 묶음을 보내 서버가 묶음 API를 지원하는지 확인한다
+        boolean isSupported() {
+            Boolean known = supported;
+            if (known != null) {
+                return known;
+            }
+            probeLock.lock();
+            try {
+                if (supported == null) {
+                    try {
+                        TransportResponse response = target.transport().postBytes(target.url(BATCH_URL), encode(List.of()));
+                        if (response.status() == 404) {
+                            log.info("서버가 묶음 업로드를 지원하지 않음, 파일별로 업로드: {}", target);
+                            supported = false;
+                        } else if (response.isOk()) {
+                            supported = true;
+                        }
+                    } catch (IOException e) {
+                        // 서버에 연결할 수 없음: 이번 파일은 직접 올리고 다음에 다시 확인
+                        log.warn("묶음 업로드 지원 여부 확인 실패({}): {}", target, e.getMessage());
+                    }
+                }
+                return Boolean.TRUE.equals(supported);
+            } finally {
+                probeLock.unlock();
+            }
+        }
+    }
+
+    private static byte[] encode(List<Entry> entries) throws IOException {
+        int size = 12;
+        for (Entry entry : entries) {
+            size += 2 + BatchFormat.ENTRY_OVERHEAD + entry.path().getBytes(StandardCharsets.UTF_8).length + entry.content().length;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(size);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(BatchFormat.MAGIC);
+        out.writeInt(BatchFormat.VERSION);
+        out.writeInt(entries.size());
+        for (Entry entry : entries) {
+            out.writeUTF(entry.path());
+            out.writeLong(entry.lastModified());
+            out.writeInt(entry.content().length);
+            out.writeInt(entry.crc32c());
+            out.write(entry.content());
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,37 @@
+package FileSync.FindFileSync.source;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * 동기화할 로컬 디렉토리 하나.
+ *
+ * @param name   루트 이름 ({@code config.sourceDir} 하나만 쓰면 빈 문자열)
+ * @param path   로컬 디렉토리
+ * @param prefix 서버 상대 경로 앞에 붙는 부분 (구분자 + 이름, 이름이 없으면 빈 문자열)
+ */
+public record SourceRoot(String name, Path path, String prefix) {
+
+    // 루트 아래 로컬 경로 -> 서버 상대 경로 (호출자가 루트 아래인지 확인)
+    public String relativePath(Path file) {
+        return prefix + file.toString().substring(path.toString().length());
+    }
+
+    // 서버 상대 경로가 이 루트의 것이면 true
+    public boolean owns(String relativePath) {
+        if (prefix.isEmpty()) {
+            return true;
+        }
+        return relativePath.startsWith(prefix)
+                && (relativePath.length() == prefix.length() || isSeparator(relativePath.charAt(prefix.length())));
+    }
+
+    // owns()가 true인 서버 상대 경로 -> 로컬 경로
+    public Path resolve(String relativePath) {
+        return Paths.get(path.toString() + relativePath.substring(prefix.length()));
+    }
+
+    private static boolean isSeparator(char c) {
+        return c == '/' || c == '\\';
+    }
+}
@@ -0,0 +1,118 @@
+package FileSync.FindFileSync.source;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 동기화할 로컬 디렉토리(루트) 목록. 로컬 경로와 서버 요청에 쓰는 상대 경로를 서로 바꾼다.
+ * <p>
+ * {@code config.sources}가 비어 있으면 {@code config.sourceDir} 하나를 접두사 없이 쓰므로 서버 경로는 예전과 같다.
+ * {@code config.sources}에 "이름=경로"를 여러 개 주면 루트마다 서버의 {@code /이름} 아래로 올라간다.
+ * 루트별 필터는 {@link FileSync.FindFileSync.filter.SyncFilter}가 {@code config.source.이름.*}에서 읽는다.
+ */
+@Slf4j
+@Component
+public class SourceRoots {
+
+    @Value("${config.sourceDir:}")
+    private String sourceDir;
+
+    // 이름=경로 (쉼표 구분)
+    @Value("${config.sources:}")
+    private String sources;
+
+    private List<SourceRoot> roots;
+
+    @PostConstruct
+    public void init() {
+        List<SourceRoot> parsed = new ArrayList<>();
+        if (sources.isBlank()) {
+            if (sourceDir.isBlank()) {
+                throw new IllegalArgumentException("config.sourceDir 또는 config.sources가 필요합니다");
+            }
+            parsed.add(new SourceRoot("", Paths.get(sourceDir), ""));
+        } else {
+            Set<String> names = new HashSet<>();
+            for (String item : sources.split(",")) {
+                item = item.trim();
+                if (item.isEmpty()) {
+                    continue;
+                }
+                int eq = item.indexOf('=');
+                String name = eq < 0 ? "" : item.substring(0, eq).trim();
+                String dir = eq < 0 ? "" : item.substring(eq + 1).trim();
+                if (name.isEmpty() || dir.isEmpty() || name.indexOf('/') >= 0 || name.indexOf('\\') >= 0) {
+                    throw new IllegalArgumentException("알 수 없는 config.sources 항목: " + item);
+                }
+                if (!names.add(name)) {
+                    throw new IllegalArgumentException("config.sources 이름 중복: " + name);
+                }
+                parsed.add(new SourceRoot(name, Paths.get(dir), File.separator + name));
+            }
+        }
+
+        // 한 루트가 다른 루트 안에 있으면 같은 파일이 두 경로로 올라간다
+        for (SourceRoot a : parsed) {
+            for (SourceRoot b : parsed) {
+                if (a != b && a.path().startsWith(b.path())) {
+                    throw new IllegalArgumentException("동기화 루트가 겹칩니다: " + a.path() + ", " + b.path());
+                }
+            }
+        }
+        roots = List.copyOf(parsed);
+        for (SourceRoot root : roots) {
+            log.info("동기화 루트: {}{}", root.path(), root.name().isEmpty() ? "" : " -> " + root.prefix());
+        }
+    }
+
+    public List<SourceRoot> all() {
+        return roots;
+    }
+
+    // 경로가 속한 루트, 어느 루트에도 없으면 null
+    public SourceRoot rootOf(Path path) {
+        for (SourceRoot root : roots) {
+            if (path.startsWith(root.path())) {
+                return root;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 로컬 경로의 서버 상대 경로 (서버 요청, 인덱스, 저널에 같은 형식으로 쓴다).
+     */
+    public String relativePath(Path file) {
+        SourceRoot root = rootOf(file);
+        if (root == null) {
+            throw new IllegalArgumentException("동기화 대상 밖의 경로: " + file);
+        }
+        return root.relativePath(file);
+    }
+
+    public String relativePath(String file) {
+        return relativePath(Paths.get(file));
+    }
+
+    /**
+     * 서버 상대 경로의 로컬 경로. 설정이 바뀌어 맞는 루트가 없으면 IllegalArgumentException.
+     */
+    public Path resolve(String relativePath) {
+        for (SourceRoot root : roots) {
+            if (root.owns(relativePath)) {
+                return root.resolve(relativePath);
+            }
+        }
+        throw new IllegalArgumentException("동기화 루트가 없는 경로: " + relativePath);
+    }
+}
@@ -0,0 +1,86 @@
+package FileSync.FindFileSync.stub;
+
+import FileSync.FindFileSync.batch.BatchFormat;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * 스텁 서버의 묶음 업로드 API. {@link BatchFormat} 묶음을 풀어서 CRC32C가 맞는 항목만 저장한다.
+ */
+@Slf4j
+@Profile("stub")
+@RestController
+@RequestMapping("/file")
+public class StubBatchController {
+
+    // 한 항목의 최대 크기 (잘못된 길이로 메모리를 다 쓰지 않도록)
+    private static final int MAX_ENTRY_BYTES = 64 * 1024 * 1024;
+
+    @Autowired
+    private StubStorage storage;
+
+    @Autowired
+    private StubContentStore contentStore;
+
+    @PostMapping("/batch")
+    public ResponseEntity<?> batch(InputStream body) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(body, 256 * 1024));
+        if (in.readInt() != BatchFormat.MAGIC || in.readInt() != BatchFormat.VERSION) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("알 수 없는 묶음 형식");
+        }
+        int count = in.readInt();
+        List<String> stored = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String path = in.readUTF();
+            long lastModified = in.readLong();
+            int length = in.readInt();
+            int crc32c = in.readInt();
+            if (length < 0 || length > MAX_ENTRY_BYTES) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("잘못된 항목 길이: " + path);
+            }
+            byte[] content = in.readNBytes(length);
+            if (content.length != length) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("묶음이 잘렸습니다: " + path);
+            }
+
+            CRC32C crc = new CRC32C();
+            crc.update(content);
+            if ((int) crc.getValue() != crc32c) {
+                log.warn("묶음 항목 CRC32C 불일치, 저장하지 않음: {}", path);
+                continue;
+            }
+            Path target = storage.resolve(path);
+            Files.createDirectories(target.getParent());
+            Path tmp = Files.createTempFile(storage.workDir(), "batch-", ".tmp");
+            try {
+                Files.write(tmp, content);
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+            Files.setLastModifiedTime(target, FileTime.fromMillis(lastModified));
+            contentStore.register(target);
+            stored.add(path);
+        }
+        return ResponseEntity.ok(Map.of("stored", stored));
+    }
+}
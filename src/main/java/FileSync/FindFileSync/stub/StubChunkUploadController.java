@@ -0,0 +1,206 @@
+package FileSync.FindFileSync.stub;
+
+import FileSync.FindFileSync.dto.ChunkSession;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32C;
+
+/**
+ * 스텁 서버의 청크 업로드 API.
+ * <p>
+ * 세션마다 작업 디렉토리에 데이터 파일, 메타 정보, 받은 청크 오프셋 로그를 둔다.
+ * 세션 ID는 경로/크기/수정 시각/청크 크기로 정해지므로 클라이언트가 재시작해도 같은 세션을 이어간다.
+ */
+@Slf4j
+@Profile("stub")
+@RestController
+@RequestMapping("/file/chunk")
+public class StubChunkUploadController {
+
+    @Autowired
+    private StubStorage storage;
+
+    @Autowired
+    private StubContentStore contentStore;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final Map<String, Object> locks = new ConcurrentHashMap<>();
+
+    public record ChunkMeta(String path, long size, long lastModified, long chunkSize) {
+    }
+
+    @PostMapping("/init")
+    public ChunkSession init(@RequestBody ChunkMeta meta) throws IOException {
+        if (meta.chunkSize() <= 0 || meta.size() < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "잘못된 청크 세션: " + meta);
+        }
+        storage.resolve(meta.path());
+
+        String uploadId = uploadId(meta);
+        Path sessionDir = sessionDir(uploadId);
+        synchronized (lockFor(uploadId)) {
+            if (!Files.exists(sessionDir.resolve("meta.json"))) {
+                Files.createDirectories(sessionDir);
+                objectMapper.writeValue(sessionDir.resolve("meta.json").toFile(), meta);
+            }
+            return new ChunkSession(uploadId, new ArrayList<>(readReceived(sessionDir)));
+        }
+    }
+
+    @PostMapping
+    public ResponseEntity<String> chunk(@RequestParam("uploadId") String uploadId,
+                                        @RequestParam("offset") long offset,
+                                        @RequestParam("crc32c") String crc32c,
+                                        InputStream body) throws IOException {
+        Path sessionDir = sessionDir(uploadId);
+        Path metaFile = sessionDir.resolve("meta.json");
+        if (!Files.exists(metaFile)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("세션 없음");
+        }
+        ChunkMeta meta = objectMapper.readValue(metaFile.toFile(), ChunkMeta.class);
+        if (offset < 0 || offset >= meta.size() || offset % meta.chunkSize() != 0) {
+            return ResponseEntity.badRequest().body("잘못된 오프셋: " + offset);
+        }
+        long length = Math.min(meta.chunkSize(), meta.size() - offset);
+
+        // 받으면서 CRC32C를 계산하고 데이터 파일의 해당 위치에 바로 쓴다
+        CRC32C crc = new CRC32C();
+        long written = 0;
+        try (FileChannel data = FileChannel.open(sessionDir.resolve("data"), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            byte[] buffer = new byte[64 * 1024];
+            int n;
+            while ((n = body.read(buffer)) > 0) {
+                if (written + n > length) {
+                    return ResponseEntity.badRequest().body("청크가 너무 큽니다");
+                }
+                crc.update(buffer, 0, n);
+                ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, n);
+                while (chunk.hasRemaining()) {
+                    data.write(chunk, offset + written + chunk.position());
+                }
+                written += n;
+            }
+        }
+        if (written != length) {
+            return ResponseEntity.badRequest().body("청크 크기 불일치: " + written + " != " + length);
+        }
+        if (!Long.toHexString(crc.getValue()).equalsIgnoreCase(crc32c)) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body("체크섬 불일치");
+        }
+
+        synchronized (lockFor(uploadId)) {
+            try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(sessionDir.resolve("received"),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND))) {
+                out.writeLong(offset);
+            }
+        }
+        return ResponseEntity.ok("received");
+    }
+
+    @PostMapping("/complete")
+    public ResponseEntity<String> complete(@RequestBody Map<String, String> body) throws IOException {
+        String uploadId = body.get("uploadId");
+        Path sessionDir = sessionDir(uploadId);
+        synchronized (lockFor(uploadId)) {
+            Path metaFile = sessionDir.resolve("meta.json");
+            if (!Files.exists(metaFile)) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("세션 없음");
+            }
+            ChunkMeta meta = objectMapper.readValue(metaFile.toFile(), ChunkMeta.class);
+            Set<Long> received = readReceived(sessionDir);
+            for (long offset = 0; offset < meta.size(); offset += meta.chunkSize()) {
+                if (!received.contains(offset)) {
+                    return ResponseEntity.status(HttpStatus.CONFLICT).body("누락된 청크: " + offset);
+                }
+            }
+
+            Path data = sessionDir.resolve("data");
+            if (!Files.exists(data)) {
+                Files.createFile(data);
+            }
+            Path target = storage.resolve(meta.path());
+            Files.createDirectories(target.getParent());
+            Files.move(data, target, StandardCopyOption.REPLACE_EXISTING);
+            Files.setLastModifiedTime(target, FileTime.fromMillis(meta.lastModified()));
+            contentStore.register(target);
+
+            Files.deleteIfExists(sessionDir.resolve("received"));
+            Files.deleteIfExists(metaFile);
+            Files.deleteIfExists(sessionDir);
+            log.info("청크 업로드 완료: {}", meta.path());
+        }
+        locks.remove(uploadId);
+        return ResponseEntity.ok("completed");
+    }
+
+    private Object lockFor(String uploadId) {
+        return locks.computeIfAbsent(uploadId, id -> new Object());
+    }
+
+    private Path sessionDir(String uploadId) {
+        if (uploadId == null || !uploadId.matches("[0-9a-f]{64}")) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "잘못된 uploadId: " + uploadId);
+        }
+        return storage.workDir().resolve("chunks").resolve(uploadId);
+    }
+
+    private static Set<Long> readReceived(Path sessionDir) throws IOException {
+        Set<Long> received = new HashSet<>();
+        Path file = sessionDir.resolve("received");
+        if (!Files.exists(file)) {
+            return received;
+        }
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            while (true) {
+                received.add(in.readLong());
+            }
+        } catch (EOFException e) {
+            // 끝까지 읽음
+        }
+        return received;
+    }
+
+    private static String uploadId(ChunkMeta meta) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            String key = meta.path() + "\n" + meta.size() + "\n" + meta.lastModified() + "\n" + meta.chunkSize();
+            return HexFormat.of().formatHex(digest.digest(key.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
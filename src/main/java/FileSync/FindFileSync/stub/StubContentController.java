@@ -0,0 +1,54 @@
+package FileSync.FindFileSync.stub;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+
+/**
+ * 내용 해시로 이미 저장된 파일을 찾아 새 경로에 연결하는 스텁 API.
+ */
+@Slf4j
+@Profile("stub")
+@RestController
+@RequestMapping("/file/content")
+public class StubContentController {
+
+    @Autowired
+    private StubStorage storage;
+
+    @Autowired
+    private StubContentStore contentStore;
+
+    @PostMapping("/link")
+    public Map<String, Boolean> link(@RequestBody Map<String, Object> body) throws IOException {
+        Path target = storage.resolve((String) body.get("path"));
+        Path source = contentStore.find((String) body.get("fast"), (String) body.get("strong"));
+        if (source == null) {
+            return Map.of("linked", false);
+        }
+
+        if (!source.equals(target)) {
+            // 경로마다 수정 시각이 달라야 하므로 하드 링크 대신 복사 (실제 서버는 내용 저장소를 참조)
+            Files.createDirectories(target.getParent());
+            Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        Object lastModified = body.get("lastModified");
+        if (lastModified instanceof Number millis) {
+            Files.setLastModifiedTime(target, FileTime.fromMillis(millis.longValue()));
+        }
+        contentStore.register(target);
+        log.info("내용 연결: {} -> {}", source, target);
+        return Map.of("linked", true);
+    }
+}
@@ -0,0 +1,60 @@
+package FileSync.FindFileSync.stub;
+
+import FileSync.FindFileSync.dedup.ContentHash;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 스텁 서버에 저장된 파일의 내용 해시 색인 (메모리).
+ * <p>
+ * 업로드가 끝난 파일을 해시해 두었다가, 같은 해시로 연결 요청이 오면 그 파일을 찾아준다.
+ * 등록 후 바뀐 파일(수정 시각/크기가 다름)은 찾지 않는다.
+ */
+@Slf4j
+@Profile("stub")
+@Component
+public class StubContentStore {
+
+    private record StoredContent(Path path, ContentHash hash, long mtime) {
+    }
+
+    private final Map<String, StoredContent> byFastKey = new ConcurrentHashMap<>();
+    private final Map<String, StoredContent> byStrong = new ConcurrentHashMap<>();
+
+    public void register(Path file) {
+        try {
+            ContentHash hash = ContentHash.compute(file, true);
+            StoredContent content = new StoredContent(file, hash, Files.getLastModifiedTime(file).toMillis());
+            byFastKey.put(hash.fastKey(), content);
+            byStrong.put(hash.sha256(), content);
+        } catch (IOException e) {
+            log.warn("내용 해시 등록 실패: {}", file, e);
+        }
+    }
+
+    // 강한 해시가 있으면 강한 해시로, 없으면 빠른 해시로 찾는다
+    public Path find(String fastKey, String strong) {
+        StoredContent content = strong != null ? byStrong.get(strong) : byFastKey.get(fastKey);
+        if (content == null || !content.hash().fastKey().equals(fastKey)) {
+            return null;
+        }
+        try {
+            if (Files.getLastModifiedTime(content.path()).toMillis() == content.mtime()
+                    && Files.size(content.path()) == content.hash().size()) {
+                return content.path();
+            }
+        } catch (IOException e) {
+            // 삭제되었거나 읽을 수 없음
+        }
+        byFastKey.remove(content.hash().fastKey(), content);
+        byStrong.remove(content.hash().sha256(), content);
+        return null;
+    }
+}
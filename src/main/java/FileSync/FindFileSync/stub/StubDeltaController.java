@@ -0,0 +1,60 @@
+package FileSync.FindFileSync.stub;
+
+import FileSync.FindFileSync.delta.DeltaPatcher;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+
+/**
+ * 스텁 서버의 델타 적용 API. 저장된 파일을 기준으로 델타를 적용하고 결과를 검증한 뒤 교체한다.
+ */
+@Slf4j
+@Profile("stub")
+@RestController
+@RequestMapping("/file")
+public class StubDeltaController {
+
+    @Autowired
+    private StubStorage storage;
+
+    @Autowired
+    private StubContentStore contentStore;
+
+    @PostMapping("/delta")
+    public ResponseEntity<String> delta(@RequestParam("path") String path,
+                                        @RequestParam(value = "lastModified", required = false) Long lastModified,
+                                        InputStream body) throws IOException {
+        Path target = storage.resolve(path);
+        Path patched = Files.createTempFile(storage.workDir(), "delta-", ".tmp");
+        try {
+            DeltaPatcher.apply(new BufferedInputStream(body, 256 * 1024), target, patched);
+            Files.move(patched, target, StandardCopyOption.REPLACE_EXISTING);
+            if (lastModified != null) {
+                Files.setLastModifiedTime(target, FileTime.fromMillis(lastModified));
+            }
+            contentStore.register(target);
+            return ResponseEntity.ok("patched");
+        } catch (DeltaPatcher.BaseMismatchException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (IOException e) {
+            log.warn("델타 적용 실패: {}", path, e);
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(e.getMessage());
+        } finally {
+            Files.deleteIfExists(patched);
+        }
+    }
+}
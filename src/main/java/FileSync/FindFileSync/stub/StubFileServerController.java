@@ -0,0 +1,214 @@
+package FileSync.FindFileSync.stub;
+
+import FileSync.FindFileSync.dto.FileDigest;
+import FileSync.FindFileSync.dto.ManifestEntry;
+import FileSync.FindFileSync.integrity.ChecksumTrailer;
+import FileSync.FindFileSync.integrity.SegmentHasher;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RequestPart;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * 오프라인 테스트용 로컬 동기화 서버.
+ * <p>
+ * {@code stub} 프로파일에서만 활성화되며, 실제 서버의 /file/** API를
+ * {@link StubStorage} 디렉토리에 파일로 저장하는 방식으로 흉내낸다. 동기화 엔진
+ * ({@link FileSync.FindFileSync.controller.FileSyncController})은 웹 서버가 포트를 연 뒤에 시작하므로
+ * 최초 동기화의 매니페스트 비교도 이 스텁으로 간다.
+ */
+@Slf4j
+@Profile("stub")
+@RestController
+@RequestMapping("/file")
+public class StubFileServerController {
+
+    @Autowired
+    private StubStorage storage;
+
+    @Autowired
+    private StubContentStore contentStore;
+
+    @PostMapping("/upload")
+    public ResponseEntity<String> upload(@RequestPart("file") MultipartFile file,
+                                         @RequestParam("path") String path,
+                                         @RequestParam(value = "lastModified", required = false) Long lastModified) throws IOException {
+        Path target = resolve(path);
+        Files.createDirectories(target.getParent());
+        file.transferTo(target);
+        if (lastModified != null) {
+            Files.setLastModifiedTime(target, FileTime.fromMillis(lastModified));
+        }
+        contentStore.register(target);
+        return ResponseEntity.ok("uploaded");
+    }
+
+    // gzip으로 압축된 파일을 풀어서 저장. 풀린 크기나 gzip CRC가 맞지 않으면 저장하지 않는다
+    @PostMapping("/upload/compressed")
+    public ResponseEntity<String> uploadCompressed(@RequestPart("file") MultipartFile file,
+                                                   @RequestParam("path") String path,
+                                                   @RequestParam("encoding") String encoding,
+                                                   @RequestParam("size") long size,
+                                                   @RequestParam(value = "lastModified", required = false) Long lastModified) throws IOException {
+        if (!"gzip".equals(encoding)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("지원하지 않는 압축 형식: " + encoding);
+        }
+        Path target = resolve(path);
+        Files.createDirectories(target.getParent());
+        Path tmp = Files.createTempFile(storage.workDir(), "upload-", ".tmp");
+        try {
+            try (InputStream in = new GZIPInputStream(file.getInputStream(), 64 * 1024)) {
+                Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                log.warn("압축 해제 실패: {}", path, e);
+                return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body("압축 해제 실패: " + e.getMessage());
+            }
+            if (Files.size(tmp) != size) {
+                return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body("크기 불일치: " + Files.size(tmp) + " != " + size);
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        if (lastModified != null) {
+            Files.setLastModifiedTime(target, FileTime.fromMillis(lastModified));
+        }
+        contentStore.register(target);
+        return ResponseEntity.ok("uploaded");
+    }
+
+    // 본문 끝의 CRC32C/크기 꼬리(IntegrityFormat)가 받은 내용과 맞을 때만 저장
+    @PostMapping("/upload/verified")
+    public ResponseEntity<String> uploadVerified(@RequestPart("file") MultipartFile file,
+                                                 @RequestParam("path") String path,
+                                                 @RequestParam(value = "lastModified", required = false) Long lastModified) throws IOException {
+        Path target = resolve(path);
+        Files.createDirectories(target.getParent());
+        Path tmp = Files.createTempFile(storage.workDir(), "upload-", ".tmp");
+        try {
+            boolean verified;
+            try (InputStream in = file.getInputStream(); OutputStream out = Files.newOutputStream(tmp)) {
+                verified = ChecksumTrailer.copyVerified(in, out);
+            }
+            if (!verified) {
+                log.warn("업로드 체크섬 불일치: {}", path);
+                return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body("체크섬 불일치");
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        if (lastModified != null) {
+            Files.setLastModifiedTime(target, FileTime.fromMillis(lastModified));
+        }
+        contentStore.register(target);
+        return ResponseEntity.ok("uploaded");
+    }
+
+    // 저장된 파일의 구간별 CRC32C (무결성 검사용)
+    @GetMapping("/hash")
+    public ResponseEntity<FileDigest> hash(@RequestParam("path") String path,
+                                           @RequestParam("segmentBytes") long segmentBytes) throws IOException {
+        if (segmentBytes <= 0 || segmentBytes > Integer.MAX_VALUE) {
+            return ResponseEntity.badRequest().build();
+        }
+        Path target = resolve(path);
+        if (!Files.isRegularFile(target)) {
+            return ResponseEntity.ok(new FileDigest(false, 0, List.of()));
+        }
+        long[] crcs = SegmentHasher.hash(target, segmentBytes, null, null);
+        return ResponseEntity.ok(new FileDigest(true, Files.size(target), SegmentHasher.toHex(crcs)));
+    }
+
+    @GetMapping("/exists")
+    public Boolean exists(@RequestParam("path") String path) {
+        return Files.isRegularFile(resolve(path));
+    }
+
+    @GetMapping("/delete")
+    public ResponseEntity<String> delete(@RequestParam("path") String path) throws IOException {
+        Files.deleteIfExists(resolve(path));
+        return ResponseEntity.ok("deleted");
+    }
+
+    @PostMapping("/update/dir")
+    public ResponseEntity<String> updateDir(@RequestBody Map<String, String> body) throws IOException {
+        Files.createDirectories(resolve(body.get("path")));
+        return ResponseEntity.ok("updated");
+    }
+
+    @DeleteMapping("/deleteDirectory")
+    public ResponseEntity<String> deleteDirectory(@RequestBody Map<String, String> body) throws IOException {
+        Path dir = resolve(body.get("path"));
+        if (!Files.isDirectory(dir) || dir.equals(storage.root())) {
+            return ResponseEntity.ok("not found");
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path p : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(p);
+            }
+        }
+        return ResponseEntity.ok("deleted");
+    }
+
+    @PostMapping("/move")
+    public ResponseEntity<String> move(@RequestBody Map<String, String> body) throws IOException {
+        Path from = resolve(body.get("from"));
+        Path to = resolve(body.get("to"));
+        if (!Files.exists(from)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("not found");
+        }
+        Files.createDirectories(to.getParent());
+        Files.move(from, to, StandardCopyOption.REPLACE_EXISTING);
+        return ResponseEntity.ok("moved");
+    }
+
+    /**
+     * 크기나 수정 시각이 다르거나 없는 파일의 경로만 돌려준다.
+     */
+    @PostMapping("/manifest/diff")
+    public List<String> diffManifest(@RequestBody List<ManifestEntry> entries) {
+        List<String> needed = new ArrayList<>();
+        for (ManifestEntry entry : entries) {
+            Path target = resolve(entry.path());
+            try {
+                BasicFileAttributes attrs = Files.readAttributes(target, BasicFileAttributes.class);
+                if (attrs.size() != entry.size() || attrs.lastModifiedTime().toMillis() != entry.mtime()) {
+                    needed.add(entry.path());
+                }
+            } catch (IOException e) {
+                needed.add(entry.path());
+            }
+        }
+        return needed;
+    }
+
+    private Path resolve(String path) {
+        return storage.resolve(path);
+    }
+}
@@ -0,0 +1,63 @@
+package FileSync.FindFileSync.stub;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * 스텁 서버의 저장소 디렉토리. 클라이언트가 보낸 상대 경로를 저장소 안의 경로로 바꾼다.
+ */
+@Slf4j
+@Profile("stub")
+@Component
+public class StubStorage {
+
+    @Value("${config.stub.storageDir:stub-storage}")
+    private String storageDir;
+
+    private Path root;
+    private Path workDir;
+
+    @PostConstruct
+    public void init() throws IOException {
+        root = Paths.get(storageDir).toAbsolutePath().normalize();
+        // 청크 등 작업용 파일은 저장소 밖에 둔다
+        workDir = root.resolveSibling(root.getFileName() + "-work");
+        Files.createDirectories(root);
+        Files.createDirectories(workDir);
+        log.info("스텁 서버 저장소: {}", root);
+    }
+
+    public Path root() {
+        return root;
+    }
+
+    public Path workDir() {
+        return workDir;
+    }
+
+    // 클라이언트가 보낸 상대 경로(윈도우/유닉스 구분자 모두)를 저장소 안의 경로로 변환
+    public Path resolve(String path) {
+        if (path == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "경로가 없습니다");
+        }
+        String normalized = path.replace('\\', '/');
+        while (normalized.startsWith("/")) {
+            normalized = normalized.substring(1);
+        }
+        Path resolved = root.resolve(normalized).normalize();
+        if (!resolved.startsWith(root)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "잘못된 경로: " + path);
+        }
+        return resolved;
+    }
+}
@@ -0,0 +1,85 @@
+package FileSync.FindFileSync.target;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 일관 해싱 링. 서버마다 가상 노드를 여러 개 두므로 서버가 하나 늘거나 줄어도
+ * 그 서버 몫의 경로만 옮겨 간다. 만든 뒤에는 바뀌지 않으므로 잠금 없이 여러 스레드에서 쓴다.
+ */
+final class HashRing {
+
+    // 정렬된 가상 노드 위치와 그 위치의 서버 번호
+    private final long[] points;
+    private final int[] owners;
+    private final List<SyncTarget> targets;
+
+    HashRing(List<SyncTarget> targets, int virtualNodes) {
+        this.targets = List.copyOf(targets);
+        int count = targets.size() * virtualNodes;
+        long[] positions = new long[count];
+        Integer[] order = new Integer[count];
+        for (int node = 0; node < count; node++) {
+            positions[node] = hash(targets.get(node / virtualNodes).address() + "#" + node % virtualNodes);
+            order[node] = node;
+        }
+        // 만들 때 한 번만 정렬하므로 박싱 비용은 문제가 되지 않는다
+        Arrays.sort(order, (a, b) -> Long.compare(positions[a], positions[b]));
+        points = new long[count];
+        owners = new int[count];
+        for (int i = 0; i < count; i++) {
+            points[i] = positions[order[i]];
+            owners[i] = order[i] / virtualNodes;
+        }
+    }
+
+    /**
+     * key의 위치부터 시계 방향으로 만나는 서로 다른 서버 replicas개 (서버 수보다 많으면 전체).
+     */
+    List<SyncTarget> lookup(String key, int replicas) {
+        int wanted = Math.min(replicas, targets.size());
+        List<SyncTarget> result = new ArrayList<>(wanted);
+        int start = ceiling(hash(key));
+        boolean[] taken = new boolean[targets.size()];
+        for (int i = 0; i < points.length && result.size() < wanted; i++) {
+            int owner = owners[(start + i) % points.length];
+            if (!taken[owner]) {
+                taken[owner] = true;
+                result.add(targets.get(owner));
+            }
+        }
+        return result;
+    }
+
+    // position 이상인 첫 가상 노드 (없으면 처음으로 돌아감)
+    private int ceiling(long position) {
+        int low = 0;
+        int high = points.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (points[mid] < position) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low == points.length ? 0 : low;
+    }
+
+    // 64비트 FNV-1a + 섞기 (운영체제와 관계없이 같은 경로가 같은 서버로 가도록 구분자는 '/'로 맞춤)
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.replace('\\', '/').getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,36 @@
+package FileSync.FindFileSync.target;
+
+import FileSync.FindFileSync.transport.SyncTransport;
+
+/**
+ * 파일을 받는 서버 하나. 서버마다 자기 커넥션 풀({@link SyncTransport})을 가진다.
+ */
+public final class SyncTarget {
+
+    private final String address;
+    private final SyncTransport transport;
+
+    SyncTarget(String address, SyncTransport transport) {
+        this.address = address;
+        this.transport = transport;
+    }
+
+    // host:port
+    public String address() {
+        return address;
+    }
+
+    public SyncTransport transport() {
+        return transport;
+    }
+
+    // 서버 API 경로(/file/...)의 전체 URL
+    public String url(String path) {
+        return "http://" + address + path;
+    }
+
+    @Override
+    public String toString() {
+        return address;
+    }
+}
@@ -0,0 +1,170 @@
+package FileSync.FindFileSync.target;
+
+import FileSync.FindFileSync.scheduler.UploadPriority;
+import FileSync.FindFileSync.scheduler.UploadScheduler;
+import FileSync.FindFileSync.transport.SyncTransportFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 파일을 받는 서버 목록과 경로별 서버 선택.
+ * <p>
+ * {@code config.targets.servers}가 비어 있으면 {@code config.serverUrl} 하나에 공유 커넥션 풀로 보내고,
+ * 작업도 호출 스레드에서 바로 실행하므로 예전과 같다. 서버가 여러 대면
+ * <ul>
+ *     <li>파일은 상대 경로의 일관 해싱({@link HashRing})으로 고른 {@code config.targets.replicas}대에 올린다.
+ *     서버를 추가하면 새 서버 몫의 경로만 옮겨 간다.</li>
+ *     <li>디렉토리 생성/삭제는 모든 서버에 보낸다 (하위 파일이 여러 서버에 흩어져 있으므로).</li>
+ *     <li>서버마다 커넥션 풀과 {@link UploadScheduler} 대기열을 따로 두어, 느린 서버가 다른 서버의 전송을 막지 않는다.
+ *     서버 대기열에는 기다리지 않고 넣으므로, 대기열이 가득 찬 서버의 작업은 실패로 끝나 저널의 백오프로 다시 시도한다.</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class SyncTargets {
+
+    /**
+     * 서버 하나에 대한 작업. 묶음 전송처럼 나중에 끝나는 작업은 완료되지 않은 future를 돌려준다.
+     */
+    @FunctionalInterface
+    public interface TargetJob {
+        CompletableFuture<Boolean> run(SyncTarget target) throws Exception;
+    }
+
+    @Value("${config.serverUrl:}")
+    private String serverUrl;
+
+    // host:port (쉼표 구분)
+    @Value("${config.targets.servers:}")
+    private String servers;
+
+    @Value("${config.targets.replicas:1}")
+    private int replicas;
+
+    @Value("${config.targets.virtualNodes:160}")
+    private int virtualNodes;
+
+    // 서버별 대기열의 동시 실행 수 (0이면 업로드 스케줄러와 같음)
+    @Value("${config.targets.concurrency:0}")
+    private int concurrency;
+
+    @Autowired
+    private SyncTransportFactory transportFactory;
+
+    @Autowired
+    private UploadScheduler uploadScheduler;
+
+    private List<SyncTarget> targets;
+    private HashRing ring;
+
+    @PostConstruct
+    public void init() {
+        if (replicas < 1) {
+            throw new IllegalArgumentException("알 수 없는 config.targets.replicas: " + replicas);
+        }
+        Set<String> addresses = new LinkedHashSet<>();
+        for (String address : (servers.isBlank() ? serverUrl : servers).split(",")) {
+            if (!address.isBlank()) {
+                addresses.add(address.trim());
+            }
+        }
+
+        List<SyncTarget> created = new ArrayList<>();
+        if (addresses.size() <= 1) {
+            // 서버 하나: 공유 커넥션 풀, 기본 대기열
+            String address = addresses.isEmpty() ? serverUrl : addresses.iterator().next();
+            created.add(new SyncTarget(address, transportFactory.shared()));
+        } else {
+            for (String address : addresses) {
+                created.add(new SyncTarget(address, transportFactory.create()));
+                uploadScheduler.openLane(address, concurrency);
+            }
+        }
+        targets = List.copyOf(created);
+        ring = new HashRing(targets, virtualNodes);
+        if (targets.size() > 1) {
+            log.info("동기화 서버 {}대: {} (경로마다 {}대에 복제)", targets.size(), targets, Math.min(replicas, targets.size()));
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        // 공유 커넥션 풀은 SyncTransportFactory가 닫는다
+        if (targets.size() > 1) {
+            targets.forEach(target -> target.transport().close());
+        }
+    }
+
+    public List<SyncTarget> all() {
+        return targets;
+    }
+
+    /**
+     * 모든 경로가 모든 서버에 있으면 true (서버가 하나이거나 복제 수가 서버 수 이상).
+     * 디렉토리를 서버 안에서 옮길 수 있는지 판단하는 데 쓴다.
+     */
+    public boolean isFullyReplicated() {
+        return replicas >= targets.size();
+    }
+
+    /**
+     * 파일이 올라갈 서버. 같은 상대 경로는 (서버 목록이 같으면) 항상 같은 서버로 간다.
+     */
+    public List<SyncTarget> targetsFor(String relativePath) {
+        if (isFullyReplicated()) {
+            return targets;
+        }
+        return ring.lookup(relativePath, replicas);
+    }
+
+    /**
+     * 작업을 서버의 대기열에 제출한다 (서버가 하나면 기본 대기열). 대기열이 가득 차 있으면 기다리지 않고
+     * {@link RejectedExecutionException}으로 완료된 future를 돌려주므로 업로드 스레드나 타이머에서 불러도 된다.
+     */
+    public <T> CompletableFuture<T> trySubmit(SyncTarget target, UploadPriority priority, Callable<T> job) {
+        if (targets.size() == 1) {
+            return uploadScheduler.trySubmit(priority, job);
+        }
+        return uploadScheduler.trySubmit(target.address(), priority, job);
+    }
+
+    /**
+     * 서버마다 job을 실행하고, 모두 성공하면 true로 완료되는 future를 돌려준다.
+     * 서버가 하나면 호출 스레드에서 바로 실행하고, 여러 대면 서버별 대기열에 제출한다.
+     * 대기열이 가득 찬 서버는 기다리지 않고 실패로 치므로, 느린 서버 때문에 호출한 업로드 스레드가 멈추지 않는다.
+     */
+    public CompletableFuture<Boolean> fanOut(List<SyncTarget> selected, UploadPriority priority, TargetJob job) throws Exception {
+        if (targets.size() == 1) {
+            return selected.isEmpty() ? CompletableFuture.completedFuture(true) : job.run(selected.get(0));
+        }
+        CompletableFuture<Boolean> all = CompletableFuture.completedFuture(true);
+        for (SyncTarget target : selected) {
+            CompletableFuture<Boolean> result = trySubmit(target, priority, () -> job.run(target))
+                    .thenCompose(future -> future)
+                    .exceptionally(error -> {
+                        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                        if (cause instanceof RejectedExecutionException) {
+                            log.debug("서버 대기열이 가득 참, 나중에 다시 시도: {}", target);
+                        } else {
+                            log.warn("서버 작업 중 오류 발생: {}: {}", target, cause.getMessage());
+                        }
+                        return false;
+                    });
+            all = all.thenCombine(result, (a, b) -> a && b);
+        }
+        return all;
+    }
+}
@@ -0,0 +1,143 @@
+package FileSync.FindFileSync.transport;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.InterruptedIOException;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 서버로 보내는 대역폭을 제한하는 토큰 버킷.
+ * <p>
+ * 초당 {@code config.bandwidth.limitBytesPerSec} 바이트까지 보내고, {@code config.bandwidth.schedule}에 시간대별
+ * 제한을 두면 그 시간대에는 그 값을 쓴다 (예: {@code "09:00-18:00=1048576,18:00-09:00=0"}, 0은 무제한).
+ * 버킷 크기는 {@code config.bandwidth.burstMillis} 동안 보낼 수 있는 양이다.
+ * OkHttp는 소켓에 쓰기 전에 {@link #acquire}를 호출하므로 본문과 헤더가 모두 제한되고,
+ * RestTemplate은 업로드 본문을 읽을 때 호출한다.
+ */
+@Slf4j
+@Component
+public class BandwidthLimiter {
+
+    // 시간대 제한을 다시 확인하는 간격
+    private static final long RATE_CHECK_MILLIS = 1000;
+
+    @Value("${config.bandwidth.limitBytesPerSec:0}")
+    private long limitBytesPerSec;
+
+    @Value("${config.bandwidth.schedule:}")
+    private String schedule;
+
+    @Value("${config.bandwidth.burstMillis:1000}")
+    private long burstMillis;
+
+    // 시작 분 이상 끝 분 미만 (끝이 시작보다 작으면 자정을 넘김)
+    private record Window(int startMinute, int endMinute, long bytesPerSec) {
+
+        boolean contains(int minute) {
+            return startMinute <= endMinute
+                    ? minute >= startMinute && minute < endMinute
+                    : minute >= startMinute || minute < endMinute;
+        }
+    }
+
+    private final List<Window> windows = new ArrayList<>();
+
+    private volatile long rate;
+    private volatile long rateCheckedAt;
+
+    // 남은 토큰(바이트), 먼저 예약한 요청이 있으면 음수
+    private double tokens;
+    private long lastRefillNanos = System.nanoTime();
+
+    @PostConstruct
+    public void init() {
+        for (String item : schedule.split(",")) {
+            if (!item.isBlank()) {
+                windows.add(parseWindow(item.trim()));
+            }
+        }
+        rate = rateAt(LocalTime.now());
+        rateCheckedAt = System.currentTimeMillis();
+        if (isEnabled()) {
+            log.info("업로드 대역폭 제한: 기본 {} B/s, 시간대별 {}개", limitBytesPerSec, windows.size());
+        }
+    }
+
+    // 제한이 설정되어 있으면 true (시간대에 따라 지금은 무제한일 수 있음)
+    public boolean isEnabled() {
+        return limitBytesPerSec > 0 || !windows.isEmpty();
+    }
+
+    /**
+     * bytes만큼 보낼 수 있을 때까지 기다린다. 토큰을 먼저 예약하므로 여러 스레드가 나눠 써도 합계가 제한을 넘지 않는다.
+     */
+    public void acquire(long bytes) throws InterruptedIOException {
+        long bytesPerSec = currentRate();
+        if (bytesPerSec <= 0) {
+            return;
+        }
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            double capacity = Math.max(bytesPerSec * burstMillis / 1000.0, 1);
+            tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * bytesPerSec / 1e9);
+            lastRefillNanos = now;
+            tokens -= bytes;
+            waitNanos = tokens >= 0 ? 0 : (long) (-tokens * 1e9 / bytesPerSec);
+        }
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("대역폭 대기 중 인터럽트");
+            }
+        }
+    }
+
+    private long currentRate() {
+        long now = System.currentTimeMillis();
+        if (now - rateCheckedAt >= RATE_CHECK_MILLIS) {
+            long previous = rate;
+            rate = rateAt(LocalTime.now());
+            rateCheckedAt = now;
+            if (rate != previous) {
+                log.info("업로드 대역폭 제한 변경: {} -> {} B/s", previous, rate);
+            }
+        }
+        return rate;
+    }
+
+    private long rateAt(LocalTime time) {
+        int minute = time.getHour() * 60 + time.getMinute();
+        for (Window window : windows) {
+            if (window.contains(minute)) {
+                return window.bytesPerSec();
+            }
+        }
+        return limitBytesPerSec;
+    }
+
+    // "HH:mm-HH:mm=바이트"
+    private static Window parseWindow(String item) {
+        try {
+            int eq = item.indexOf('=');
+            int dash = item.indexOf('-');
+            if (eq < 0 || dash < 0 || dash > eq) {
+                throw new IllegalArgumentException(item);
+            }
+            LocalTime start = LocalTime.parse(item.substring(0, dash).trim());
+            LocalTime end = LocalTime.parse(item.substring(dash + 1, eq).trim());
+            long bytesPerSec = Long.parseLong(item.substring(eq + 1).trim());
+            return new Window(start.getHour() * 60 + start.getMinute(), end.getHour() * 60 + end.getMinute(), bytesPerSec);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("잘못된 config.bandwidth.schedule 항목 (HH:mm-HH:mm=바이트): " + item, e);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package FileSync.FindFileSync.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * {@link BodyWriter}가 밀어 넣는 내용을 읽는 스트림으로 바꾼다. 읽어 가야 하는 전송 계층(RestTemplate)이
+ * 압축 본문처럼 길이를 모르는 내용을 힙에 모으지 않고 보내는 데 쓴다.
+ * <p>
+ * 쓰기는 가상 스레드에서 하고 사이 버퍼는 {@link #BUFFER_BYTES}로 제한된다. 쓰다가 실패하면 읽는 쪽은 끝 대신
+ * 그 예외를 받으므로 잘린 본문으로 요청이 끝나지 않는다. 닫으면 아직 쓰는 중인 쪽도 실패로 끝난다.
+ */
+final class BodyPipe extends InputStream {
+
+    static final int BUFFER_BYTES = 64 * 1024;
+
+    private static final ThreadFactory WRITERS = Thread.ofVirtual().name("upload-body-", 1).factory();
+
+    private final PipedInputStream in;
+    private volatile IOException failure;
+
+    private BodyPipe(PipedInputStream in) {
+        this.in = in;
+    }
+
+    static BodyPipe start(BodyWriter body) throws IOException {
+        PipedInputStream in = new PipedInputStream(BUFFER_BYTES);
+        PipedOutputStream out = new PipedOutputStream(in);
+        BodyPipe pipe = new BodyPipe(in);
+        WRITERS.newThread(() -> {
+            try {
+                body.writeTo(out);
+            } catch (IOException e) {
+                pipe.failure = e;
+            } catch (RuntimeException e) {
+                pipe.failure = new IOException(e);
+            } finally {
+                // 실패를 먼저 기록해야 읽는 쪽이 끝을 보기 전에 알 수 있다
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    // 읽는 쪽이 이미 닫음
+                }
+            }
+        }).start();
+        return pipe;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = in.read();
+        if (b < 0 && failure != null) {
+            throw failure;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = in.read(b, off, len);
+        if (n < 0 && failure != null) {
+            throw failure;
+        }
+        return n;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return in.available();
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,14 @@
+package FileSync.FindFileSync.transport;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 요청 본문을 스트림으로 쓴다. 전송 계층이 재시도할 때 다시 호출될 수 있으므로 매번 처음부터 써야 한다.
+ */
+@FunctionalInterface
+public interface BodyWriter {
+
+    // out은 닫지 않는다
+    void writeTo(OutputStream out) throws IOException;
+}
@@ -0,0 +1,14 @@
+package FileSync.FindFileSync.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 요청 본문으로 보낼 내용을 연다. 전송 계층이 재시도할 때 다시 호출될 수 있으므로 매번 처음부터 읽는 새 스트림을 돌려줘야 한다.
+ */
+@FunctionalInterface
+public interface ContentSource {
+
+    // 호출자가 닫는다
+    InputStream open() throws IOException;
+}
@@ -0,0 +1,55 @@
+package FileSync.FindFileSync.transport;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 파일의 지정 구간을 {@link FileChannel#transferTo}로 소켓 쪽 싱크에 바로 흘려보내는 요청 본문.
+ * <p>
+ * 파일 전체를 힙 버퍼에 담지 않으며, 재시도 시 다시 열어서 처음부터 보낼 수 있다.
+ */
+public class FileChannelRequestBody extends RequestBody {
+
+    private static final MediaType OCTET_STREAM = MediaType.get("application/octet-stream");
+
+    private final Path file;
+    private final long offset;
+    private final long length;
+
+    public FileChannelRequestBody(Path file, long offset, long length) {
+        this.file = file;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return OCTET_STREAM;
+    }
+
+    @Override
+    public long contentLength() {
+        return length;
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long position = offset;
+            long end = offset + length;
+            while (position < end) {
+                long written = channel.transferTo(position, end - position, sink);
+                if (written <= 0) {
+                    throw new IOException("전송 중 파일이 줄어들었습니다: " + file);
+                }
+                position += written;
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package FileSync.FindFileSync.transport;
+
+import FileSync.FindFileSync.integrity.ChecksumTrailer;
+import FileSync.FindFileSync.integrity.IntegrityFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.MediaType;
+import okhttp3.MultipartBody;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * OkHttp 기반 전송 계층. 커넥션 풀과 keep-alive는 {@link SyncTransportFactory}가 설정한 클라이언트를 따른다.
+ */
+public class OkHttpTransport implements SyncTransport {
+
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+    private static final MediaType OCTET_STREAM = MediaType.get("application/octet-stream");
+
+    private final OkHttpClient client;
+    private final ObjectMapper objectMapper;
+
+    public OkHttpTransport(OkHttpClient client, ObjectMapper objectMapper) {
+        this.client = client;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public TransportResponse get(String url) throws IOException {
+        return execute(new Request.Builder().url(url).get().build());
+    }
+
+    @Override
+    public TransportResponse postJson(String url, Object body) throws IOException {
+        return execute(new Request.Builder().url(url).post(json(body)).build());
+    }
+
+    @Override
+    public TransportResponse deleteJson(String url, Object body) throws IOException {
+        return execute(new Request.Builder().url(url).delete(json(body)).build());
+    }
+
+    @Override
+    public TransportResponse uploadFile(String url, Map<String, String> fields, Path file) throws IOException {
+        MultipartBody.Builder multipart = new MultipartBody.Builder().setType(MultipartBody.FORM);
+        multipart.addFormDataPart("file", file.getFileName().toString(),
+                new FileChannelRequestBody(file, 0, Files.size(file)));
+        fields.forEach(multipart::addFormDataPart);
+
+        return execute(new Request.Builder().url(url).post(multipart.build()).build());
+    }
+
+    @Override
+    public TransportResponse uploadStream(String url, Map<String, String> fields, String fileName, BodyWriter body) throws IOException {
+        MultipartBody.Builder multipart = new MultipartBody.Builder().setType(MultipartBody.FORM);
+        multipart.addFormDataPart("file", fileName, new StreamingRequestBody(body));
+        fields.forEach(multipart::addFormDataPart);
+
+        return execute(new Request.Builder().url(url).post(multipart.build()).build());
+    }
+
+    @Override
+    public TransportResponse uploadVerified(String url, Map<String, String> fields, String fileName, long length,
+                                            ContentSource content) throws IOException {
+        BodyWriter body = out -> {
+            try (InputStream in = ChecksumTrailer.append(content.open())) {
+                in.transferTo(out);
+            }
+        };
+        MultipartBody.Builder multipart = new MultipartBody.Builder().setType(MultipartBody.FORM);
+        multipart.addFormDataPart("file", fileName, new StreamingRequestBody(body, length + IntegrityFormat.TRAILER_LENGTH));
+        fields.forEach(multipart::addFormDataPart);
+
+        return execute(new Request.Builder().url(url).post(multipart.build()).build());
+    }
+
+    @Override
+    public TransportResponse postFileRange(String url, Path file, long offset, long length) throws IOException {
+        return execute(new Request.Builder().url(url).post(new FileChannelRequestBody(file, offset, length)).build());
+    }
+
+    @Override
+    public TransportResponse postBytes(String url, byte[] body) throws IOException {
+        return execute(new Request.Builder().url(url).post(RequestBody.create(body, OCTET_STREAM)).build());
+    }
+
+    @Override
+    public void close() {
+        client.dispatcher().executorService().shutdown();
+        client.connectionPool().evictAll();
+    }
+
+    private RequestBody json(Object body) throws IOException {
+        return RequestBody.create(objectMapper.writeValueAsBytes(body), JSON);
+    }
+
+    private TransportResponse execute(Request request) throws IOException {
+        try (Response response = client.newCall(request).execute()) {
+            ResponseBody body = response.body();
+            return new TransportResponse(response.code(), body == null ? "" : body.string());
+        }
+    }
+}
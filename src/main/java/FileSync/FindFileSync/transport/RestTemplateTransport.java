@@ -0,0 +1,205 @@
+package FileSync.FindFileSync.transport;
+
+import FileSync.FindFileSync.integrity.ChecksumTrailer;
+import FileSync.FindFileSync.integrity.IntegrityFormat;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 기존 RestTemplate 방식의 전송 계층. OkHttp를 쓸 수 없는 환경을 위한 대안이다.
+ * <p>
+ * HttpURLConnection 소켓에는 끼어들 수 없으므로 대역폭 제한은 업로드 본문을 읽는 스트림({@link ThrottledInputStream})에서 한다.
+ * 본문을 메모리에 모으는 인터셉터는 쓰지 않는다. 작은 JSON 요청과 헤더는 제한에 포함되지 않는다.
+ * 압축 본문처럼 길이를 모르는 내용은 {@link BodyPipe}로 읽어서 chunked로 보내므로 역시 힙에 모으지 않는다.
+ */
+public class RestTemplateTransport implements SyncTransport {
+
+    private final RestTemplate restTemplate;
+    // null이면 제한 없음
+    private final BandwidthLimiter limiter;
+
+    public RestTemplateTransport(RestTemplate restTemplate, BandwidthLimiter limiter) {
+        this.restTemplate = restTemplate;
+        this.limiter = limiter;
+    }
+
+    @Override
+    public TransportResponse get(String url) throws IOException {
+        return execute(() -> restTemplate.getForEntity(url, String.class));
+    }
+
+    @Override
+    public TransportResponse postJson(String url, Object body) throws IOException {
+        return execute(() -> restTemplate.exchange(url, HttpMethod.POST, jsonEntity(body), String.class));
+    }
+
+    @Override
+    public TransportResponse deleteJson(String url, Object body) throws IOException {
+        return execute(() -> restTemplate.exchange(url, HttpMethod.DELETE, jsonEntity(body), String.class));
+    }
+
+    @Override
+    public TransportResponse uploadFile(String url, Map<String, String> fields, Path file) throws IOException {
+        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+        body.add("file", new FileSystemResource(file) {
+            @Override
+            public InputStream getInputStream() throws IOException {
+                return throttle(super.getInputStream());
+            }
+        });
+        fields.forEach(body::add);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+        HttpEntity<MultiValueMap<String, Object>> requestEntity = new HttpEntity<>(body, headers);
+
+        return execute(() -> restTemplate.postForEntity(url, requestEntity, String.class));
+    }
+
+    // 길이를 모르는 내용은 InputStreamResource로 넘겨야 RestTemplate이 길이를 재려고 미리 읽지 않고 chunked로 보낸다.
+    // 파일 이름은 파트 헤더로 정한다
+    @Override
+    public TransportResponse uploadStream(String url, Map<String, String> fields, String fileName, BodyWriter body) throws IOException {
+        try (BodyPipe content = BodyPipe.start(body)) {
+            HttpHeaders partHeaders = new HttpHeaders();
+            partHeaders.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+            partHeaders.setContentDisposition(ContentDisposition.formData().name("file").filename(fileName).build());
+
+            MultiValueMap<String, Object> form = new LinkedMultiValueMap<>();
+            form.add("file", new HttpEntity<>(new InputStreamResource(throttle(content)), partHeaders));
+            fields.forEach(form::add);
+
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+            HttpEntity<MultiValueMap<String, Object>> requestEntity = new HttpEntity<>(form, headers);
+
+            return execute(() -> restTemplate.postForEntity(url, requestEntity, String.class));
+        }
+    }
+
+    // 길이를 아는 리소스로 넘겨야 RestTemplate이 길이를 재려고 내용을 미리 읽지 않는다
+    @Override
+    public TransportResponse uploadVerified(String url, Map<String, String> fields, String fileName, long length,
+                                            ContentSource content) throws IOException {
+        MultiValueMap<String, Object> form = new LinkedMultiValueMap<>();
+        form.add("file", new AbstractResource() {
+            @Override
+            public String getDescription() {
+                return "검증 업로드 [" + fileName + "]";
+            }
+
+            @Override
+            public String getFilename() {
+                return fileName;
+            }
+
+            @Override
+            public long contentLength() {
+                return length + IntegrityFormat.TRAILER_LENGTH;
+            }
+
+            @Override
+            public InputStream getInputStream() throws IOException {
+                return throttle(ChecksumTrailer.append(content.open()));
+            }
+        });
+        fields.forEach(form::add);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+        HttpEntity<MultiValueMap<String, Object>> requestEntity = new HttpEntity<>(form, headers);
+
+        return execute(() -> restTemplate.postForEntity(url, requestEntity, String.class));
+    }
+
+    // RestTemplate은 구간 스트리밍을 지원하지 않으므로 구간(청크 크기 이하)을 메모리로 읽어서 보낸다
+    @Override
+    public TransportResponse postFileRange(String url, Path file, long offset, long length) throws IOException {
+        byte[] bytes = new byte[Math.toIntExact(length)];
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, offset + buffer.position()) < 0) {
+                    throw new IOException("전송 중 파일이 줄어들었습니다: " + file);
+                }
+            }
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+        HttpEntity<Object> requestEntity = new HttpEntity<>(octetStream(bytes), headers);
+
+        return execute(() -> restTemplate.postForEntity(url, requestEntity, String.class));
+    }
+
+    @Override
+    public TransportResponse postBytes(String url, byte[] body) throws IOException {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+        HttpEntity<Object> requestEntity = new HttpEntity<>(octetStream(body), headers);
+
+        return execute(() -> restTemplate.postForEntity(url, requestEntity, String.class));
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private InputStream throttle(InputStream in) {
+        return limiter == null ? in : new ThrottledInputStream(in, limiter);
+    }
+
+    // 제한이 있으면 바이트 배열도 스트림으로 읽히는 리소스로 보낸다
+    private Object octetStream(byte[] bytes) {
+        if (limiter == null) {
+            return bytes;
+        }
+        return new ByteArrayResource(bytes) {
+            @Override
+            public InputStream getInputStream() throws IOException {
+                return throttle(super.getInputStream());
+            }
+        };
+    }
+
+    private static HttpEntity<Object> jsonEntity(Object body) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        return new HttpEntity<>(body, headers);
+    }
+
+    // 4xx/5xx 응답은 예외 대신 상태 코드로, 연결 실패는 IOException으로 바꾼다
+    private static TransportResponse execute(Supplier<ResponseEntity<String>> call) throws IOException {
+        try {
+            ResponseEntity<String> response = call.get();
+            String body = response.getBody();
+            return new TransportResponse(response.getStatusCode().value(), body == null ? "" : body);
+        } catch (HttpStatusCodeException e) {
+            return new TransportResponse(e.getStatusCode().value(), e.getResponseBodyAsString());
+        } catch (ResourceAccessException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException(e);
+        }
+    }
+}
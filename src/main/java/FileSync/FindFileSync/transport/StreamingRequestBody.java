@@ -0,0 +1,43 @@
+package FileSync.FindFileSync.transport;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+
+import java.io.IOException;
+
+/**
+ * {@link BodyWriter}로 싱크에 바로 쓰는 요청 본문. 길이를 미리 알 수 없으면 chunked로 전송한다.
+ */
+public class StreamingRequestBody extends RequestBody {
+
+    private static final MediaType OCTET_STREAM = MediaType.get("application/octet-stream");
+
+    private final BodyWriter writer;
+    private final long contentLength;
+
+    public StreamingRequestBody(BodyWriter writer) {
+        this(writer, -1);
+    }
+
+    // contentLength: writer가 쓸 바이트 수
+    public StreamingRequestBody(BodyWriter writer, long contentLength) {
+        this.writer = writer;
+        this.contentLength = contentLength;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return OCTET_STREAM;
+    }
+
+    @Override
+    public long contentLength() {
+        return contentLength;
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+        writer.writeTo(sink.outputStream());
+    }
+}
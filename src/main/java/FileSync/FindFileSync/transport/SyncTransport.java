@@ -0,0 +1,55 @@
+package FileSync.FindFileSync.transport;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * 동기화 서버로 요청을 보내는 전송 계층.
+ * <p>
+ * 구현체는 {@code config.transport.type}으로 고른다 ({@link SyncTransportFactory} 참고).
+ * 모든 메서드는 연결 실패 시 {@link IOException}을 던지고, 서버의 오류 응답은 상태 코드로 돌려준다.
+ */
+public interface SyncTransport extends AutoCloseable {
+
+    TransportResponse get(String url) throws IOException;
+
+    // body를 JSON으로 직렬화해서 POST
+    TransportResponse postJson(String url, Object body) throws IOException;
+
+    // body를 JSON으로 직렬화해서 DELETE
+    TransportResponse deleteJson(String url, Object body) throws IOException;
+
+    /**
+     * 파일을 multipart/form-data의 {@code file} 파트로 전송한다. 파일 내용은 힙에 올리지 않고 스트리밍한다.
+     *
+     * @param fields 함께 보낼 일반 폼 필드
+     */
+    TransportResponse uploadFile(String url, Map<String, String> fields, Path file) throws IOException;
+
+    /**
+     * {@link BodyWriter}가 쓰는 내용(압축된 파일 등)을 multipart/form-data의 {@code file} 파트로 전송한다.
+     * 길이를 모르므로 chunked로 보내고, 내용은 힙에 모으지 않고 스트리밍한다.
+     *
+     * @param fileName {@code file} 파트의 파일 이름
+     */
+    TransportResponse uploadStream(String url, Map<String, String> fields, String fileName, BodyWriter body) throws IOException;
+
+    /**
+     * content가 여는 내용을 {@code file} 파트로 보내고, 보내면서 계산한 CRC32C와 크기를 꼬리로 붙인다
+     * ({@link FileSync.FindFileSync.integrity.IntegrityFormat}). 본문 길이를 미리 알리므로 내용을 힙에 모으지 않고 스트리밍한다.
+     *
+     * @param length 꼬리를 뺀 내용 길이 (보내는 동안 달라지면 요청이 실패한다)
+     */
+    TransportResponse uploadVerified(String url, Map<String, String> fields, String fileName, long length,
+                                     ContentSource content) throws IOException;
+
+    // 파일의 [offset, offset + length) 구간을 application/octet-stream 본문으로 POST
+    TransportResponse postFileRange(String url, Path file, long offset, long length) throws IOException;
+
+    // 메모리에 만든 본문을 application/octet-stream으로 POST
+    TransportResponse postBytes(String url, byte[] body) throws IOException;
+
+    @Override
+    void close();
+}
@@ -0,0 +1,113 @@
+package FileSync.FindFileSync.transport;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 설정({@code config.transport.*})에 맞는 {@link SyncTransport}를 만든다.
+ * <ul>
+ *     <li>{@code okhttp} (기본): 커넥션 풀 공유, HTTP/1.1 keep-alive, 선택적으로 h2c(HTTP/2 prior knowledge) 멀티플렉싱</li>
+ *     <li>{@code resttemplate}: 기존 RestTemplate + HttpURLConnection</li>
+ * </ul>
+ * {@link BandwidthLimiter}에 제한이 설정되어 있으면 OkHttp는 소켓 쓰기 단위로, RestTemplate은 업로드 본문을 읽는 단위로 제한한다.
+ */
+@Slf4j
+@Component
+public class SyncTransportFactory {
+
+    @Value("${config.transport.type:okhttp}")
+    private String type;
+
+    @Value("${config.transport.http2:false}")
+    private boolean http2;
+
+    @Value("${config.transport.maxIdleConnections:16}")
+    private int maxIdleConnections;
+
+    @Value("${config.transport.keepAliveSeconds:300}")
+    private long keepAliveSeconds;
+
+    @Value("${config.transport.maxRequestsPerHost:32}")
+    private int maxRequestsPerHost;
+
+    @Value("${config.transport.connectTimeoutMillis:10000}")
+    private int connectTimeoutMillis;
+
+    @Value("${config.transport.readTimeoutMillis:300000}")
+    private int readTimeoutMillis;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private BandwidthLimiter bandwidthLimiter;
+
+    private SyncTransport shared;
+
+    /**
+     * 애플리케이션 전체가 같이 쓰는 전송 계층 (커넥션 풀 공유).
+     */
+    public synchronized SyncTransport shared() {
+        if (shared == null) {
+            shared = create();
+        }
+        return shared;
+    }
+
+    /**
+     * 자체 커넥션 풀을 가진 새 전송 계층.
+     */
+    public SyncTransport create() {
+        if ("resttemplate".equalsIgnoreCase(type)) {
+            SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+            requestFactory.setConnectTimeout(connectTimeoutMillis);
+            requestFactory.setReadTimeout(readTimeoutMillis);
+            RestTemplate restTemplate = new RestTemplate(requestFactory);
+            log.info("전송 계층: RestTemplate");
+            return new RestTemplateTransport(restTemplate, bandwidthLimiter.isEnabled() ? bandwidthLimiter : null);
+        }
+        if (!"okhttp".equalsIgnoreCase(type)) {
+            throw new IllegalArgumentException("알 수 없는 config.transport.type: " + type);
+        }
+
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(maxRequestsPerHost * 4);
+        dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(maxIdleConnections, keepAliveSeconds, TimeUnit.SECONDS))
+                .dispatcher(dispatcher)
+                // h2c는 업그레이드 협상 없이 처음부터 HTTP/2로 말하는 방식만 지원된다
+                .protocols(http2 ? List.of(Protocol.H2_PRIOR_KNOWLEDGE) : List.of(Protocol.HTTP_1_1))
+                .connectTimeout(connectTimeoutMillis, TimeUnit.MILLISECONDS)
+                .readTimeout(readTimeoutMillis, TimeUnit.MILLISECONDS)
+                .writeTimeout(readTimeoutMillis, TimeUnit.MILLISECONDS);
+        if (bandwidthLimiter.isEnabled()) {
+            builder.socketFactory(new ThrottledSocketFactory(bandwidthLimiter));
+        }
+        OkHttpClient client = builder.build();
+        log.info("전송 계층: OkHttp ({}, 유휴 연결 {}개, keep-alive {}초)",
+                http2 ? "h2c" : "HTTP/1.1", maxIdleConnections, keepAliveSeconds);
+        return new OkHttpTransport(client, objectMapper);
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (shared != null) {
+            shared.close();
+        }
+    }
+}
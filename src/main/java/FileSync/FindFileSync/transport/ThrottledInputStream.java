@@ -0,0 +1,55 @@
+package FileSync.FindFileSync.transport;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 읽은 만큼 {@link BandwidthLimiter}를 거치는 스트림. 소켓에 끼어들 수 없는 전송 계층(RestTemplate)이
+ * 요청 본문으로 보낼 내용을 읽는 쪽에서 제한한다. 읽기는 {@link #SLICE_BYTES}씩 나눠서 예약이 한꺼번에 쌓이지 않게 한다.
+ */
+class ThrottledInputStream extends FilterInputStream {
+
+    // ThrottledSocketFactory와 같은 단위
+    private static final int SLICE_BYTES = 16 * 1024;
+
+    private final BandwidthLimiter limiter;
+
+    ThrottledInputStream(InputStream in, BandwidthLimiter limiter) {
+        super(in);
+        this.limiter = limiter;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = in.read();
+        if (b >= 0) {
+            limiter.acquire(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = in.read(b, off, Math.min(len, SLICE_BYTES));
+        if (n > 0) {
+            limiter.acquire(n);
+        }
+        return n;
+    }
+
+    // 건너뛴 바이트도 보내는 바이트이므로 읽어서 센다
+    @Override
+    public long skip(long n) throws IOException {
+        byte[] buffer = new byte[(int) Math.min(n, SLICE_BYTES)];
+        long skipped = 0;
+        while (skipped < n) {
+            int read = read(buffer, 0, (int) Math.min(n - skipped, buffer.length));
+            if (read < 0) {
+                break;
+            }
+            skipped += read;
+        }
+        return skipped;
+    }
+}
@@ -0,0 +1,104 @@
+package FileSync.FindFileSync.transport;
+
+import javax.net.SocketFactory;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+/**
+ * 쓰기마다 {@link BandwidthLimiter}를 거치는 소켓을 만든다. TLS도 이 소켓 위에 올라가므로 암호화된 바이트 기준으로 제한된다.
+ */
+class ThrottledSocketFactory extends SocketFactory {
+
+    // 한 번에 예약하는 최대 크기 (큰 쓰기가 한꺼번에 나가지 않도록 나눔)
+    private static final int SLICE_BYTES = 16 * 1024;
+
+    private final BandwidthLimiter limiter;
+
+    ThrottledSocketFactory(BandwidthLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    @Override
+    public Socket createSocket() {
+        return new ThrottledSocket(limiter);
+    }
+
+    @Override
+    public Socket createSocket(String host, int port) throws IOException {
+        Socket socket = createSocket();
+        socket.connect(new InetSocketAddress(host, port));
+        return socket;
+    }
+
+    @Override
+    public Socket createSocket(String host, int port, InetAddress localHost, int localPort) throws IOException {
+        Socket socket = createSocket();
+        socket.bind(new InetSocketAddress(localHost, localPort));
+        socket.connect(new InetSocketAddress(host, port));
+        return socket;
+    }
+
+    @Override
+    public Socket createSocket(InetAddress host, int port) throws IOException {
+        Socket socket = createSocket();
+        socket.connect(new InetSocketAddress(host, port));
+        return socket;
+    }
+
+    @Override
+    public Socket createSocket(InetAddress address, int port, InetAddress localAddress, int localPort) throws IOException {
+        Socket socket = createSocket();
+        socket.bind(new InetSocketAddress(localAddress, localPort));
+        socket.connect(new InetSocketAddress(address, port));
+        return socket;
+    }
+
+    private static final class ThrottledSocket extends Socket {
+
+        private final BandwidthLimiter limiter;
+        private OutputStream out;
+
+        ThrottledSocket(BandwidthLimiter limiter) {
+            this.limiter = limiter;
+        }
+
+        @Override
+        public synchronized OutputStream getOutputStream() throws IOException {
+            if (out == null) {
+                out = new ThrottledOutputStream(super.getOutputStream(), limiter);
+            }
+            return out;
+        }
+    }
+
+    private static final class ThrottledOutputStream extends FilterOutputStream {
+
+        private final BandwidthLimiter limiter;
+
+        ThrottledOutputStream(OutputStream out, BandwidthLimiter limiter) {
+            super(out);
+            this.limiter = limiter;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            limiter.acquire(1);
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                int slice = Math.min(len, SLICE_BYTES);
+                limiter.acquire(slice);
+                out.write(b, off, slice);
+                off += slice;
+                len -= slice;
+            }
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package FileSync.FindFileSync.transport;
+
+/**
+ * 전송 계층 응답. 상태 코드와 본문 문자열만 담는다.
+ *
+ * @param status HTTP 상태 코드
+ * @param body   응답 본문, 없으면 빈 문자열
+ */
+public record TransportResponse(int status, String body) {
+
+    public boolean isOk() {
+        return status == 200;
+    }
+}
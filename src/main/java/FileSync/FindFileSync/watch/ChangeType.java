@@ -0,0 +1,13 @@
+package FileSync.FindFileSync.watch;
+
+/**
+ * 병합된 파일 변경의 최종 종류.
+ */
+public enum ChangeType {
+    // 생성 또는 수정: 현재 내용을 업로드
+    UPSERT,
+    // 삭제
+    DELETE,
+    // 이름 변경/이동: 서버에서 옮기기만 하면 됨
+    MOVE
+}
@@ -0,0 +1,99 @@
+package FileSync.FindFileSync.watch;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 네이티브 감시를 쓰지 않는 디렉토리({@link WatchRegistry} 참고)를 주기적으로 폴링한다.
+ * <p>
+ * 매 주기마다 디렉토리 수정 시각만 스냅샷과 비교하고, 바뀐 디렉토리만 {@link SubtreeRescanner}로 인덱스와 비교한다.
+ * 디렉토리 수정 시각은 파일 내용이 바뀔 때는 바뀌지 않으므로, 제자리 수정을 잡으려고 폴링 디렉토리만
+ * {@code config.watch.pollFullRescanMillis} 동안 한 번씩 돌아가며 인덱스와 비교한다. 주기마다 그 몫만큼만 재확인하므로
+ * 비용이 한 시점에 몰리지 않고, 네이티브로 감시하는 디렉토리는 다시 읽지 않는다.
+ */
+@Slf4j
+@Component
+public class ColdDirectoryPoller {
+
+    @Value("${config.watch.pollIntervalMillis:5000}")
+    private long pollIntervalMillis;
+
+    @Value("${config.watch.pollFullRescanMillis:600000}")
+    private long fullRescanMillis;
+
+    @Autowired
+    private WatchRegistry watchRegistry;
+
+    @Autowired
+    private SubtreeRescanner subtreeRescanner;
+
+    private ScheduledExecutorService executor;
+    // 제자리 수정 확인을 이어 갈 디렉토리 번호
+    private int sweepCursor;
+
+    @PostConstruct
+    public void init() {
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cold-dir-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::poll, pollIntervalMillis, pollIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void poll() {
+        try {
+            if (watchRegistry.coldCount() > 0) {
+                List<Path> changed = new ArrayList<>();
+                List<Path> gone = new ArrayList<>();
+                watchRegistry.pollColdDirectories(changed, gone);
+                if (!changed.isEmpty() || !gone.isEmpty()) {
+                    log.info("폴링 감지: 바뀐 디렉토리 {}개, 사라진 디렉토리 {}개", changed.size(), gone.size());
+                }
+                for (Path dir : changed) {
+                    subtreeRescanner.rescanDirectory(dir);
+                }
+                // 사라진 디렉토리는 상위를 재확인하면 삭제된다
+                for (Path dir : gone) {
+                    if (dir.getParent() != null) {
+                        subtreeRescanner.rescanDirectory(dir.getParent());
+                    }
+                }
+
+                if (fullRescanMillis > 0) {
+                    sweep();
+                }
+            }
+            watchRegistry.adapt();
+        } catch (Exception e) {
+            log.error("디렉토리 폴링 중 오류 발생", e);
+        }
+    }
+
+    // 폴링 디렉토리가 fullRescanMillis마다 한 번씩 재확인되도록 이번 주기의 몫만 재확인
+    private void sweep() {
+        long cold = watchRegistry.coldCount();
+        int quota = (int) Math.min(Integer.MAX_VALUE, (cold * pollIntervalMillis + fullRescanMillis - 1) / fullRescanMillis);
+        List<Path> due = new ArrayList<>(quota);
+        sweepCursor = watchRegistry.coldDirectories(sweepCursor, quota, due);
+        for (Path dir : due) {
+            subtreeRescanner.rescanDirectory(dir);
+        }
+    }
+}
@@ -0,0 +1,416 @@
+package FileSync.FindFileSync.watch;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 감시 중인 디렉토리 트리의 압축된 메모리 스냅샷.
+ * <p>
+ * 디렉토리마다 Path 객체를 두지 않고, 이름 조각은 한 번만 보관(intern)해서 번호로 가리키며
+ * 부모/자식 관계, 수정 시각, 변경 빈도는 기본형 배열에 둔다. (부모 번호, 이름 번호) → 디렉토리 번호는
+ * open addressing 해시로 찾는다. 디렉토리 하나에 약 50바이트가 든다.
+ * 동기화 루트가 여러 개면 루트마다 트리가 따로 있고, 루트 번호는 0부터 루트 순서대로다.
+ * <p>
+ * 스레드 안전하지 않으므로 호출자가 잠근다.
+ */
+final class DirectorySnapshot {
+
+    static final int NONE = -1;
+
+    private static final byte REGISTERED = 1;
+    private static final byte HOT = 2;
+
+    private final Path[] roots;
+
+    // 이름 조각 (지우지 않음: 같은 이름이 여러 디렉토리에서 반복되므로 수가 많지 않다)
+    private final Map<String, Integer> segmentIds = new HashMap<>();
+    private String[] segments = new String[1024];
+    private int segmentCount;
+
+    // 디렉토리별 배열 (번호가 인덱스)
+    private int[] parent;
+    private int[] name;
+    private int[] firstChild;
+    private int[] nextSibling;
+    private int[] churn;
+    private int[] lastActivity;
+    private long[] mtime;
+    private byte[] flags;
+    private int highWater;
+    private int[] freeIds = new int[64];
+    private int freeCount;
+    private int registeredCount;
+    private int hotCount;
+
+    // (부모 번호 << 32 | 이름 번호) → 디렉토리 번호
+    private long[] tableKeys;
+    private int[] tableValues;
+    private int tableSize;
+
+    DirectorySnapshot(List<Path> roots) {
+        this.roots = roots.toArray(new Path[0]);
+        allocate(1024);
+        tableKeys = new long[2048];
+        tableValues = new int[2048];
+        Arrays.fill(tableValues, NONE);
+        // 루트는 부모가 없고 이름 대신 루트 순서를 가진다
+        for (int i = 0; i < this.roots.length; i++) {
+            newNode(NONE, i);
+        }
+    }
+
+    /**
+     * 디렉토리 번호, 없으면 {@link #NONE}.
+     */
+    int find(Path dir) {
+        int id = rootOf(dir);
+        if (id == NONE || dir.equals(roots[id])) {
+            return id;
+        }
+        Path root = roots[id];
+        for (Path segment : root.relativize(dir)) {
+            Integer segmentId = segmentIds.get(segment.toString());
+            if (segmentId == null) {
+                return NONE;
+            }
+            id = lookup(id, segmentId);
+            if (id == NONE) {
+                return NONE;
+            }
+        }
+        return id;
+    }
+
+    /**
+     * 디렉토리 번호, 없으면 (중간 디렉토리까지) 만든다. 루트 밖이면 {@link #NONE}.
+     */
+    int put(Path dir) {
+        int id = rootOf(dir);
+        if (id == NONE || dir.equals(roots[id])) {
+            return id;
+        }
+        Path root = roots[id];
+        for (Path segment : root.relativize(dir)) {
+            int segmentId = intern(segment.toString());
+            int child = lookup(id, segmentId);
+            id = child != NONE ? child : newNode(id, segmentId);
+        }
+        return id;
+    }
+
+    Path path(int id) {
+        int depth = 0;
+        int top = id;
+        for (; !isRoot(top); top = parent[top]) {
+            depth++;
+        }
+        String[] names = new String[depth];
+        for (int i = id; !isRoot(i); i = parent[i]) {
+            names[--depth] = segments[name[i]];
+        }
+        Path path = roots[name[top]];
+        for (String n : names) {
+            path = path.resolve(n);
+        }
+        return path;
+    }
+
+    void register(int id, long modified, boolean hot, int now) {
+        if ((flags[id] & REGISTERED) == 0) {
+            registeredCount++;
+            lastActivity[id] = now;
+        }
+        setHot(id, hot);
+        flags[id] |= REGISTERED;
+        mtime[id] = modified;
+    }
+
+    boolean isRegistered(int id) {
+        return id != NONE && (flags[id] & REGISTERED) != 0;
+    }
+
+    boolean isHot(int id) {
+        return (flags[id] & HOT) != 0;
+    }
+
+    void setHot(int id, boolean hot) {
+        boolean was = isHot(id);
+        if (hot && !was) {
+            flags[id] |= HOT;
+            hotCount++;
+        } else if (!hot && was) {
+            flags[id] &= ~HOT;
+            hotCount--;
+        }
+    }
+
+    long mtime(int id) {
+        return mtime[id];
+    }
+
+    void setMtime(int id, long modified) {
+        mtime[id] = modified;
+    }
+
+    // 변경이 관찰됨
+    void touch(int id, int now) {
+        if (churn[id] < Integer.MAX_VALUE) {
+            churn[id]++;
+        }
+        lastActivity[id] = now;
+    }
+
+    int churn(int id) {
+        return churn[id];
+    }
+
+    int lastActivity(int id) {
+        return lastActivity[id];
+    }
+
+    // 변경 빈도를 반으로 줄여 최근 변경에 가중치를 둔다
+    void decayChurn() {
+        for (int i = 0; i < highWater; i++) {
+            churn[i] >>>= 1;
+        }
+    }
+
+    int firstChild(int id) {
+        return firstChild[id];
+    }
+
+    int nextSibling(int id) {
+        return nextSibling[id];
+    }
+
+    // 번호 범위 (사용하지 않는 번호도 포함, isRegistered로 거른다)
+    int highWater() {
+        return highWater;
+    }
+
+    int registeredCount() {
+        return registeredCount;
+    }
+
+    int hotCount() {
+        return hotCount;
+    }
+
+    /**
+     * 디렉토리와 하위 디렉토리를 모두 지운다. 루트는 하위만 지우고 등록을 해제한다.
+     */
+    void removeTree(int id) {
+        if (id == NONE) {
+            return;
+        }
+        if (!isRoot(id)) {
+            unlinkFromParent(id);
+        }
+        int[] stack = new int[16];
+        int top = 0;
+        stack[top++] = id;
+        while (top > 0) {
+            int current = stack[--top];
+            for (int child = firstChild[current]; child != NONE; child = nextSibling[child]) {
+                if (top == stack.length) {
+                    stack = Arrays.copyOf(stack, top * 2);
+                }
+                stack[top++] = child;
+            }
+            if (isRoot(current)) {
+                clearState(current);
+                firstChild[current] = NONE;
+            } else {
+                free(current);
+            }
+        }
+    }
+
+    // 루트 노드는 처음에 만들어지고 지워지지 않으므로 번호가 루트 수보다 작다
+    private boolean isRoot(int id) {
+        return id < roots.length;
+    }
+
+    // dir이 속한 루트의 번호
+    private int rootOf(Path dir) {
+        for (int i = 0; i < roots.length; i++) {
+            if (dir.startsWith(roots[i])) {
+                return i;
+            }
+        }
+        return NONE;
+    }
+
+    private int intern(String segment) {
+        Integer existing = segmentIds.get(segment);
+        if (existing != null) {
+            return existing;
+        }
+        if (segmentCount == segments.length) {
+            segments = Arrays.copyOf(segments, segmentCount * 2);
+        }
+        segments[segmentCount] = segment;
+        segmentIds.put(segment, segmentCount);
+        return segmentCount++;
+    }
+
+    private int newNode(int parentId, int segmentId) {
+        int id;
+        if (freeCount > 0) {
+            id = freeIds[--freeCount];
+        } else {
+            if (highWater == parent.length) {
+                allocate(parent.length * 2);
+            }
+            id = highWater++;
+        }
+        parent[id] = parentId;
+        name[id] = segmentId;
+        firstChild[id] = NONE;
+        nextSibling[id] = NONE;
+        clearState(id);
+        if (parentId != NONE) {
+            nextSibling[id] = firstChild[parentId];
+            firstChild[parentId] = id;
+            insert(key(parentId, segmentId), id);
+        }
+        return id;
+    }
+
+    private void free(int id) {
+        clearState(id);
+        remove(key(parent[id], name[id]));
+        parent[id] = NONE;
+        firstChild[id] = NONE;
+        nextSibling[id] = NONE;
+        if (freeCount == freeIds.length) {
+            freeIds = Arrays.copyOf(freeIds, freeCount * 2);
+        }
+        freeIds[freeCount++] = id;
+    }
+
+    private void clearState(int id) {
+        if ((flags[id] & REGISTERED) != 0) {
+            registeredCount--;
+        }
+        if ((flags[id] & HOT) != 0) {
+            hotCount--;
+        }
+        flags[id] = 0;
+        churn[id] = 0;
+        lastActivity[id] = 0;
+        mtime[id] = 0;
+    }
+
+    private void unlinkFromParent(int id) {
+        int p = parent[id];
+        if (firstChild[p] == id) {
+            firstChild[p] = nextSibling[id];
+            return;
+        }
+        for (int sibling = firstChild[p]; sibling != NONE; sibling = nextSibling[sibling]) {
+            if (nextSibling[sibling] == id) {
+                nextSibling[sibling] = nextSibling[id];
+                return;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        int old = parent == null ? 0 : parent.length;
+        parent = grow(parent, capacity);
+        name = grow(name, capacity);
+        firstChild = grow(firstChild, capacity);
+        nextSibling = grow(nextSibling, capacity);
+        churn = grow(churn, capacity);
+        lastActivity = grow(lastActivity, capacity);
+        mtime = mtime == null ? new long[capacity] : Arrays.copyOf(mtime, capacity);
+        flags = flags == null ? new byte[capacity] : Arrays.copyOf(flags, capacity);
+        Arrays.fill(parent, old, capacity, NONE);
+    }
+
+    private static int[] grow(int[] array, int capacity) {
+        return array == null ? new int[capacity] : Arrays.copyOf(array, capacity);
+    }
+
+    // --- (부모, 이름) 해시 (linear probing, 삭제 시 뒤 항목을 당겨 채움) ---
+
+    private static long key(int parentId, int segmentId) {
+        return ((long) parentId << 32) | (segmentId & 0xffffffffL);
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & (tableKeys.length - 1);
+    }
+
+    private int lookup(int parentId, int segmentId) {
+        long key = key(parentId, segmentId);
+        int mask = tableKeys.length - 1;
+        for (int i = slot(key); tableValues[i] != NONE; i = (i + 1) & mask) {
+            if (tableKeys[i] == key) {
+                return tableValues[i];
+            }
+        }
+        return NONE;
+    }
+
+    private void insert(long key, int value) {
+        if ((tableSize + 1) * 2 > tableKeys.length) {
+            rehash(tableKeys.length * 2);
+        }
+        int mask = tableKeys.length - 1;
+        int i = slot(key);
+        while (tableValues[i] != NONE) {
+            i = (i + 1) & mask;
+        }
+        tableKeys[i] = key;
+        tableValues[i] = value;
+        tableSize++;
+    }
+
+    private void remove(long key) {
+        int mask = tableKeys.length - 1;
+        int i = slot(key);
+        while (tableValues[i] != NONE && tableKeys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        if (tableValues[i] == NONE) {
+            return;
+        }
+        // 비운 칸 뒤의 항목 중 원래 자리가 비운 칸 이전인 것을 당겨온다
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            if (tableValues[j] == NONE) {
+                break;
+            }
+            int home = slot(tableKeys[j]);
+            boolean stays = i <= j ? (i < home && home <= j) : (i < home || home <= j);
+            if (!stays) {
+                tableKeys[i] = tableKeys[j];
+                tableValues[i] = tableValues[j];
+                i = j;
+            }
+        }
+        tableValues[i] = NONE;
+        tableSize--;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = tableKeys;
+        int[] oldValues = tableValues;
+        tableKeys = new long[capacity];
+        tableValues = new int[capacity];
+        Arrays.fill(tableValues, NONE);
+        tableSize = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != NONE) {
+                insert(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+}
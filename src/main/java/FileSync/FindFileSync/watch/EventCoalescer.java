@@ -0,0 +1,185 @@
+package FileSync.FindFileSync.watch;
+
+import FileSync.FindFileSync.metrics.SyncMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * WatchService 이벤트를 경로별로 모아서 최종 상태만 내보내는 병합(debounce) 단계.
+ * <p>
+ * 같은 경로의 CREATE/MODIFY/DELETE 이벤트는 {@code config.watch.coalesceWindowMillis} 동안 합쳐진다.
+ * 창이 끝나면 파일 크기와 수정 시각을 다시 확인하고, 아직 바뀌고 있으면(쓰는 중인 대용량 파일)
+ * 한 창 더 기다린다. 멈춘 뒤에야 {@link FileChange} 하나를 다음 단계로 넘긴다.
+ * 계속 커지는 파일이 영원히 묶여 있지 않도록 {@code config.watch.maxHoldMillis}가 지나면 그대로 내보낸다.
+ */
+@Slf4j
+@Component
+public class EventCoalescer {
+
+    @Value("${config.watch.coalesceWindowMillis:1000}")
+    private long windowMillis;
+
+    @Value("${config.watch.maxHoldMillis:60000}")
+    private long maxHoldMillis;
+
+    @Autowired
+    private SyncMetrics syncMetrics;
+
+    private final Map<Path, Pending> pending = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService scheduler;
+
+    private volatile Consumer<FileChange> listener = change -> { };
+
+    private static final class Pending {
+        ChangeType type;
+        final long firstSeenAt;
+        long lastEventAt;
+        // 마지막으로 확인한 파일 상태 (-1: 아직 확인 안 함)
+        long lastSize = -1;
+        long lastMtime = -1;
+
+        Pending(ChangeType type, long now) {
+            this.type = type;
+            this.firstSeenAt = now;
+            this.lastEventAt = now;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "event-coalescer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        syncMetrics.gauge("filesync.watch.coalescing", "병합 대기 중인 경로 수", this, EventCoalescer::pendingCount);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    // 병합된 변경을 받을 다음 단계
+    public void setListener(Consumer<FileChange> listener) {
+        this.listener = listener;
+    }
+
+    public void onEvent(Path path, ChangeType type) {
+        long now = System.currentTimeMillis();
+        boolean[] created = {false};
+        pending.compute(path, (p, current) -> {
+            if (current == null) {
+                created[0] = true;
+                return new Pending(type, now);
+            }
+            // 마지막 이벤트가 최종 상태를 결정 (DELETE 후 CREATE는 다시 업로드)
+            current.type = type;
+            current.lastEventAt = now;
+            return current;
+        });
+        if (created[0]) {
+            schedule(path, windowMillis);
+        }
+    }
+
+    // 병합 대기 중인 경로 수
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    private void schedule(Path path, long delayMillis) {
+        scheduler.schedule(() -> fire(path), delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void fire(Path path) {
+        Pending snapshot = pending.get(path);
+        if (snapshot == null) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        // 파일 상태 확인은 맵 잠금 밖에서 한 번만
+        BasicFileAttributes attrs = null;
+        boolean missing = false;
+        if (snapshot.type == ChangeType.UPSERT) {
+            try {
+                attrs = Files.readAttributes(path, BasicFileAttributes.class);
+            } catch (NoSuchFileException e) {
+                missing = true;
+            } catch (IOException e) {
+                log.debug("파일 상태 확인 실패, 다시 시도: {}", path, e);
+            }
+        }
+        BasicFileAttributes observed = attrs;
+        boolean gone = missing;
+
+        long[] delay = {-1};
+        FileChange[] change = {null};
+        pending.computeIfPresent(path, (p, current) -> {
+            boolean expired = now - current.firstSeenAt >= maxHoldMillis;
+
+            // 창 안에 새 이벤트가 왔으면 남은 시간만큼 더 기다린다
+            long quietFor = now - current.lastEventAt;
+            if (quietFor < windowMillis && !expired) {
+                delay[0] = windowMillis - quietFor;
+                return current;
+            }
+
+            if (current.type == ChangeType.UPSERT) {
+                if (gone) {
+                    // 곧 DELETE 이벤트가 따라오거나 이미 지워진 상태이므로 삭제로 처리
+                    current.type = ChangeType.DELETE;
+                } else if (!expired && (observed == null || !isStable(current, observed))) {
+                    log.debug("파일이 아직 변경 중, 대기: {}", p);
+                    delay[0] = windowMillis;
+                    return current;
+                }
+            }
+
+            change[0] = new FileChange(p, current.type, current.firstSeenAt);
+            return null;
+        });
+
+        if (delay[0] >= 0) {
+            schedule(path, delay[0]);
+        } else if (change[0] != null) {
+            emit(change[0]);
+        }
+    }
+
+    // 직전 확인 이후 크기/수정 시각이 그대로면 true
+    private static boolean isStable(Pending current, BasicFileAttributes attrs) {
+        long size = attrs.size();
+        long mtime = attrs.lastModifiedTime().toMillis();
+        boolean stable = size == current.lastSize && mtime == current.lastMtime;
+        current.lastSize = size;
+        current.lastMtime = mtime;
+        return stable;
+    }
+
+    private void emit(FileChange change) {
+        try {
+            listener.accept(change);
+        } catch (Exception e) {
+            log.error("병합된 변경 처리 중 오류 발생: {}", change.path(), e);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package FileSync.FindFileSync.watch;
+
+import java.nio.file.Path;
+
+/**
+ * 병합 단계를 통과한 경로별 최종 변경.
+ *
+ * @param path        변경된 파일의 절대 경로 (MOVE면 새 경로)
+ * @param type        최종 변경 종류
+ * @param firstSeenAt 이 변경에 포함된 첫 이벤트 시각 (epoch millis)
+ * @param source      MOVE의 이전 경로, 그 외에는 null
+ */
+public record FileChange(Path path, ChangeType type, long firstSeenAt, Path source) {
+
+    public FileChange(Path path, ChangeType type, long firstSeenAt) {
+        this(path, type, firstSeenAt, null);
+    }
+}
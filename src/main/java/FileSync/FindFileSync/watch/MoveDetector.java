@@ -0,0 +1,222 @@
+package FileSync.FindFileSync.watch;
+
+import FileSync.FindFileSync.index.SyncStateIndex;
+import FileSync.FindFileSync.source.SourceRoots;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * DELETE 뒤에 짧은 시간 안에 들어온 CREATE를 같은 대상으로 판단되면 하나의 MOVE로 묶는다.
+ * <p>
+ * 디렉토리는 감시 등록 시 기록한 식별자(inode 등 {@link BasicFileAttributes#fileKey()}, 없으면 생성 시각)로,
+ * 파일은 동기화 인덱스에 기록된 크기와 수정 시각(이름 변경/이동 시 유지됨)으로 짝을 찾는다.
+ * 짝이 없으면 {@code config.watch.moveWindowMillis}가 지난 뒤 DELETE를 그대로 내보낸다.
+ */
+@Slf4j
+@Component
+public class MoveDetector {
+
+    @Value("${config.watch.moveWindowMillis:500}")
+    private long moveWindowMillis;
+
+    @Autowired
+    private SyncStateIndex syncStateIndex;
+
+    @Autowired
+    private SourceRoots sourceRoots;
+
+    // 감시 중인 디렉토리의 식별자 (삭제 후에는 속성을 읽을 수 없으므로 미리 기록)
+    private final Map<Path, Object> directoryIds = new ConcurrentHashMap<>();
+
+    // 짝을 기다리는 DELETE (들어온 순서 유지)
+    private final Map<Path, PendingDelete> pendingDeletes = new LinkedHashMap<>();
+
+    private ScheduledExecutorService scheduler;
+
+    private volatile Consumer<FileChange> listener = change -> { };
+
+    private record PendingDelete(long seenAt, Object directoryId, SyncStateIndex.Entry fileEntry) {
+    }
+
+    @PostConstruct
+    public void init() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "move-detector");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    // MOVE와 짝이 없는 DELETE를 받을 다음 단계
+    public void setListener(Consumer<FileChange> listener) {
+        this.listener = listener;
+    }
+
+    public void rememberDirectory(Path dir, BasicFileAttributes attrs) {
+        directoryIds.put(dir, identity(attrs));
+    }
+
+    /**
+     * DELETE 이벤트. 이동일 수 있는 대상(알려진 디렉토리, 인덱스에 있는 파일)이면 잠시 보류한다.
+     */
+    public void onDelete(Path path) {
+        long now = System.currentTimeMillis();
+        Object directoryId = directoryIds.get(path);
+        SyncStateIndex.Entry fileEntry = directoryId == null ? syncStateIndex.get(sourceRoots.relativePath(path)) : null;
+
+        if (directoryId == null && fileEntry == null) {
+            emit(new FileChange(path, ChangeType.DELETE, now));
+            return;
+        }
+
+        synchronized (pendingDeletes) {
+            pendingDeletes.put(path, new PendingDelete(now, directoryId, fileEntry));
+        }
+        scheduler.schedule(() -> expire(path), moveWindowMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * CREATE 이벤트. 보류 중인 DELETE와 짝이 맞으면 MOVE를 내보내고 true를 돌려준다.
+     */
+    public boolean onCreate(Path path) {
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return false;
+        }
+
+        // 새로 만든 빈 디렉토리는 지워진 디렉토리의 inode를 재사용했을 수 있으므로 이동으로 보지 않는다
+        if (attrs.isDirectory() && isEmptyDirectory(path)) {
+            return false;
+        }
+
+        Path source = null;
+        long seenAt = 0;
+        synchronized (pendingDeletes) {
+            if (pendingDeletes.isEmpty()) {
+                return false;
+            }
+            if (attrs.isDirectory()) {
+                Object id = identity(attrs);
+                for (Map.Entry<Path, PendingDelete> e : pendingDeletes.entrySet()) {
+                    if (id.equals(e.getValue().directoryId())) {
+                        source = e.getKey();
+                        break;
+                    }
+                }
+            } else {
+                source = findFile(path, attrs);
+            }
+            if (source != null) {
+                seenAt = pendingDeletes.remove(source).seenAt();
+            }
+        }
+
+        if (source == null) {
+            return false;
+        }
+        if (attrs.isDirectory()) {
+            forgetDirectoryTree(source);
+            directoryIds.put(path, identity(attrs));
+        }
+        log.debug("이동 감지: {} -> {}", source, path);
+        emit(new FileChange(path, ChangeType.MOVE, seenAt, source));
+        return true;
+    }
+
+    // 크기와 수정 시각이 같은 파일 중 이름이 같은 것을 우선
+    private Path findFile(Path path, BasicFileAttributes attrs) {
+        long size = attrs.size();
+        long mtime = attrs.lastModifiedTime().toMillis();
+        Path candidate = null;
+        int matches = 0;
+        for (Map.Entry<Path, PendingDelete> e : pendingDeletes.entrySet()) {
+            SyncStateIndex.Entry entry = e.getValue().fileEntry();
+            if (entry == null || !entry.matches(size, mtime)) {
+                continue;
+            }
+            if (Objects.equals(e.getKey().getFileName(), path.getFileName())) {
+                return e.getKey();
+            }
+            candidate = e.getKey();
+            matches++;
+        }
+        // 이름이 다르면 후보가 하나일 때만 같은 파일로 본다
+        return matches == 1 ? candidate : null;
+    }
+
+    private static boolean isEmptyDirectory(Path dir) {
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+            return !entries.iterator().hasNext();
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    private void expire(Path path) {
+        PendingDelete pending;
+        synchronized (pendingDeletes) {
+            pending = pendingDeletes.remove(path);
+        }
+        if (pending == null) {
+            return;
+        }
+        if (pending.directoryId() != null) {
+            forgetDirectoryTree(path);
+        }
+        emit(new FileChange(path, ChangeType.DELETE, pending.seenAt()));
+    }
+
+    // 폴링으로 옮겨진 디렉토리 (이동은 삭제 + 생성으로 처리됨)
+    public void forgetDirectory(Path dir) {
+        directoryIds.remove(dir);
+    }
+
+    public void forgetDirectoryTree(Path dir) {
+        Iterator<Path> it = directoryIds.keySet().iterator();
+        while (it.hasNext()) {
+            if (it.next().startsWith(dir)) {
+                it.remove();
+            }
+        }
+    }
+
+    private static Object identity(BasicFileAttributes attrs) {
+        Object fileKey = attrs.fileKey();
+        // 윈도우 등 fileKey가 없는 파일시스템에서는 생성 시각으로 대신한다 (이름 변경 시 유지됨)
+        return fileKey != null ? fileKey : "created:" + attrs.creationTime().toMillis();
+    }
+
+    private void emit(FileChange change) {
+        try {
+            listener.accept(change);
+        } catch (Exception e) {
+            log.error("이동 감지 결과 처리 중 오류 발생: {}", change.path(), e);
+        }
+    }
+}
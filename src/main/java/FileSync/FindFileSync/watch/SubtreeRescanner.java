@@ -0,0 +1,264 @@
+package FileSync.FindFileSync.watch;
+
+import FileSync.FindFileSync.filter.SyncFilter;
+import FileSync.FindFileSync.index.SyncStateIndex;
+import FileSync.FindFileSync.journal.OperationDispatcher;
+import FileSync.FindFileSync.journal.OperationType;
+import FileSync.FindFileSync.scan.ParallelTreeScanner;
+import FileSync.FindFileSync.source.SourceRoots;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 감시 이벤트가 유실되었을 때(OVERFLOW, 해제된 WatchKey) 해당 디렉토리만 다시 확인한다.
+ * <p>
+ * 요청은 {@code config.watch.rescanDelayMillis} 동안 모았다가 한 번에 처리하고, 재확인 사이에는
+ * 최소 {@code config.watch.rescanMinIntervalMillis}를 둔다. 디스크 상태를 동기화 인덱스(서버가 마지막으로 확인한 상태)와
+ * 비교해서 바뀐 파일만 업로드하고, 인덱스에는 있지만 사라진 파일/디렉토리만 삭제한다.
+ * <ul>
+ *     <li>디렉토리 재확인: 그 디렉토리의 파일과 새로 생긴 하위 디렉토리 (OVERFLOW는 디렉토리마다 따로 오므로)</li>
+ *     <li>트리 재확인: 하위 디렉토리 전체 (감시가 끊긴 디렉토리)</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class SubtreeRescanner {
+
+    @Value("${config.watch.rescanDelayMillis:2000}")
+    private long rescanDelayMillis;
+
+    @Value("${config.watch.rescanMinIntervalMillis:10000}")
+    private long minIntervalMillis;
+
+    @Autowired
+    private WatchRegistry watchRegistry;
+
+    @Autowired
+    private SyncFilter syncFilter;
+
+    @Autowired
+    private SyncStateIndex syncStateIndex;
+
+    @Autowired
+    private EventCoalescer eventCoalescer;
+
+    @Autowired
+    private OperationDispatcher operationDispatcher;
+
+    @Autowired
+    private ParallelTreeScanner treeScanner;
+
+    @Autowired
+    private SourceRoots sourceRoots;
+
+    private final Object lock = new Object();
+    private Set<Path> directories = new HashSet<>();
+    private Set<Path> trees = new HashSet<>();
+    private boolean scheduled;
+    private long lastPassAt;
+
+    private ScheduledExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "subtree-rescan");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // dir의 파일과 새 하위 디렉토리를 다시 확인
+    public void rescanDirectory(Path dir) {
+        request(dir, false);
+    }
+
+    // dir 아래 전체를 다시 확인 (감시도 다시 등록)
+    public void rescanTree(Path dir) {
+        request(dir, true);
+    }
+
+    private void request(Path dir, boolean tree) {
+        synchronized (lock) {
+            (tree ? trees : directories).add(dir);
+            if (scheduled) {
+                return;
+            }
+            scheduled = true;
+            long now = System.currentTimeMillis();
+            long delay = Math.max(rescanDelayMillis, lastPassAt + minIntervalMillis - now);
+            executor.schedule(this::runPass, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void runPass() {
+        Set<Path> shallow;
+        Set<Path> deep;
+        synchronized (lock) {
+            shallow = directories;
+            deep = trees;
+            directories = new HashSet<>();
+            trees = new HashSet<>();
+            scheduled = false;
+            lastPassAt = System.currentTimeMillis();
+        }
+        // 트리 재확인에 포함되는 요청은 버린다
+        deep.removeIf(dir -> coveredBy(dir.getParent(), deep));
+        shallow.removeIf(dir -> coveredBy(dir, deep));
+        log.info("유실된 감시 이벤트 재확인: 디렉토리 {}개, 트리 {}개", shallow.size(), deep.size());
+
+        try {
+            Set<Path> goneDirectories = removeGoneDirectories(shallow, deep);
+            for (Path dir : deep) {
+                scan(dir, true);
+            }
+            for (Path dir : shallow) {
+                scan(dir, false);
+            }
+            removeGoneFiles(shallow, deep, goneDirectories);
+        } catch (Exception e) {
+            log.error("감시 이벤트 재확인 중 오류 발생", e);
+        }
+    }
+
+    // 디스크와 인덱스를 비교해서 바뀐 파일만 병합 단계로 보낸다. 처음 보는 디렉토리는 감시를 등록하고 끝까지 확인
+    private void scan(Path root, boolean tree) throws IOException {
+        if (!Files.isDirectory(root) || syncFilter.isIgnoredDirectory(root)) {
+            return;
+        }
+        treeScanner.scan(root, new ParallelTreeScanner.Visitor() {
+            @Override
+            public boolean directory(Path dir, BasicFileAttributes attrs) throws IOException {
+                if (!dir.equals(root) && syncFilter.isIgnoredDirectory(dir)) {
+                    return false;
+                }
+                boolean known = watchRegistry.isWatched(dir);
+                if (tree || !known) {
+                    // 트리 재확인은 끊긴 감시를 다시 등록 (이미 유효한 키면 같은 키를 돌려받음)
+                    syncFilter.loadIgnoreFile(dir);
+                    watchRegistry.register(dir, attrs);
+                }
+                if (!known) {
+                    operationDispatcher.submit(OperationType.UPLOAD_DIR, relativePath(dir));
+                    return true;
+                }
+                return tree || dir.equals(root);
+            }
+
+            @Override
+            public void file(Path file, BasicFileAttributes attrs) {
+                if (syncFilter.acceptsFile(file)
+                        && !syncStateIndex.isUnchanged(relativePath(file), attrs.size(), attrs.lastModifiedTime().toMillis())) {
+                    eventCoalescer.onEvent(file, ChangeType.UPSERT);
+                }
+            }
+        });
+    }
+
+    // 감시 중이었지만 사라진 디렉토리는 감시를 해제하고 서버에서도 삭제
+    private Set<Path> removeGoneDirectories(Set<Path> shallow, Set<Path> deep) {
+        Set<Path> inScope = new HashSet<>();
+        for (Path dir : deep) {
+            inScope.addAll(watchRegistry.watchedDirectories(dir, true));
+        }
+        for (Path dir : shallow) {
+            inScope.addAll(watchRegistry.watchedDirectories(dir, false));
+        }
+        Set<Path> gone = new HashSet<>();
+        for (Path dir : inScope) {
+            if (!Files.isDirectory(dir) && !coveredBy(dir.getParent(), gone)) {
+                gone.add(dir);
+            }
+        }
+        // 상위가 함께 사라졌으면 상위만 삭제
+        gone.removeIf(dir -> coveredBy(dir.getParent(), gone));
+        for (Path dir : gone) {
+            log.info("사라진 디렉토리 삭제: {}", dir);
+            watchRegistry.cancelTree(dir);
+            operationDispatcher.submit(OperationType.DELETE_DIR, relativePath(dir));
+        }
+        return gone;
+    }
+
+    // 인덱스에는 있지만 디스크에서 사라진 파일을 삭제 이벤트로 보낸다 (인덱스 전체를 한 번만 훑음)
+    private void removeGoneFiles(Set<Path> shallow, Set<Path> deep, Set<Path> goneDirectories) {
+        Set<String> shallowPaths = new HashSet<>();
+        for (Path dir : shallow) {
+            shallowPaths.add(relativePath(dir));
+        }
+        List<String> deepPrefixes = new ArrayList<>();
+        for (Path dir : deep) {
+            deepPrefixes.add(prefixOf(dir));
+        }
+        List<String> gonePrefixes = new ArrayList<>();
+        for (Path dir : goneDirectories) {
+            gonePrefixes.add(prefixOf(dir));
+        }
+
+        for (String path : syncStateIndex.paths()) {
+            int slash = path.lastIndexOf(File.separatorChar);
+            String parent = slash < 0 ? "" : path.substring(0, slash);
+            if (!shallowPaths.contains(parent) && !startsWithAny(path, deepPrefixes)) {
+                continue;
+            }
+            if (startsWithAny(path, gonePrefixes)) {
+                // 디렉토리 삭제로 처리됨
+                continue;
+            }
+            Path file = sourceRoots.resolve(path);
+            if (!Files.exists(file)) {
+                eventCoalescer.onEvent(file, ChangeType.DELETE);
+            }
+        }
+    }
+
+    private static boolean coveredBy(Path dir, Set<Path> roots) {
+        for (Path p = dir; p != null; p = p.getParent()) {
+            if (roots.contains(p)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean startsWithAny(String path, List<String> prefixes) {
+        for (String prefix : prefixes) {
+            if (path.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // 하위 항목의 상대 경로가 시작하는 부분 (접두사 없는 루트 자신이면 전체)
+    private String prefixOf(Path dir) {
+        String relative = relativePath(dir);
+        return relative.isEmpty() ? "" : relative + File.separator;
+    }
+
+    private String relativePath(Path path) {
+        return sourceRoots.relativePath(path);
+    }
+}
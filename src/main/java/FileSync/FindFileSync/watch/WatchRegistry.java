@@ -0,0 +1,455 @@
+package FileSync.FindFileSync.watch;
+
+import FileSync.FindFileSync.filter.SyncFilter;
+import FileSync.FindFileSync.source.SourceRoot;
+import FileSync.FindFileSync.source.SourceRoots;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * 감시 중인 디렉토리를 관리한다. 디렉토리마다 네이티브 감시(WatchKey, "hot") 또는 폴링("cold") 중 하나로 감시한다.
+ * <p>
+ * 디렉토리마다 따로 감시하므로, 이동/삭제/이벤트 유실이 생기면 해당 디렉토리 아래만 해제하거나 다시 등록할 수 있다.
+ * 감시 중인 디렉토리 전체는 {@link DirectorySnapshot}에 압축해서 보관하고, 네이티브 감시는
+ * {@code config.watch.mode}에 따라 개수를 제한한다.
+ * <ul>
+ *     <li>native: 모든 디렉토리를 네이티브로 감시 (OS 한도에 걸리면 나머지는 폴링)</li>
+ *     <li>hybrid: {@code config.watch.maxNativeWatches}개까지만 네이티브로 감시하고, 자주 바뀌는 폴링 디렉토리와
+ *     오래 조용한 네이티브 디렉토리를 맞바꾼다 ({@link #adapt()})</li>
+ *     <li>poll: 모두 폴링 ({@link ColdDirectoryPoller})</li>
+ * </ul>
+ * 네이티브로 감시하는 디렉토리는 {@link MoveDetector}에 식별자를 알려 이름 변경을 감지할 수 있게 한다.
+ */
+@Slf4j
+@Component
+public class WatchRegistry {
+
+    // 폴링 시 잠금 없이 stat 하는 묶음 크기
+    private static final int POLL_BATCH = 1024;
+
+    // 수정 시각을 모름: 다음 폴링에서 한 번 재확인된다
+    private static final long UNKNOWN_MTIME = Long.MIN_VALUE;
+
+    @Value("${config.watch.mode:native}")
+    private String mode;
+
+    @Value("${config.watch.maxNativeWatches:8192}")
+    private int maxNativeWatches;
+
+    @Value("${config.watch.promoteChurn:4}")
+    private int promoteChurn;
+
+    @Value("${config.watch.demoteIdleMillis:600000}")
+    private long demoteIdleMillis;
+
+    @Autowired
+    private MoveDetector moveDetector;
+
+    @Autowired
+    private SyncFilter syncFilter;
+
+    @Autowired
+    private SourceRoots sourceRoots;
+
+    private volatile WatchService watchService;
+
+    // 네이티브로 감시 중인 디렉토리별 WatchKey
+    private final Map<Path, WatchKey> keys = new ConcurrentHashMap<>();
+
+    // 감시 중인 디렉토리 전체 (이 객체로 잠금)
+    private DirectorySnapshot snapshot;
+
+    private boolean adaptive;
+    private int configuredBudget;
+    private volatile int nativeBudget;
+    private final long startedAt = System.currentTimeMillis();
+
+    @PostConstruct
+    public void init() {
+        snapshot = new DirectorySnapshot(sourceRoots.all().stream().map(SourceRoot::path).toList());
+        if ("native".equalsIgnoreCase(mode)) {
+            configuredBudget = Integer.MAX_VALUE;
+        } else if ("hybrid".equalsIgnoreCase(mode)) {
+            configuredBudget = maxNativeWatches;
+            adaptive = true;
+        } else if ("poll".equalsIgnoreCase(mode)) {
+            configuredBudget = 0;
+        } else {
+            throw new IllegalArgumentException("알 수 없는 config.watch.mode: " + mode);
+        }
+        nativeBudget = configuredBudget;
+        log.info("디렉토리 감시 방식: {}", mode);
+    }
+
+    // 새 WatchService를 연다 (기존 서비스와 등록은 모두 버림)
+    public synchronized void open() throws IOException {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                log.warn("이전 WatchService 닫기 실패", e);
+            }
+        }
+        keys.clear();
+        synchronized (snapshot) {
+            for (SourceRoot root : sourceRoots.all()) {
+                snapshot.removeTree(snapshot.find(root.path()));
+            }
+        }
+        nativeBudget = configuredBudget;
+        watchService = FileSystems.getDefault().newWatchService();
+    }
+
+    public WatchKey take() throws InterruptedException {
+        return watchService.take();
+    }
+
+    /**
+     * 디렉토리를 감시한다. 이미 감시 중이면 방식(네이티브/폴링)을 유지하고, 새 디렉토리는 네이티브 감시 한도 안이면 네이티브로 감시한다.
+     */
+    public void register(Path dir, BasicFileAttributes attrs) throws IOException {
+        boolean hot;
+        synchronized (snapshot) {
+            int id = snapshot.put(dir);
+            if (id == DirectorySnapshot.NONE) {
+                throw new IOException("동기화 대상 밖의 디렉토리: " + dir);
+            }
+            hot = snapshot.isRegistered(id) ? snapshot.isHot(id) : snapshot.hotCount() < nativeBudget;
+            snapshot.register(id, attrs.lastModifiedTime().toMillis(), hot, now());
+        }
+        if (hot && !watchNatively(dir, attrs)) {
+            synchronized (snapshot) {
+                int id = snapshot.find(dir);
+                if (snapshot.isRegistered(id)) {
+                    snapshot.setHot(id, false);
+                }
+            }
+        }
+    }
+
+    /**
+     * start 아래 제외되지 않은 디렉토리를 모두 감시한다. 이전에 감시하지 않던 디렉토리마다 onNewDirectory를 호출한다.
+     */
+    public void registerTree(Path start, Consumer<Path> onNewDirectory) throws IOException {
+        Files.walkFileTree(start, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                if (syncFilter.isIgnoredDirectory(dir)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                syncFilter.loadIgnoreFile(dir);
+                boolean known = isWatched(dir);
+                try {
+                    register(dir, attrs);
+                } catch (IOException e) {
+                    // 등록하는 사이 삭제된 디렉토리
+                    log.warn("디렉토리 감시 등록 실패: {}: {}", dir, e.getMessage());
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                if (!known) {
+                    onNewDirectory.accept(dir);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    // 이동/삭제된 디렉토리와 하위 디렉토리의 감시 해제
+    public void cancelTree(Path dir) {
+        keys.entrySet().removeIf(e -> {
+            if (e.getKey().startsWith(dir)) {
+                e.getValue().cancel();
+                return true;
+            }
+            return false;
+        });
+        synchronized (snapshot) {
+            snapshot.removeTree(snapshot.find(dir));
+        }
+        moveDetector.forgetDirectoryTree(dir);
+    }
+
+    public boolean isWatched(Path dir) {
+        synchronized (snapshot) {
+            return snapshot.isRegistered(snapshot.find(dir));
+        }
+    }
+
+    // 직접 해제하거나 다시 등록해서 더 이상 쓰지 않는 키면 false
+    public boolean isCurrent(WatchKey key) {
+        return keys.get((Path) key.watchable()) == key;
+    }
+
+    /**
+     * dir(감시 중이면)과 그 아래 감시 중인 디렉토리. recursive가 false면 바로 아래 디렉토리만.
+     */
+    public List<Path> watchedDirectories(Path dir, boolean recursive) {
+        List<Path> result = new ArrayList<>();
+        synchronized (snapshot) {
+            int id = snapshot.find(dir);
+            if (id == DirectorySnapshot.NONE) {
+                return result;
+            }
+            if (snapshot.isRegistered(id)) {
+                result.add(dir);
+            }
+            int[] stack = new int[16];
+            int top = 0;
+            stack[top++] = id;
+            while (top > 0) {
+                int current = stack[--top];
+                for (int child = snapshot.firstChild(current); child != DirectorySnapshot.NONE; child = snapshot.nextSibling(child)) {
+                    if (snapshot.isRegistered(child)) {
+                        result.add(snapshot.path(child));
+                    }
+                    if (recursive) {
+                        if (top == stack.length) {
+                            stack = Arrays.copyOf(stack, top * 2);
+                        }
+                        stack[top++] = child;
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    // 감시 이벤트가 온 디렉토리: 네이티브 감시 유지 판단에 쓴다
+    public void recordActivity(Path dir) {
+        synchronized (snapshot) {
+            int id = snapshot.find(dir);
+            if (snapshot.isRegistered(id)) {
+                snapshot.touch(id, now());
+            }
+        }
+    }
+
+    // 폴링으로 감시 중인 디렉토리 수
+    public int coldCount() {
+        synchronized (snapshot) {
+            return snapshot.registeredCount() - snapshot.hotCount();
+        }
+    }
+
+    /**
+     * 폴링 디렉토리를 번호 순으로 from부터 최대 max개 out에 담고 다음에 이어 볼 번호를 돌려준다.
+     * 끝까지 봤으면 0을 돌려주므로 호출을 이어 가면 폴링 디렉토리 전체를 나눠서 한 바퀴씩 돈다.
+     */
+    public int coldDirectories(int from, int max, List<Path> out) {
+        synchronized (snapshot) {
+            int end = snapshot.highWater();
+            int id = from;
+            for (int added = 0; id < end && added < max; id++) {
+                if (snapshot.isRegistered(id) && !snapshot.isHot(id)) {
+                    out.add(snapshot.path(id));
+                    added++;
+                }
+            }
+            return id >= end ? 0 : id;
+        }
+    }
+
+    /**
+     * 폴링 디렉토리의 수정 시각을 스냅샷과 비교한다. 디렉토리의 수정 시각은 항목이 생기거나 지워지거나 이름이 바뀔 때만
+     * 바뀌므로, 바뀐 디렉토리만 목록을 다시 읽으면 된다. stat은 잠금 밖에서 묶음 단위로 한다.
+     *
+     * @param changed 수정 시각이 바뀐 디렉토리를 담을 목록
+     * @param gone    사라진 디렉토리를 담을 목록
+     */
+    public void pollColdDirectories(List<Path> changed, List<Path> gone) {
+        int[] ids = new int[POLL_BATCH];
+        Path[] paths = new Path[POLL_BATCH];
+        long[] mtimes = new long[POLL_BATCH];
+        int next = 0;
+        while (true) {
+            int count = 0;
+            synchronized (snapshot) {
+                int end = snapshot.highWater();
+                for (; next < end && count < POLL_BATCH; next++) {
+                    if (snapshot.isRegistered(next) && !snapshot.isHot(next)) {
+                        ids[count] = next;
+                        paths[count] = snapshot.path(next);
+                        mtimes[count] = snapshot.mtime(next);
+                        count++;
+                    }
+                }
+            }
+            if (count == 0) {
+                return;
+            }
+            for (int i = 0; i < count; i++) {
+                long modified;
+                try {
+                    BasicFileAttributes attrs = Files.readAttributes(paths[i], BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    if (!attrs.isDirectory()) {
+                        gone.add(paths[i]);
+                        continue;
+                    }
+                    modified = attrs.lastModifiedTime().toMillis();
+                } catch (IOException e) {
+                    gone.add(paths[i]);
+                    continue;
+                }
+                if (modified == mtimes[i]) {
+                    continue;
+                }
+                synchronized (snapshot) {
+                    // 그 사이 지워지고 번호가 재사용되지 않았는지 확인
+                    if (snapshot.find(paths[i]) != ids[i] || snapshot.isHot(ids[i])) {
+                        continue;
+                    }
+                    snapshot.setMtime(ids[i], modified);
+                    if (mtimes[i] != UNKNOWN_MTIME) {
+                        snapshot.touch(ids[i], now());
+                    }
+                }
+                changed.add(paths[i]);
+            }
+        }
+    }
+
+    /**
+     * hybrid 모드에서 자주 바뀌는 폴링 디렉토리를 네이티브 감시로 올리고, 자리가 없으면 {@code config.watch.demoteIdleMillis}
+     * 동안 조용했던 네이티브 디렉토리를 폴링으로 내린다. 변경 빈도는 호출마다 반으로 줄어 최근 변경에 가중치를 둔다.
+     */
+    public void adapt() {
+        if (!adaptive) {
+            return;
+        }
+        List<Path> promoted = new ArrayList<>();
+        List<Path> demoted = new ArrayList<>();
+        synchronized (snapshot) {
+            int end = snapshot.highWater();
+            int idleBefore = now() - (int) (demoteIdleMillis / 1000);
+            // (변경 빈도 << 32 | 번호), (마지막 활동 << 32 | 번호)로 묶어서 정렬
+            long[] candidates = new long[16];
+            int candidateCount = 0;
+            long[] idle = new long[16];
+            int idleCount = 0;
+            for (int id = 0; id < end; id++) {
+                if (!snapshot.isRegistered(id)) {
+                    continue;
+                }
+                if (!snapshot.isHot(id) && snapshot.churn(id) >= promoteChurn) {
+                    if (candidateCount == candidates.length) {
+                        candidates = Arrays.copyOf(candidates, candidateCount * 2);
+                    }
+                    candidates[candidateCount++] = ((long) snapshot.churn(id) << 32) | id;
+                } else if (snapshot.isHot(id) && snapshot.lastActivity(id) <= idleBefore) {
+                    if (idleCount == idle.length) {
+                        idle = Arrays.copyOf(idle, idleCount * 2);
+                    }
+                    idle[idleCount++] = ((long) snapshot.lastActivity(id) << 32) | id;
+                }
+            }
+            Arrays.sort(candidates, 0, candidateCount);
+            Arrays.sort(idle, 0, idleCount);
+
+            int free = nativeBudget - snapshot.hotCount();
+            int victim = 0;
+            for (int i = candidateCount - 1; i >= 0; i--) {
+                int id = (int) candidates[i];
+                if (free > 0) {
+                    free--;
+                } else if (victim < idleCount) {
+                    int demote = (int) idle[victim++];
+                    snapshot.setHot(demote, false);
+                    // 내리는 동안 놓친 이벤트가 있을 수 있으므로 다음 폴링에서 한 번 재확인
+                    snapshot.setMtime(demote, UNKNOWN_MTIME);
+                    demoted.add(snapshot.path(demote));
+                } else {
+                    break;
+                }
+                snapshot.setHot(id, true);
+                promoted.add(snapshot.path(id));
+            }
+            snapshot.decayChurn();
+        }
+
+        for (Path dir : demoted) {
+            WatchKey key = keys.remove(dir);
+            if (key != null) {
+                key.cancel();
+            }
+            moveDetector.forgetDirectory(dir);
+        }
+        for (Path dir : promoted) {
+            boolean watched;
+            try {
+                watched = watchNatively(dir, Files.readAttributes(dir, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS));
+            } catch (IOException e) {
+                // 사라진 디렉토리: 폴링이 처리
+                watched = false;
+            }
+            if (!watched) {
+                synchronized (snapshot) {
+                    int id = snapshot.find(dir);
+                    if (snapshot.isRegistered(id)) {
+                        snapshot.setHot(id, false);
+                    }
+                }
+            }
+        }
+        if (!promoted.isEmpty() || !demoted.isEmpty()) {
+            log.info("디렉토리 감시 방식 조정: 네이티브로 {}개, 폴링으로 {}개 (네이티브 {}/{})",
+                    promoted.size(), demoted.size(), keys.size(), nativeBudget);
+        }
+    }
+
+    // 네이티브 감시를 등록한다. OS 감시 한도에 걸리면 한도를 낮추고 false (디렉토리는 폴링으로 남음)
+    private boolean watchNatively(Path dir, BasicFileAttributes attrs) throws IOException {
+        try {
+            WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+            keys.put(dir, key);
+            moveDetector.rememberDirectory(dir, attrs);
+            return true;
+        } catch (IOException e) {
+            if (!Files.isDirectory(dir, LinkOption.NOFOLLOW_LINKS)) {
+                // 등록하는 사이 삭제된 디렉토리
+                synchronized (snapshot) {
+                    snapshot.removeTree(snapshot.find(dir));
+                }
+                throw e;
+            }
+            int limit = keys.size();
+            if (limit < nativeBudget) {
+                nativeBudget = limit;
+                log.warn("네이티브 감시 한도 도달({}개), 나머지 디렉토리는 폴링으로 감시합니다: {}", limit, e.getMessage());
+            }
+            return false;
+        }
+    }
+
+    // 기동 후 경과 시간(초)
+    private int now() {
+        return (int) ((System.currentTimeMillis() - startedAt) / 1000);
+    }
+}
@@ -0,0 +1,134 @@
+package FileSync.FindFileSync.delta;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeltaCodecTest {
+
+    private static final int BLOCK_SIZE = 1024;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTripsEditedFile() throws IOException {
+        byte[] base = random(1, 300_000 + 123);
+        ByteArrayOutputStream edited = new ByteArrayOutputStream();
+        // 앞부분 그대로, 중간 삽입, 일부 덮어쓰기, 일부 삭제, 끝에 덧붙이기
+        edited.write(base, 0, 50_000);
+        edited.write(random(2, 777));
+        edited.write(base, 50_000, 100_000);
+        edited.write(random(3, 4096));
+        edited.write(base, 154_096, 80_000);
+        edited.write(base, 250_000, base.length - 250_000);
+        edited.write(random(4, 5000));
+
+        DeltaEncoder encoder = roundTrip(base, edited.toByteArray());
+        assertTrue(encoder.copiedBytes() > base.length * 8L / 10, "재사용 " + encoder.copiedBytes());
+        assertTrue(encoder.literalBytes() < 20_000, "리터럴 " + encoder.literalBytes());
+    }
+
+    @Test
+    void identicalFileIsAllCopies() throws IOException {
+        byte[] base = random(5, 64 * BLOCK_SIZE + 10);
+        DeltaEncoder encoder = roundTrip(base, base.clone());
+        // 마지막 짧은 블록만 리터럴
+        assertEquals(10, encoder.literalBytes());
+    }
+
+    @Test
+    void roundTripsUnrelatedAndEmptyContent() throws IOException {
+        byte[] base = random(6, 10_000);
+        roundTrip(base, random(7, 25_000));
+        roundTrip(base, new byte[0]);
+        roundTrip(new byte[0], random(8, 3000));
+    }
+
+    @Test
+    void rejectsDifferentBase() throws IOException {
+        byte[] base = random(9, 20_000);
+        Path baseFile = write("base", base);
+        FileSignature signature = FileSignature.compute(baseFile, BLOCK_SIZE);
+        ByteArrayOutputStream delta = new ByteArrayOutputStream();
+        new DeltaEncoder(signature).encode(new ByteArrayInputStream(base), delta);
+
+        base[100] ^= 1;
+        Files.write(baseFile, base);
+        assertThrows(DeltaPatcher.BaseMismatchException.class, () ->
+                DeltaPatcher.apply(new ByteArrayInputStream(delta.toByteArray()), baseFile, dir.resolve("out")));
+    }
+
+    @Test
+    void encoderSignatureMatchesComputedSignature() throws IOException {
+        byte[] content = random(10, 100_000);
+        FileSignature computed = FileSignature.compute(write("content", content), BLOCK_SIZE);
+        FileSignature encoded = new DeltaEncoder(computed)
+                .encode(new ShortReads(new ByteArrayInputStream(content)), new ByteArrayOutputStream());
+        assertSameSignature(computed, encoded);
+
+        SigningInputStream signing = new SigningInputStream(new ShortReads(new ByteArrayInputStream(content)), BLOCK_SIZE);
+        signing.transferTo(new ByteArrayOutputStream());
+        assertSameSignature(computed, signing.signature());
+    }
+
+    // 델타를 만들어 적용한 결과가 새 내용과 같고, 인코더가 돌려준 서명이 새 내용의 서명인지 확인
+    private DeltaEncoder roundTrip(byte[] base, byte[] updated) throws IOException {
+        Path baseFile = write("base", base);
+        DeltaEncoder encoder = new DeltaEncoder(FileSignature.compute(baseFile, BLOCK_SIZE));
+        ByteArrayOutputStream delta = new ByteArrayOutputStream();
+        FileSignature next = encoder.encode(new ShortReads(new ByteArrayInputStream(updated)), delta);
+
+        Path output = dir.resolve("patched");
+        DeltaPatcher.apply(new ByteArrayInputStream(delta.toByteArray()), baseFile, output);
+        assertArrayEquals(updated, Files.readAllBytes(output));
+        assertSameSignature(FileSignature.compute(output, BLOCK_SIZE), next);
+        return encoder;
+    }
+
+    private static void assertSameSignature(FileSignature expected, FileSignature actual) {
+        assertEquals(expected.fileSize(), actual.fileSize());
+        assertEquals(expected.blockCount(), actual.blockCount());
+        assertArrayEquals(expected.sha256(), actual.sha256());
+        for (int i = 0; i < expected.blockCount(); i++) {
+            assertEquals(expected.weak(i), actual.weak(i), "블록 " + i);
+        }
+    }
+
+    private Path write(String name, byte[] content) throws IOException {
+        return Files.write(dir.resolve(name), content);
+    }
+
+    private static byte[] random(long seed, int length) {
+        byte[] bytes = new byte[length];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+
+    // 요청보다 적게 읽어 주는 스트림 (파일/네트워크 스트림의 짧은 읽기 재현)
+    private static final class ShortReads extends FilterInputStream {
+        private final Random random = new Random(42);
+
+        ShortReads(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return super.read(b, off, Math.min(len, 1 + random.nextInt(3000)));
+        }
+    }
+}
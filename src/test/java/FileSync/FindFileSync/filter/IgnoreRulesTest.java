@@ -0,0 +1,59 @@
+package FileSync.FindFileSync.filter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IgnoreRulesTest {
+
+    @Test
+    void matchesNamesAtAnyDepth() {
+        IgnoreRules rules = IgnoreRules.compile(List.of("# 주석", "", "*.tmp", "~*", "Thumbs.db", "*.b?k"));
+        assertEquals(Boolean.TRUE, rules.match("a.TMP", "x/y/a.TMP", false));
+        assertEquals(Boolean.TRUE, rules.match("~lock.docx", "~lock.docx", false));
+        assertEquals(Boolean.TRUE, rules.match("thumbs.db", "photos/thumbs.db", false));
+        assertEquals(Boolean.TRUE, rules.match("old.bak", "old.bak", false));
+        assertNull(rules.match("report.docx", "report.docx", false));
+        assertFalse(rules.hasPathRules());
+    }
+
+    @Test
+    void laterRulesWinAndNegationReincludes() {
+        IgnoreRules rules = IgnoreRules.compile(List.of("*.log", "!keep.log", "keep.log.*"));
+        assertEquals(Boolean.TRUE, rules.match("app.log", "app.log", false));
+        assertEquals(Boolean.FALSE, rules.match("keep.log", "keep.log", false));
+        assertEquals(Boolean.TRUE, rules.match("keep.log.1", "keep.log.1", false));
+    }
+
+    @Test
+    void directoryOnlyRulesSkipFiles() {
+        IgnoreRules rules = IgnoreRules.compile(List.of("build/"));
+        assertEquals(Boolean.TRUE, rules.match("build", "build", true));
+        assertNull(rules.match("build", "build", false));
+    }
+
+    @Test
+    void anchoredRulesMatchRelativePaths() {
+        IgnoreRules rules = IgnoreRules.compile(List.of("/out", "docs/**/draft-*", "cache/*.bin"));
+        assertTrue(rules.hasPathRules());
+        assertEquals(Boolean.TRUE, rules.match("out", "out", true));
+        assertNull(rules.match("out", "src/out", true));
+        assertEquals(Boolean.TRUE, rules.match("draft-1.md", "docs/draft-1.md", false));
+        assertEquals(Boolean.TRUE, rules.match("draft-1.md", "docs/a/b/draft-1.md", false));
+        assertEquals(Boolean.TRUE, rules.match("x.bin", "cache/x.bin", false));
+        // '*'는 디렉토리 경계를 넘지 않는다
+        assertNull(rules.match("x.bin", "cache/sub/x.bin", false));
+    }
+
+    @Test
+    void emptyRulesMatchNothing() {
+        IgnoreRules rules = IgnoreRules.compile(List.of("   ", "# only comments"));
+        assertTrue(rules.isEmpty());
+        assertNull(rules.match("a.tmp", "a.tmp", false));
+    }
+}
@@ -0,0 +1,71 @@
+package FileSync.FindFileSync.integrity;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChecksumTrailerTest {
+
+    @Test
+    void roundTripsUnderShortReads() throws IOException {
+        for (int size : new int[]{0, 1, IntegrityFormat.TRAILER_LENGTH, 64 * 1024, 64 * 1024 + 13, 300_001}) {
+            byte[] content = random(size);
+            byte[] body = ChecksumTrailer.append(new ShortReads(new ByteArrayInputStream(content), 1)).readAllBytes();
+            assertEquals(size + IntegrityFormat.TRAILER_LENGTH, body.length);
+
+            ByteArrayOutputStream copied = new ByteArrayOutputStream();
+            assertTrue(ChecksumTrailer.copyVerified(new ShortReads(new ByteArrayInputStream(body), 2), copied), "크기 " + size);
+            assertArrayEquals(content, copied.toByteArray());
+        }
+    }
+
+    @Test
+    void rejectsCorruptedBody() throws IOException {
+        byte[] body = ChecksumTrailer.append(new ByteArrayInputStream(random(100_000))).readAllBytes();
+        body[70_000] ^= 0x10;
+        assertFalse(ChecksumTrailer.copyVerified(new ShortReads(new ByteArrayInputStream(body), 3), new ByteArrayOutputStream()));
+    }
+
+    @Test
+    void rejectsTruncatedBody() throws IOException {
+        byte[] body = ChecksumTrailer.append(new ByteArrayInputStream(random(5000))).readAllBytes();
+        // 꼬리가 잘림
+        assertFalse(ChecksumTrailer.copyVerified(
+                new ByteArrayInputStream(Arrays.copyOf(body, body.length - 1)), new ByteArrayOutputStream()));
+        // 꼬리보다 짧음
+        assertFalse(ChecksumTrailer.copyVerified(
+                new ByteArrayInputStream(Arrays.copyOf(body, IntegrityFormat.TRAILER_LENGTH - 1)), new ByteArrayOutputStream()));
+    }
+
+    private static byte[] random(int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+
+    // 요청보다 적게 읽어 주는 스트림 (네트워크 스트림의 짧은 읽기 재현)
+    private static final class ShortReads extends FilterInputStream {
+        private final Random random;
+
+        ShortReads(InputStream in, long seed) {
+            super(in);
+            this.random = new Random(seed);
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return super.read(b, off, Math.min(len, 1 + random.nextInt(20)));
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package FileSync.FindFileSync.journal;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OperationJournalTest {
+
+    @TempDir
+    Path dir;
+
+    private final List<OperationJournal> opened = new ArrayList<>();
+
+    @AfterEach
+    void closeAll() {
+        opened.forEach(OperationJournal::close);
+    }
+
+    @Test
+    void replaysUnackedOperationsInOrder() throws IOException {
+        OperationJournal journal = open(16 * 1024 * 1024);
+        JournalOperation first = journal.append(OperationType.UPLOAD_FILE, "a/one.txt");
+        JournalOperation second = journal.append(OperationType.DELETE_FILE, "a/two.txt");
+        JournalOperation third = journal.append(OperationType.UPLOAD_DIR, "b");
+        journal.ack(second.seq());
+        journal.close();
+
+        OperationJournal reloaded = open(16 * 1024 * 1024);
+        assertEquals(List.of(first, third), reloaded.pending());
+        // 순번은 이어서 매긴다
+        assertEquals(third.seq() + 1, reloaded.append(OperationType.DELETE_DIR, "c").seq());
+    }
+
+    @Test
+    void dropsTornTailAndKeepsEarlierRecords() throws IOException {
+        OperationJournal journal = open(16 * 1024 * 1024);
+        JournalOperation first = journal.append(OperationType.UPLOAD_FILE, "one.txt");
+        JournalOperation second = journal.append(OperationType.UPLOAD_FILE, "two.txt");
+        journal.close();
+
+        // 기록 도중 꺼진 것처럼 ENQUEUE 레코드의 앞부분만 남긴다
+        try (DataOutputStream out = new DataOutputStream(
+                Files.newOutputStream(onlySegment(), StandardOpenOption.APPEND))) {
+            out.writeByte(1);
+            out.writeLong(second.seq() + 1);
+            out.writeByte(OperationType.UPLOAD_FILE.code());
+            out.writeShort(100);
+            out.write("thr".getBytes());
+        }
+
+        OperationJournal reloaded = open(16 * 1024 * 1024);
+        assertEquals(List.of(first, second), reloaded.pending());
+        JournalOperation third = reloaded.append(OperationType.UPLOAD_FILE, "three.txt");
+        reloaded.close();
+
+        assertEquals(List.of(first, second, third), open(16 * 1024 * 1024).pending());
+    }
+
+    @Test
+    void discardsRecordsAfterCorruption() throws IOException {
+        OperationJournal journal = open(16 * 1024 * 1024);
+        JournalOperation first = journal.append(OperationType.UPLOAD_FILE, "one.txt");
+        journal.close();
+
+        try (OutputStream out = Files.newOutputStream(onlySegment(), StandardOpenOption.APPEND)) {
+            out.write(new byte[]{(byte) 0x7f, 0, 0, 0, 0, 0, 0, 0, 9});
+        }
+
+        assertEquals(List.of(first), open(16 * 1024 * 1024).pending());
+    }
+
+    @Test
+    void compactsLiveOperationsIntoNewSegments() throws IOException {
+        OperationJournal journal = open(1024);
+        List<JournalOperation> kept = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            JournalOperation op = journal.append(OperationType.UPLOAD_FILE, "dir/file-" + i + ".txt");
+            if (i % 10 == 0) {
+                kept.add(op);
+            } else {
+                journal.ack(op.seq());
+            }
+        }
+        assertTrue((int) ReflectionTestUtils.getField(journal, "segmentNumber") > 1, "세그먼트가 교체되어야 함");
+        journal.close();
+
+        OperationJournal reloaded = open(1024);
+        assertEquals(kept, reloaded.pending());
+        // 기동 시 남은 작업을 새 세그먼트로 옮기고 이전 세그먼트는 모두 지운다
+        onlySegment();
+    }
+
+    @Test
+    void rolloverStaysProportionalWhenLiveOperationsExceedSegmentSize() throws IOException {
+        OperationJournal journal = open(256);
+        List<JournalOperation> appended = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            appended.add(journal.append(OperationType.UPLOAD_FILE, "file-" + i));
+        }
+        // 옮겨 쓴 크기만큼 더 쌓여야 교체하므로 세그먼트 수는 작업 수의 로그에 비례한다
+        int segments = (int) ReflectionTestUtils.getField(journal, "segmentNumber");
+        assertTrue(segments < 20, "세그먼트 교체가 너무 잦음: " + segments);
+        journal.close();
+
+        assertEquals(appended, open(256).pending());
+    }
+
+    private OperationJournal open(long segmentBytes) throws IOException {
+        OperationJournal journal = new OperationJournal();
+        ReflectionTestUtils.setField(journal, "journalDir", dir.toString());
+        ReflectionTestUtils.setField(journal, "segmentBytes", segmentBytes);
+        ReflectionTestUtils.setField(journal, "syncIntervalMillis", 50L);
+        journal.load();
+        opened.add(journal);
+        return journal;
+    }
+
+    private Path onlySegment() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            List<Path> segments = files.filter(p -> p.getFileName().toString().startsWith("segment-")).toList();
+            assertEquals(1, segments.size(), "세그먼트 파일: " + segments);
+            return segments.get(0);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package FileSync.FindFileSync.scheduler;
+
+import FileSync.FindFileSync.metrics.SyncMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UploadSchedulerTest {
+
+    private static final List<String> MODES = List.of("platform", "virtual");
+
+    private final List<UploadScheduler> started = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        started.forEach(UploadScheduler::shutdown);
+    }
+
+    @Test
+    void runsWaitingJobsByPriorityThenSubmissionOrder() throws Exception {
+        for (String mode : MODES) {
+            UploadScheduler scheduler = start(mode, 1, 10);
+            CountDownLatch running = new CountDownLatch(1);
+            CountDownLatch go = new CountDownLatch(1);
+            scheduler.submit(UploadPriority.NORMAL, () -> {
+                running.countDown();
+                return go.await(5, TimeUnit.SECONDS);
+            });
+            assertTrue(running.await(5, TimeUnit.SECONDS), mode + ": 첫 작업이 시작되지 않음");
+
+            // 실행 자리가 하나뿐이므로 나머지는 모두 대기열에서 순서를 기다린다
+            List<String> order = Collections.synchronizedList(new ArrayList<>());
+            List<CompletableFuture<Boolean>> jobs = new ArrayList<>();
+            jobs.add(record(scheduler, UploadPriority.BULK, "bulk-1", order));
+            jobs.add(record(scheduler, UploadPriority.NORMAL, "normal-1", order));
+            jobs.add(record(scheduler, UploadPriority.LIVE, "live-1", order));
+            jobs.add(record(scheduler, UploadPriority.BULK, "bulk-2", order));
+            jobs.add(record(scheduler, UploadPriority.LIVE, "live-2", order));
+            jobs.add(record(scheduler, UploadPriority.NORMAL, "normal-2", order));
+            go.countDown();
+            scheduler.awaitIdle();
+
+            for (CompletableFuture<Boolean> job : jobs) {
+                assertTrue(job.isDone(), mode + ": awaitIdle 뒤에 끝나지 않은 작업");
+            }
+            assertEquals(List.of("live-1", "live-2", "normal-1", "normal-2", "bulk-1", "bulk-2"), order, mode);
+            assertEquals(0, scheduler.pending());
+        }
+    }
+
+    @Test
+    void fullLaneRejectsTrySubmitWithoutStoppingOtherLanes() throws Exception {
+        for (String mode : MODES) {
+            // 서버마다 실행 1 + 대기 2
+            UploadScheduler scheduler = start(mode, 4, 2);
+            scheduler.openLane("http://slow", 1);
+            scheduler.openLane("http://fast", 1);
+            CountDownLatch release = new CountDownLatch(1);
+
+            List<CompletableFuture<Boolean>> stalled = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                stalled.add(scheduler.trySubmit("http://slow", UploadPriority.NORMAL, () -> release.await(5, TimeUnit.SECONDS)));
+            }
+            CompletableFuture<Boolean> rejected = scheduler.trySubmit("http://slow", UploadPriority.NORMAL, () -> true);
+            ExecutionException e = assertThrows(ExecutionException.class, () -> rejected.get(1, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof RejectedExecutionException, mode + ": " + e.getCause());
+
+            // 멈춘 서버와 상관없이 다른 서버의 대기열은 실행된다
+            for (int i = 0; i < 10; i++) {
+                assertTrue(scheduler.trySubmit("http://fast", UploadPriority.NORMAL, () -> true).get(5, TimeUnit.SECONDS), mode);
+            }
+            // 결과는 자리를 돌려주기 직전에 완료되므로 잠깐 기다린다
+            awaitPending(scheduler, 3);
+
+            // awaitIdle은 모든 대기열의 작업을 기다린다
+            CompletableFuture<Void> idle = CompletableFuture.runAsync(() -> {
+                try {
+                    scheduler.awaitIdle();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            Thread.sleep(50);
+            assertFalse(idle.isDone(), mode + ": 멈춘 작업이 있는데 awaitIdle이 끝남");
+            release.countDown();
+            idle.get(5, TimeUnit.SECONDS);
+            for (CompletableFuture<Boolean> job : stalled) {
+                assertTrue(job.get(5, TimeUnit.SECONDS), mode);
+            }
+        }
+    }
+
+    @Test
+    void unknownLaneAndModeAreRejected() {
+        UploadScheduler scheduler = start("platform", 1, 1);
+        assertThrows(IllegalArgumentException.class, () -> scheduler.trySubmit("http://unknown", UploadPriority.NORMAL, () -> true));
+        assertThrows(IllegalArgumentException.class, () -> start("green", 1, 1));
+    }
+
+    @Test
+    void priorityPutsLiveAndSmallFilesFirst() {
+        UploadScheduler scheduler = start("platform", 1, 1);
+        long large = 16L * 1024 * 1024;
+        assertEquals(UploadPriority.LIVE, scheduler.priorityFor(true, large - 1));
+        assertEquals(UploadPriority.NORMAL, scheduler.priorityFor(true, large));
+        assertEquals(UploadPriority.NORMAL, scheduler.priorityFor(false, large - 1));
+        assertEquals(UploadPriority.BULK, scheduler.priorityFor(false, large));
+    }
+
+    private static void awaitPending(UploadScheduler scheduler, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (scheduler.pending() != expected && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(expected, scheduler.pending());
+    }
+
+    private static CompletableFuture<Boolean> record(UploadScheduler scheduler, UploadPriority priority, String name, List<String> order) {
+        return scheduler.submit(priority, () -> order.add(name));
+    }
+
+    private UploadScheduler start(String threads, int concurrency, int queueCapacity) {
+        SyncMetrics metrics = new SyncMetrics();
+        ReflectionTestUtils.setField(metrics, "registry", new SimpleMeterRegistry());
+        metrics.init();
+
+        UploadScheduler scheduler = new UploadScheduler();
+        ReflectionTestUtils.setField(scheduler, "threads", threads);
+        ReflectionTestUtils.setField(scheduler, "concurrency", concurrency);
+        ReflectionTestUtils.setField(scheduler, "virtualConcurrency", concurrency);
+        ReflectionTestUtils.setField(scheduler, "queueCapacity", queueCapacity);
+        ReflectionTestUtils.setField(scheduler, "largeFileBytes", 16L * 1024 * 1024);
+        ReflectionTestUtils.setField(scheduler, "syncMetrics", metrics);
+        scheduler.init();
+        started.add(scheduler);
+        return scheduler;
+    }
+}
@@ -0,0 +1,78 @@
+package FileSync.FindFileSync.target;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HashRingTest {
+
+    private static final int VIRTUAL_NODES = 128;
+    private static final int KEYS = 20_000;
+
+    @Test
+    void returnsDistinctReplicas() {
+        HashRing ring = new HashRing(targets(4), VIRTUAL_NODES);
+        for (int i = 0; i < 1000; i++) {
+            List<SyncTarget> replicas = ring.lookup("dir/file-" + i, 2);
+            assertEquals(2, replicas.size());
+            assertEquals(2, new HashSet<>(replicas).size());
+        }
+        // 서버 수보다 많이 요청하면 전체
+        assertEquals(4, ring.lookup("a", 10).size());
+    }
+
+    @Test
+    void sameKeyMapsToSameServerWhateverTheSeparator() {
+        List<SyncTarget> targets = targets(5);
+        HashRing ring = new HashRing(targets, VIRTUAL_NODES);
+        HashRing rebuilt = new HashRing(targets, VIRTUAL_NODES);
+        for (int i = 0; i < 1000; i++) {
+            String key = "dir/sub/file-" + i;
+            assertEquals(ring.lookup(key, 1), rebuilt.lookup(key, 1));
+            assertEquals(ring.lookup(key, 1), ring.lookup(key.replace('/', '\\'), 1));
+        }
+    }
+
+    @Test
+    void addingServerMovesOnlyItsShare() {
+        List<SyncTarget> before = targets(4);
+        List<SyncTarget> after = new ArrayList<>(before);
+        SyncTarget added = new SyncTarget("http://server-4", null);
+        after.add(added);
+        HashRing oldRing = new HashRing(before, VIRTUAL_NODES);
+        HashRing newRing = new HashRing(after, VIRTUAL_NODES);
+
+        int moved = 0;
+        Map<SyncTarget, Integer> load = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            String key = "dir/file-" + i;
+            SyncTarget owner = newRing.lookup(key, 1).get(0);
+            load.merge(owner, 1, Integer::sum);
+            if (!owner.equals(oldRing.lookup(key, 1).get(0))) {
+                moved++;
+                // 옮겨 가는 경로는 모두 새 서버로 간다
+                assertEquals(added, owner);
+            }
+        }
+        // 기대값은 1/5, 가상 노드의 편차를 감안
+        assertTrue(moved > KEYS / 10 && moved < KEYS * 3 / 10, "옮겨 간 경로 " + moved);
+        for (int count : load.values()) {
+            assertTrue(count > KEYS / 5 / 2 && count < KEYS / 5 * 2, "서버별 경로 " + load);
+        }
+    }
+
+    private static List<SyncTarget> targets(int count) {
+        List<SyncTarget> targets = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            targets.add(new SyncTarget("http://server-" + i, null));
+        }
+        return targets;
+    }
+}
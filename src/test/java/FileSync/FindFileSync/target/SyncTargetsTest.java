@@ -0,0 +1,99 @@
+package FileSync.FindFileSync.target;
+
+import FileSync.FindFileSync.metrics.SyncMetrics;
+import FileSync.FindFileSync.scheduler.UploadPriority;
+import FileSync.FindFileSync.scheduler.UploadScheduler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class SyncTargetsTest {
+
+    private static final int OPERATIONS = 50;
+
+    private final CountDownLatch stalled = new CountDownLatch(1);
+    private UploadScheduler scheduler;
+    private SyncTargets syncTargets;
+    private SyncTarget slow;
+    private SyncTarget fast;
+
+    @BeforeEach
+    void setUp() {
+        SyncMetrics metrics = new SyncMetrics();
+        ReflectionTestUtils.setField(metrics, "registry", new SimpleMeterRegistry());
+        metrics.init();
+
+        // 기본 대기열의 작업 2개, 서버마다 실행 1 + 대기 2
+        scheduler = new UploadScheduler();
+        ReflectionTestUtils.setField(scheduler, "threads", "platform");
+        ReflectionTestUtils.setField(scheduler, "concurrency", 2);
+        ReflectionTestUtils.setField(scheduler, "queueCapacity", 2);
+        ReflectionTestUtils.setField(scheduler, "largeFileBytes", 16L * 1024 * 1024);
+        ReflectionTestUtils.setField(scheduler, "syncMetrics", metrics);
+        scheduler.init();
+
+        slow = new SyncTarget("http://slow", null);
+        fast = new SyncTarget("http://fast", null);
+        syncTargets = new SyncTargets();
+        ReflectionTestUtils.setField(syncTargets, "uploadScheduler", scheduler);
+        ReflectionTestUtils.setField(syncTargets, "replicas", 2);
+        ReflectionTestUtils.setField(syncTargets, "targets", List.of(slow, fast));
+        scheduler.openLane(slow.address(), 1);
+        scheduler.openLane(fast.address(), 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        stalled.countDown();
+        scheduler.shutdown();
+    }
+
+    @Test
+    void stalledServerDoesNotStopOthers() throws Exception {
+        AtomicInteger received = new AtomicInteger();
+        List<CompletableFuture<Boolean>> results = new ArrayList<>();
+        // 저널 작업처럼 기본 대기열의 스레드에서 두 서버로 나눠 보낸다 (빠른 서버의 대기열은 차지 않게 하나씩)
+        for (int i = 0; i < OPERATIONS; i++) {
+            results.add(scheduler.submit(UploadPriority.NORMAL, () -> syncTargets.fanOut(syncTargets.all(), UploadPriority.NORMAL,
+                    target -> {
+                        if (target == slow) {
+                            stalled.await();
+                        } else {
+                            received.incrementAndGet();
+                        }
+                        return CompletableFuture.completedFuture(true);
+                    })).thenCompose(future -> future));
+            awaitReceived(received, i + 1);
+        }
+
+        // 멈춘 서버의 대기열(실행 1 + 대기 2)에 들어간 앞의 세 작업만 기다리고,
+        // 나머지는 기다리지 않고 실패로 끝나 저널이 다시 시도한다
+        for (int i = 0; i < OPERATIONS; i++) {
+            if (i < 3) {
+                assertFalse(results.get(i).isDone(), "멈춘 서버의 작업이 끝남: " + i);
+            } else {
+                assertFalse(results.get(i).get(5, TimeUnit.SECONDS), "작업 " + i);
+            }
+        }
+    }
+
+    private static void awaitReceived(AtomicInteger received, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (received.get() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(expected, received.get(), "멈춘 서버 때문에 다른 서버로의 전송이 멈춤");
+    }
+}
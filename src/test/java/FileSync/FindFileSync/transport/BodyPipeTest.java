@@ -0,0 +1,63 @@
+package FileSync.FindFileSync.transport;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BodyPipeTest {
+
+    @Test
+    void passesWrittenContentThrough() throws IOException {
+        byte[] content = new byte[3 * BodyPipe.BUFFER_BYTES + 17];
+        new Random(1).nextBytes(content);
+        try (InputStream in = BodyPipe.start(out -> {
+            // 버퍼보다 작은 조각으로 나눠 쓴다
+            for (int offset = 0; offset < content.length; offset += 1000) {
+                out.write(content, offset, Math.min(1000, content.length - offset));
+            }
+        })) {
+            assertArrayEquals(content, in.readAllBytes());
+        }
+    }
+
+    @Test
+    void writerFailureReachesReaderInsteadOfEnd() {
+        assertThrows(IOException.class, () -> {
+            try (InputStream in = BodyPipe.start(out -> {
+                out.write(new byte[100]);
+                throw new IOException("디스크 읽기 실패");
+            })) {
+                in.transferTo(new ByteArrayOutputStream());
+            }
+        });
+    }
+
+    @Test
+    void closingReaderStopsWriter() throws Exception {
+        CompletableFuture<Throwable> writerResult = new CompletableFuture<>();
+        InputStream in = BodyPipe.start(out -> {
+            try {
+                // 읽는 쪽이 받지 않으면 버퍼가 차서 막힌다
+                while (true) {
+                    out.write(new byte[8192]);
+                }
+            } catch (IOException e) {
+                writerResult.complete(e);
+                throw e;
+            }
+        });
+        assertEquals(8192, in.readNBytes(8192).length);
+        in.close();
+        assertTrue(writerResult.get(5, TimeUnit.SECONDS) instanceof IOException);
+    }
+}
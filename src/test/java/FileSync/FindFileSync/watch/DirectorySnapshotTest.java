@@ -0,0 +1,153 @@
+package FileSync.FindFileSync.watch;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DirectorySnapshotTest {
+
+    private static final List<Path> ROOTS = List.of(Path.of("/sync/a"), Path.of("/sync/b"));
+    private static final String[] NAMES = {"src", "docs", "x", "y", "z"};
+    private static final int MAX_DEPTH = 4;
+
+    @Test
+    void matchesReferenceMapUnderRandomPutAndRemove() {
+        Random random = new Random(7);
+        DirectorySnapshot snapshot = new DirectorySnapshot(ROOTS);
+        // 있어야 할 디렉토리 → 등록 여부
+        Map<Path, Boolean> reference = new HashMap<>();
+        List<Path> universe = universe();
+
+        for (int step = 0; step < 20_000; step++) {
+            Path dir = universe.get(random.nextInt(universe.size()));
+            int op = random.nextInt(10);
+            if (op < 6) {
+                int id = snapshot.put(dir);
+                assertEquals(dir, snapshot.path(id));
+                for (Path p = dir; !ROOTS.contains(p); p = p.getParent()) {
+                    reference.putIfAbsent(p, false);
+                }
+                if (op < 3) {
+                    snapshot.register(id, step, false, step);
+                    reference.put(dir, true);
+                }
+            } else if (op < 9) {
+                snapshot.removeTree(snapshot.find(dir));
+                // 루트는 기준에 없으므로 루트를 지우면 하위만 지워진다
+                reference.keySet().removeIf(p -> p.startsWith(dir));
+            } else {
+                // 루트 전체를 비운다 (루트 자신은 남는다)
+                Path root = ROOTS.get(random.nextInt(ROOTS.size()));
+                snapshot.removeTree(snapshot.find(root));
+                reference.keySet().removeIf(p -> p.startsWith(root));
+            }
+            if (step % 500 == 0) {
+                assertSameTree(snapshot, reference, universe);
+            }
+        }
+        assertSameTree(snapshot, reference, universe);
+    }
+
+    @Test
+    void reusesFreedIdsAndGrowsPastInitialCapacity() {
+        DirectorySnapshot snapshot = new DirectorySnapshot(ROOTS);
+        Map<Path, Boolean> reference = new HashMap<>();
+        List<Path> universe = universe();
+        // 배열(1024)과 해시 표(2048칸, 절반까지) 초기 크기를 넘긴다
+        for (Path dir : universe) {
+            snapshot.put(dir);
+            if (!ROOTS.contains(dir)) {
+                reference.put(dir, false);
+            }
+        }
+        assertTrue(universe.size() > 1024, "디렉토리 수 " + universe.size());
+        assertSameTree(snapshot, reference, universe);
+        int highWater = snapshot.highWater();
+
+        // 지웠다가 다시 만들면 빈 번호를 다시 쓰므로 번호 범위가 늘지 않는다
+        for (int round = 0; round < 5; round++) {
+            for (Path root : ROOTS) {
+                snapshot.removeTree(snapshot.find(root));
+            }
+            assertSameTree(snapshot, new HashMap<>(), universe);
+            for (Path dir : universe) {
+                snapshot.put(dir);
+            }
+            assertSameTree(snapshot, reference, universe);
+        }
+        assertEquals(highWater, snapshot.highWater());
+    }
+
+    // 찾기, 경로 복원, 자식 목록, 등록 수가 모두 기준과 같은지 확인
+    private static void assertSameTree(DirectorySnapshot snapshot, Map<Path, Boolean> reference, List<Path> universe) {
+        Set<Integer> ids = new HashSet<>();
+        int registered = 0;
+        for (Path dir : universe) {
+            int id = snapshot.find(dir);
+            if (ROOTS.contains(dir)) {
+                assertEquals(ROOTS.indexOf(dir), id);
+                continue;
+            }
+            if (!reference.containsKey(dir)) {
+                assertEquals(DirectorySnapshot.NONE, id, "지워졌어야 함: " + dir);
+                continue;
+            }
+            assertTrue(id != DirectorySnapshot.NONE, "없어짐: " + dir);
+            assertTrue(ids.add(id), "번호 중복: " + dir);
+            assertEquals(dir, snapshot.path(id));
+            assertEquals(reference.get(dir), snapshot.isRegistered(id), "등록 여부: " + dir);
+            if (reference.get(dir)) {
+                registered++;
+            }
+        }
+        assertEquals(registered, snapshot.registeredCount());
+
+        for (Path dir : universe) {
+            int id = snapshot.find(dir);
+            if (id == DirectorySnapshot.NONE) {
+                continue;
+            }
+            Set<Path> children = new HashSet<>();
+            for (int child = snapshot.firstChild(id); child != DirectorySnapshot.NONE; child = snapshot.nextSibling(child)) {
+                assertTrue(children.add(snapshot.path(child)), "자식 중복: " + dir);
+            }
+            Set<Path> expected = new HashSet<>();
+            for (Path p : reference.keySet()) {
+                if (dir.equals(p.getParent())) {
+                    expected.add(p);
+                }
+            }
+            assertEquals(expected, children, "자식 목록: " + dir);
+        }
+    }
+
+    // 루트마다 깊이 MAX_DEPTH까지의 모든 디렉토리 (루트 포함)
+    private static List<Path> universe() {
+        List<Path> all = new ArrayList<>();
+        for (Path root : ROOTS) {
+            List<Path> level = List.of(root);
+            all.add(root);
+            for (int depth = 0; depth < MAX_DEPTH; depth++) {
+                List<Path> next = new ArrayList<>();
+                for (Path parent : level) {
+                    for (String name : NAMES) {
+                        next.add(parent.resolve(name));
+                    }
+                }
+                all.addAll(next);
+                level = next;
+            }
+        }
+        return all;
+    }
+}
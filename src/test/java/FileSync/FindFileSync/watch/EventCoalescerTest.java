@@ -0,0 +1,132 @@
+package FileSync.FindFileSync.watch;
+
+import FileSync.FindFileSync.metrics.SyncMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EventCoalescerTest {
+
+    private static final long WINDOW_MILLIS = 50;
+    private static final long MAX_HOLD_MILLIS = 600;
+
+    @TempDir
+    Path dir;
+
+    private final BlockingQueue<FileChange> emitted = new LinkedBlockingQueue<>();
+    private EventCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        SyncMetrics metrics = new SyncMetrics();
+        ReflectionTestUtils.setField(metrics, "registry", new SimpleMeterRegistry());
+        metrics.init();
+
+        coalescer = new EventCoalescer();
+        ReflectionTestUtils.setField(coalescer, "windowMillis", WINDOW_MILLIS);
+        ReflectionTestUtils.setField(coalescer, "maxHoldMillis", MAX_HOLD_MILLIS);
+        ReflectionTestUtils.setField(coalescer, "syncMetrics", metrics);
+        coalescer.init();
+        coalescer.setListener(emitted::add);
+    }
+
+    @AfterEach
+    void tearDown() {
+        coalescer.shutdown();
+    }
+
+    @Test
+    void burstOnOnePathBecomesOneChangeWithLastType() throws Exception {
+        Path file = Files.writeString(dir.resolve("a.txt"), "hello");
+        Path removed = dir.resolve("gone.txt");
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < 20; i++) {
+            coalescer.onEvent(file, i % 2 == 0 ? ChangeType.DELETE : ChangeType.UPSERT);
+            coalescer.onEvent(removed, i % 2 == 0 ? ChangeType.UPSERT : ChangeType.DELETE);
+        }
+
+        FileChange first = next();
+        FileChange second = next();
+        FileChange upsert = first.path().equals(file) ? first : second;
+        FileChange delete = first.path().equals(file) ? second : first;
+        assertEquals(new FileChange(file, ChangeType.UPSERT, upsert.firstSeenAt()), upsert);
+        assertEquals(new FileChange(removed, ChangeType.DELETE, delete.firstSeenAt()), delete);
+        assertTrue(upsert.firstSeenAt() >= start, "첫 이벤트 시각");
+        assertNull(emitted.poll(WINDOW_MILLIS * 4, TimeUnit.MILLISECONDS), "한 번만 내보내야 함");
+        assertEquals(0, coalescer.pendingCount());
+    }
+
+    @Test
+    void stableFileIsEmittedAfterTwoMatchingChecks() throws Exception {
+        Path file = Files.writeString(dir.resolve("a.txt"), "hello");
+        long start = System.nanoTime();
+        coalescer.onEvent(file, ChangeType.UPSERT);
+
+        assertNotNull(next());
+        // 첫 확인은 상태를 기록만 하고, 한 창 뒤 같은 상태여야 내보낸다
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(elapsed >= 2 * WINDOW_MILLIS, "너무 일찍 내보냄: " + elapsed + "ms");
+    }
+
+    @Test
+    void growingFileIsHeldUntilItStops() throws Exception {
+        Path file = Files.writeString(dir.resolve("big.bin"), "");
+        coalescer.onEvent(file, ChangeType.UPSERT);
+        // 이벤트 없이 (감시가 놓친 것처럼) 계속 커지는 파일
+        long growUntil = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(MAX_HOLD_MILLIS / 2);
+        while (System.nanoTime() < growUntil) {
+            append(file);
+            assertNull(emitted.poll(WINDOW_MILLIS / 5, TimeUnit.MILLISECONDS), "쓰는 중인 파일을 내보냄");
+        }
+        FileChange change = next();
+        assertEquals(ChangeType.UPSERT, change.type());
+    }
+
+    @Test
+    void fileThatNeverSettlesIsReleasedAfterMaxHold() throws Exception {
+        Path file = Files.writeString(dir.resolve("log.txt"), "");
+        long start = System.nanoTime();
+        coalescer.onEvent(file, ChangeType.UPSERT);
+        FileChange change = null;
+        while (change == null && System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(MAX_HOLD_MILLIS * 5)) {
+            append(file);
+            change = emitted.poll(WINDOW_MILLIS / 5, TimeUnit.MILLISECONDS);
+        }
+        assertNotNull(change, "최대 대기 시간이 지나도 내보내지 않음");
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(elapsed >= MAX_HOLD_MILLIS, "너무 일찍 내보냄: " + elapsed + "ms");
+    }
+
+    @Test
+    void upsertOfMissingFileBecomesDelete() throws Exception {
+        Path file = dir.resolve("never-written.txt");
+        coalescer.onEvent(file, ChangeType.UPSERT);
+        assertEquals(ChangeType.DELETE, next().type());
+    }
+
+    private FileChange next() throws InterruptedException {
+        FileChange change = emitted.poll(5, TimeUnit.SECONDS);
+        assertNotNull(change, "변경이 나오지 않음");
+        return change;
+    }
+
+    private static void append(Path file) throws IOException {
+        Files.write(file, new byte[64], StandardOpenOption.APPEND);
+    }
+}